@@ -0,0 +1,65 @@
+package com.codigoquatro.atendimento_ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo até a primeira resposta: sobe a aplicação em uma JVM nova (cada fork mede uma única subida
+ * a frio) e responde uma pergunta da base de conhecimento, sem rede externa.
+ *
+ * <p>Compara o perfil padrão com o {@code fast-startup}. Para medir com o arquivo AppCDS gerado
+ * pela imagem Docker, acrescente {@code -jvmArgsAppend -XX:SharedArchiveFile=application.jsa}:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="StartupBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"default", "fast-startup"})
+    public String profile;
+
+    @Benchmark
+    public int timeToFirstAnswer() throws Exception {
+        String[] args = {
+                "--server.port=0",
+                "--openrouter.api.key=benchmark",
+                "--precompute.enabled=false",
+                "--spring.profiles.active=" + ("default".equals(profile) ? "" : profile)
+        };
+        try (ConfigurableApplicationContext context = SpringApplication.run(AtendimentoAiApplication.class, args)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chat/question"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"question\":\"qual é o prazo de entrega?\"}"))
+                    .build();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Primeira resposta com status " + response.statusCode());
+            }
+            return response.body().length();
+        }
+    }
+}
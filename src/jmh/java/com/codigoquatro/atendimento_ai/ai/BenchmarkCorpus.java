@@ -0,0 +1,152 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Corpora usados pelos benchmarks: perguntas reais de clientes (com erros de digitação e
+ * variações), respostas no formato devolvido pela IA e bases de conhecimento sintéticas em
+ * português, geradas de forma determinística para qualquer tamanho.
+ */
+final class BenchmarkCorpus {
+
+    static final List<String> QUESTIONS = List.of(
+            "oi",
+            "Olá, bom dia!",
+            "qual é o prazo de entrega?",
+            "qual o prazo de entrga pra fortaleza?",
+            "quanto tempo demora pra chegar em São Paulo?",
+            "como faço para solicitar troca?",
+            "quero trocar um produto que veio com defeito",
+            "vocês oferecem suporte técnico?",
+            "aceitam pix?",
+            "quais formas de pagamento vocês aceitam no cartão?",
+            "tem promoção de cabo hdmi?",
+            "onde compro cabo hdmi 2.0 de 3 metros?",
+            "quero comprar conector rca macho",
+            "qual o preço do potenciômetro 10k linear?",
+            "vocês vendem trimpot multivoltas?",
+            "preciso de um adaptador p2 para p10",
+            "o cabo de energia tripolar serve para computador?",
+            "meu conector xlr não funciona, o que faço?",
+            "como usar o borne de pressão no amplificador?",
+            "qual a diferença entre potenciômetro linear e logarítmico para controle de volume?",
+            "vocês têm garantia nos produtos?",
+            "horário de funcionamento da loja física",
+            "como acompanhar meu pedido 12345?",
+            "qual o valor do frete para o interior do Ceará?",
+            "frete grátis acima de quanto?",
+            "vocês fazem instalação de som automotivo?",
+            "catalogo de produtos",
+            "Obrigado!",
+            "valeu, tchau",
+            "Bom dia, gostaria de saber se vocês têm em estoque o plug banana 4mm vermelho e preto, preciso de 20 unidades"
+    );
+
+    static final List<String> ANSWERS = List.of(
+            "Olá! 😊 Nosso prazo de entrega é de 3 a 7 dias úteis. Acompanhe em https://smcomponentes.com.br/loja/pedidos ou fale conosco em contato@smcomponentes.com.br.",
+            "Temos sim! Confira o [Cabo HDMI 2.0 3m](https://smcomponentes.com.br/loja/cabo-hdmi-3m) e outros modelos na categoria [Áudio e Vídeo](https://smcomponentes.com.br/loja/categoria-audio-e-video). Dúvidas? WhatsApp (85) 99905-5729.",
+            "Para suporte técnico, envie um email para suporte@smcomponentes.com.br ou ligue (85)99905-5729. Atendemos de segunda a sexta, das 8h às 18h.",
+            "Confira em <a href=\"https://smcomponentes.com.br/loja\" target=\"_blank\">nosso catálogo</a> todos os conectores disponíveis.",
+            """
+            Olá! Encontrei algumas opções para você:
+
+            • **Potenciômetro Linear 10K** - https://smcomponentes.com.br/loja/potenciometro-linear-10k
+            • **Potenciômetro Log 10K** - https://smcomponentes.com.br/loja/potenciometro-log-10k
+            • **Trimpot Multivoltas 10K** - https://smcomponentes.com.br/loja/trimpot-10k
+
+            O linear é indicado para controles de tom e o logarítmico para volume, pois acompanha a percepção do ouvido.
+            Se precisar de ajuda para escolher, fale com a gente no WhatsApp (85) 99905-5729 ou pelo email contato@smcomponentes.com.br.
+            """
+    );
+
+    private static final String[] TEMPLATES = {
+            "qual o prazo de entrega do %s para %s",
+            "vocês vendem %s em %s",
+            "como instalar %s no %s",
+            "o %s tem garantia quando comprado em %s",
+            "qual o preço do %s na loja de %s",
+            "posso trocar o %s comprado em %s",
+            "o %s é compatível com %s",
+    };
+
+    private static final String[] PRODUCTS = {
+            "cabo hdmi", "conector rca", "potenciômetro linear", "trimpot multivoltas", "adaptador p2",
+            "plug banana", "borne de pressão", "cabo de energia tripolar", "conector xlr", "cabo vga",
+            "conector bnc", "chave gangorra", "fusível de vidro", "led difuso", "jack p10"
+    };
+
+    private static final String[] COMPLEMENTS = {
+            "fortaleza", "são paulo", "recife", "amplificador", "mesa de som", "caixa ativa",
+            "computador", "televisão", "projetor", "interior do ceará", "teresina", "natal"
+    };
+
+    private BenchmarkCorpus() {
+    }
+
+    // Serviço sem rede: a OpenRouter nunca é chamada pelos métodos medidos
+    static AiServiceSimulator newService() {
+        return newService("levenshtein");
+    }
+
+    // scoring: modo de comparação da base (levenshtein ou embedding)
+    static AiServiceSimulator newService(String scoring) {
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "benchmark");
+        AiServiceSimulator service = new AiServiceSimulator("benchmark", "benchmark", "http://127.0.0.1:1/api/v1", "",
+                null,
+                SharedResponseCache.standalone(100, metrics),
+                new BackgroundRefresher(new SimpleAsyncTaskExecutor("benchmark-refresh-"), 30_000),
+                new PrecomputedAnswerStore(24, 100),
+                new ConversationStore(100, 30, 4, 300, 400),
+                new LlmCallScheduler(4, 10, 30_000),
+                new TokenBudgetGovernor(true, 60_000, 8_000, 800, 250, 4_000, 1_600, 30, 60, System::nanoTime),
+                new SimpleAsyncTaskExecutor("benchmark-"),
+                new TemplateResponder(5, 0.90, 0.85, 0.6, 3, 4),
+                new QueryCanonicalizer(true, 2),
+                new EmbeddingScorer(scoring, 256, 0.60),
+                metrics);
+        service.init();
+        return service;
+    }
+
+    /**
+     * Base de conhecimento com {@code size} entradas. As primeiras entradas são as da base
+     * distribuída com a aplicação (33); as demais são geradas com semente fixa.
+     */
+    static List<AiServiceSimulator.KnowledgeEntry> knowledgeBase(int size) throws IOException {
+        List<AiServiceSimulator.KnowledgeEntry> shipped = shippedKnowledgeBase();
+        List<AiServiceSimulator.KnowledgeEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < Math.min(size, shipped.size()); i++) {
+            entries.add(shipped.get(i));
+        }
+        Random random = new Random(42);
+        while (entries.size() < size) {
+            String product = PRODUCTS[random.nextInt(PRODUCTS.length)];
+            String complement = COMPLEMENTS[random.nextInt(COMPLEMENTS.length)];
+            String question = TEMPLATES[random.nextInt(TEMPLATES.length)].formatted(product, complement)
+                    + " modelo " + entries.size();
+            AiServiceSimulator.KnowledgeEntry entry = new AiServiceSimulator.KnowledgeEntry();
+            entry.setQuestion(question);
+            entry.setAnswer("Sobre " + product + ": consulte https://smcomponentes.com.br/loja ou fale conosco.");
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<AiServiceSimulator.KnowledgeEntry> shippedKnowledgeBase() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (InputStream inputStream = new ClassPathResource("knowledge_base.json").getInputStream()) {
+            return objectMapper.readValue(inputStream, objectMapper.getTypeFactory()
+                    .constructCollectionType(List.class, AiServiceSimulator.KnowledgeEntry.class));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca na base de conhecimento ({@code findRelevantEntries} + {@code hasExactMatch}) para bases
+ * de 33 (a distribuída) até 100 mil entradas, no heap ou compiladas e mapeadas em memória
+ * ({@link MappedKnowledgeBase}), comparando por Levenshtein ou por vetores de n-gramas
+ * ({@link EmbeddingScorer}). Cada operação processa uma pergunta do corpus, em rodízio.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KnowledgeBaseBenchmark {
+
+    @Param({"33", "1000", "10000", "100000"})
+    public int kbSize;
+
+    @Param({"heap", "mapped"})
+    public String storage;
+
+    @Param({"levenshtein", "embedding"})
+    public String scoring;
+
+    private AiServiceSimulator service;
+    private String[] normalizedQuestions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = BenchmarkCorpus.newService(scoring);
+        List<AiServiceSimulator.KnowledgeEntry> entries = BenchmarkCorpus.knowledgeBase(kbSize);
+        if ("mapped".equals(storage)) {
+            Path file = Files.createTempFile("kb-benchmark", ".kbm");
+            file.toFile().deleteOnExit();
+            KnowledgeBaseCompiler.compile(entries, 0, file);
+            service.useKnowledgeBase(MappedKnowledgeBase.open(file));
+        } else {
+            service.useKnowledgeBase(entries);
+        }
+        normalizedQuestions = BenchmarkCorpus.QUESTIONS.stream()
+                .map(QuestionNormalizer::normalize)
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public List<AiServiceSimulator.KnowledgeMatch> findRelevantEntries() {
+        return service.findRelevantEntries(nextQuestion());
+    }
+
+    @Benchmark
+    public boolean findAndMatch() {
+        String question = nextQuestion();
+        List<AiServiceSimulator.KnowledgeMatch> entries = service.findRelevantEntries(question);
+        return !entries.isEmpty() && service.hasExactMatch(entries, question);
+    }
+
+    private String nextQuestion() {
+        String question = normalizedQuestions[next];
+        next = (next + 1) % normalizedQuestions.length;
+        return question;
+    }
+}
@@ -0,0 +1,65 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Só o cálculo dos cossenos de uma pergunta contra a matriz da base ({@link SimilarityKernel}),
+ * escalar x SIMD, para bases de 1 mil a 100 mil entradas. A codificação da pergunta e a escolha
+ * das melhores ficam de fora (são medidas no {@link KnowledgeBaseBenchmark}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SimilarityKernelBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int kbSize;
+
+    @Param({"scalar", "simd"})
+    public String kernel;
+
+    @Param({"256"})
+    public int dimensions;
+
+    private SimilarityKernel similarityKernel;
+    private float[] matrix;
+    private float[][] queries;
+    private float[] scores;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        similarityKernel = "simd".equals(kernel) ? new VectorSimilarityKernel() : new ScalarSimilarityKernel();
+        KnowledgeBase knowledgeBase = InMemoryKnowledgeBase.of(BenchmarkCorpus.knowledgeBase(kbSize));
+        matrix = new EmbeddingScorer("embedding", dimensions, 0.60).index(knowledgeBase).values();
+        HashedNgramEncoder encoder = new HashedNgramEncoder(dimensions);
+        queries = BenchmarkCorpus.QUESTIONS.stream()
+                .map(question -> encoder.encode(QuestionNormalizer.normalize(question)))
+                .toArray(float[][]::new);
+        scores = new float[kbSize];
+    }
+
+    @Benchmark
+    public float[] scores() {
+        float[] query = queries[next];
+        next = (next + 1) % queries.length;
+        similarityKernel.scores(matrix, kbSize, dimensions, query, scores);
+        return scores;
+    }
+}
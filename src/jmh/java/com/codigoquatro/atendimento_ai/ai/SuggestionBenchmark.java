@@ -0,0 +1,75 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.ai.SuggestionTrie.Suggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocompletar ({@link SuggestionTrie}): consulta de um prefixo digitado (normalização + descida
+ * na trie + cópia das sugestões) e reconstrução da trie, para bases de tamanhos variados. O alvo
+ * da consulta é ficar bem abaixo de 1 ms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int phrases;
+
+    private List<Suggestion> suggestions;
+    private SuggestionTrie trie;
+    private String[] prefixes;
+    private int nextPrefix;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Pesos com cauda longa, como a frequência real das perguntas
+        Random random = new Random(42);
+        suggestions = new ArrayList<>(phrases);
+        for (AiServiceSimulator.KnowledgeEntry entry : BenchmarkCorpus.knowledgeBase(phrases)) {
+            suggestions.add(new Suggestion(entry.getQuestion(), (long) (1000 / (1 + random.nextInt(1000)))));
+        }
+        trie = SuggestionTrie.build(suggestions, 10);
+
+        // Prefixos de 2 a 12 caracteres das perguntas reais, como digitados
+        List<String> typed = new ArrayList<>();
+        for (String question : BenchmarkCorpus.QUESTIONS) {
+            for (int length = 2; length <= Math.min(12, question.length()); length += 2) {
+                typed.add(question.substring(0, length));
+            }
+        }
+        prefixes = typed.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public List<EncodedAnswer> suggest() {
+        String prefix = prefixes[nextPrefix];
+        nextPrefix = (nextPrefix + 1) % prefixes.length;
+        return trie.complete(QuestionNormalizer.normalize(prefix), 5);
+    }
+
+    @Benchmark
+    public SuggestionTrie build() {
+        return SuggestionTrie.build(suggestions, 10);
+    }
+}
@@ -0,0 +1,74 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Etapas de texto independentes do tamanho da base: normalização, detecção de intenção,
+ * reescrita de links da resposta e codificação JSON da resposta ({@link EncodedAnswer#of},
+ * que substituiu o antigo {@code escapeJsonString}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextProcessingBenchmark {
+
+    private AiServiceSimulator service;
+    private String[] questions;
+    private String[] answers;
+    private int nextQuestion;
+    private int nextAnswer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkCorpus.newService();
+        questions = BenchmarkCorpus.QUESTIONS.toArray(String[]::new);
+        answers = BenchmarkCorpus.ANSWERS.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public String normalizeQuestion() {
+        return QuestionNormalizer.normalize(nextQuestion());
+    }
+
+    @Benchmark
+    public QuestionIntent detectIntent() {
+        return service.detectIntent(nextQuestion());
+    }
+
+    @Benchmark
+    public String ensureClickableLinks() {
+        return service.ensureClickableLinks(nextAnswer());
+    }
+
+    @Benchmark
+    public EncodedAnswer encodeAnswer() {
+        return EncodedAnswer.of(nextAnswer());
+    }
+
+    private String nextQuestion() {
+        String question = questions[nextQuestion];
+        nextQuestion = (nextQuestion + 1) % questions.length;
+        return question;
+    }
+
+    private String nextAnswer() {
+        String answer = answers[nextAnswer];
+        nextAnswer = (nextAnswer + 1) % answers.length;
+        return answer;
+    }
+}
@@ -0,0 +1,92 @@
+package com.codigoquatro.atendimento_ai.repository;
+
+import com.codigoquatro.atendimento_ai.AtendimentoAiApplication;
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Gravação de interações com 8 threads: repositório JPA (Hibernate + H2 em memória, o caminho
+ * atual) x log de segmentos com fsync por lote, sem fsync e com compressão.
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="InteractionLogBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class InteractionLogBenchmark {
+
+    private static final String ANSWER = "Olá! Nosso prazo de entrega é de 3 a 7 dias úteis. Acompanhe em "
+            + "<a href=\"https://smcomponentes.com.br/loja/pedidos\" target=\"_blank\">seus pedidos</a> ou fale "
+            + "conosco pelo <a href=\"https://wa.me/5585999055729\" target=\"_blank\">WhatsApp</a>.";
+
+    @Param({"jpa", "segmented", "segmented-nofsync", "segmented-compressed"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private SegmentedInteractionLog segmentedLog;
+    private InteractionLogStore store;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("jpa".equals(backend)) {
+            context = new SpringApplicationBuilder(AtendimentoAiApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("openrouter.api.key=benchmark", "spring.jpa.show-sql=false",
+                            "precompute.enabled=false", "logging.level.root=WARN")
+                    .run();
+            store = context.getBean(InteractionLogRepository.class);
+        } else {
+            directory = Files.createTempDirectory("interaction-log-benchmark");
+            segmentedLog = new SegmentedInteractionLog(directory.toString(), 64L * 1024 * 1024, 4096,
+                    !"segmented-nofsync".equals(backend), "segmented-compressed".equals(backend), 128, 10_000, 1024, 10_000);
+            store = segmentedLog;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (segmentedLog != null) {
+            segmentedLog.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Long save() {
+        return store.save(new InteractionLog("qual é o prazo de entrega para fortaleza?", ANSWER)).getId();
+    }
+}
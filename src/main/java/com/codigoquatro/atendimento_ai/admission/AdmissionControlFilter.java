@@ -0,0 +1,163 @@
+package com.codigoquatro.atendimento_ai.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Controle de admissão dos endpoints de chat: limita a taxa por cliente (token bucket) e a
+ * quantidade de requisições simultâneas. O excesso é rejeitado na hora com 429, em vez de
+ * ocupar threads do Tomcat até estourar o timeout da IA.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+    private static final String CHAT_PATH_PREFIX = "/api/chat/";
+    // Autocompletar: uma chamada por tecla, respondida da memória sem tocar na IA; fora do controle
+    private static final String SUGGEST_PATH = "/api/chat/suggest";
+    private static final String SESSION_HEADER = "X-Session-Id";
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"Muitas requisições. Tente novamente em instantes.\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final boolean keyBySession;
+    private final Set<String> trustedProxies;
+    private final long overloadRetryAfterNanos;
+    private final long idleEvictNanos;
+    private final ClientRateLimiter rateLimiter;
+    private final Semaphore inFlight;
+    private final int maxConcurrent;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedRateLimited = new AtomicLong();
+    private final AtomicLong rejectedOverloaded = new AtomicLong();
+
+    public AdmissionControlFilter(
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.client-key:ip}") String clientKey,
+            @Value("${admission.trusted-proxies:}") List<String> trustedProxies,
+            @Value("${admission.client.rate-per-second:1.0}") double ratePerSecond,
+            @Value("${admission.client.burst:10}") int burst,
+            @Value("${admission.client.max-tracked:100000}") int maxTrackedClients,
+            @Value("${admission.client.idle-evict-seconds:300}") long idleEvictSeconds,
+            @Value("${admission.max-concurrent:64}") int maxConcurrent,
+            @Value("${admission.overload-retry-after-ms:500}") long overloadRetryAfterMs) {
+        this.enabled = enabled;
+        this.keyBySession = "session".equalsIgnoreCase(clientKey);
+        this.trustedProxies = trustedProxies.stream().map(String::trim).filter(p -> !p.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.rateLimiter = new ClientRateLimiter(ratePerSecond, burst, maxTrackedClients, 64);
+        this.idleEvictNanos = TimeUnit.SECONDS.toNanos(idleEvictSeconds);
+        this.maxConcurrent = maxConcurrent;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.overloadRetryAfterNanos = TimeUnit.MILLISECONDS.toNanos(overloadRetryAfterMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !enabled || !path.startsWith(CHAT_PATH_PREFIX) || path.equals(SUGGEST_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientKey = resolveClientKey(request);
+        long waitNanos = rateLimiter.tryAcquire(clientKey);
+        if (waitNanos > 0) {
+            rejectedRateLimited.incrementAndGet();
+            logger.debug("Requisição rejeitada por limite de taxa do cliente {}", clientKey);
+            reject(response, waitNanos);
+            return;
+        }
+
+        // Sem fila: se não houver vaga agora, rejeita imediatamente
+        if (!inFlight.tryAcquire()) {
+            rejectedOverloaded.incrementAndGet();
+            logger.debug("Requisição rejeitada por excesso de requisições simultâneas");
+            reject(response, overloadRetryAfterNanos);
+            return;
+        }
+        try {
+            admitted.incrementAndGet();
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${admission.client.sweep-interval-ms:60000}")
+    public void evictIdleClients() {
+        int removed = rateLimiter.evictIdle(idleEvictNanos);
+        if (removed > 0) {
+            logger.debug("{} clientes ociosos removidos do controle de taxa.", removed);
+        }
+    }
+
+    public AdmissionStats stats() {
+        return new AdmissionStats(admitted.get(), rejectedRateLimited.get(), rejectedOverloaded.get(),
+                maxConcurrent - inFlight.availablePermits(), maxConcurrent, rateLimiter.trackedClients());
+    }
+
+    private String resolveClientKey(HttpServletRequest request) {
+        if (keyBySession) {
+            String sessionId = request.getHeader(SESSION_HEADER);
+            if (sessionId != null && !sessionId.isBlank() && sessionId.length() <= 64) {
+                return "s:" + sessionId;
+            }
+        }
+        String remoteAddr = request.getRemoteAddr();
+        // X-Forwarded-For é escrito pelo cliente: só vale quando a conexão vem de um proxy configurado,
+        // e o cliente é o último endereço da cadeia que não é um dos proxies
+        if (trustedProxies.contains(remoteAddr)) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                String[] hops = forwardedFor.split(",");
+                for (int i = hops.length - 1; i >= 0; i--) {
+                    String hop = hops[i].trim();
+                    if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                        return hop;
+                    }
+                }
+            }
+        }
+        return remoteAddr;
+    }
+
+    // Retry-After padrão (segundos inteiros) e o valor preciso em microssegundos
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        long seconds = Math.max(1, (micros + 999_999) / 1_000_000);
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(seconds));
+        response.setHeader("X-Retry-After-Micros", Long.toString(micros));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(TOO_MANY_REQUESTS_BODY.length);
+        response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+    }
+
+    public record AdmissionStats(long admitted, long rejectedRateLimited, long rejectedOverloaded,
+                                 int inFlight, int maxConcurrent, int trackedClients) {
+    }
+}
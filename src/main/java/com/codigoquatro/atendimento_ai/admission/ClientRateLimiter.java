@@ -0,0 +1,133 @@
+package com.codigoquatro.atendimento_ai.admission;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token buckets por cliente, distribuídos em faixas (stripes) com trava própria para reduzir
+ * contenção. Buckets ociosos são descartados: um bucket cheio e parado equivale a um novo.
+ */
+public class ClientRateLimiter {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxClientsPerStripe;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, int maxClients, int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) stripes[i] = new Stripe();
+        this.mask = size - 1;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.maxClientsPerStripe = Math.max(1, maxClients / size);
+    }
+
+    /**
+     * Tenta consumir um token do cliente.
+     *
+     * @return 0 se admitido; caso contrário, o tempo em nanossegundos até o próximo token
+     */
+    public long tryAcquire(String clientKey) {
+        long now = System.nanoTime();
+        Stripe stripe = stripes[spread(clientKey.hashCode()) & mask];
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(clientKey);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= maxClientsPerStripe) {
+                    evictLeastRecent(stripe);
+                }
+                bucket = new Bucket(burst, now);
+                stripe.buckets.put(clientKey, bucket);
+            } else {
+                bucket.refill(now, tokensPerNano, burst);
+            }
+
+            if (bucket.tokens >= 1.0) {
+                bucket.tokens -= 1.0;
+                return 0;
+            }
+            return (long) Math.ceil((1.0 - bucket.tokens) / tokensPerNano);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove buckets sem uso há mais que o tempo informado.
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Bucket> it = stripe.buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().lastRefill > idleNanos) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    public int trackedClients() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private static void evictLeastRecent(Stripe stripe) {
+        String oldestKey = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<String, Bucket> entry : stripe.buckets.entrySet()) {
+            if (entry.getValue().lastRefill < oldest) {
+                oldest = entry.getValue().lastRefill;
+                oldestKey = entry.getKey();
+            }
+        }
+        if (oldestKey != null) stripe.buckets.remove(oldestKey);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long lastRefill;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+        void refill(long now, double tokensPerNano, double burst) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -1,5 +1,33 @@
 package com.codigoquatro.atendimento_ai.ai;
 
+import java.util.List;
+
 public interface AiService {
     String getAnswerForQuestion(String question);
+
+    // Responde considerando o histórico da sessão de conversa (sessionId pode ser null)
+    default String getAnswerForQuestion(String question, String sessionId) {
+        return getAnswerForQuestion(question);
+    }
+
+    // Mesma resposta, já codificada como JSON (acertos de cache não são recodificados)
+    default EncodedAnswer getEncodedAnswer(String question, String sessionId) {
+        return EncodedAnswer.of(getAnswerForQuestion(question, sessionId));
+    }
+
+    // Resposta disponível sem chamadas externas (cache, pré-computada ou base de conhecimento); null se não houver
+    default EncodedAnswer findLocalAnswer(String question) {
+        return null;
+    }
+
+    // Gera a resposta ignorando caches e respostas pré-computadas; lança exceção em caso de falha
+    String generateAnswer(String question);
+
+    // Indica se a pergunta já é respondida diretamente pela base de conhecimento
+    boolean hasKnowledgeBaseMatch(String question);
+
+    // Perguntas cadastradas na base de conhecimento, como escritas (sugestões do autocompletar)
+    default List<String> knowledgeBaseQuestions() {
+        return List.of();
+    }
 }
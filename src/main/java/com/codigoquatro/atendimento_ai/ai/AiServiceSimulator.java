@@ -1,5 +1,9 @@
 package com.codigoquatro.atendimento_ai.ai;
 
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Cache;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Stage;
+import com.codigoquatro.atendimento_ai.metrics.RequestTrace;
 import com.codigoquatro.atendimento_ai.model.Product;
 import com.codigoquatro.atendimento_ai.service.SmComponentesScraperService;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -7,8 +11,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
@@ -18,52 +26,127 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+// Sempre inicializado na subida (mesmo no perfil fast-startup): a base e o HttpClient ficam prontos para a primeira resposta
+@Lazy(false)
 @Service
 public class AiServiceSimulator implements AiService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiServiceSimulator.class);
     private static final double SIMILARITY_THRESHOLD = 0.70;
-    private static final int MAX_LEVENSHTEIN_DISTANCE = 5;
+
+    // Respostas fixas codificadas uma única vez
+    private static final EncodedAnswer GREETING_ANSWER =
+            EncodedAnswer.of("Olá! 😊 Como posso te ajudar hoje na SM Componentes?");
+    private static final EncodedAnswer FALLBACK_ANSWER = EncodedAnswer.of("""
+        Olá! 😊 
+        
+        No momento, estou com dificuldades técnicas, mas posso te ajudar de outras formas:
+
+        🔍 <strong>Para encontrar produtos:</strong> 
+        Visite nossas categorias principais em <a href="https://smcomponentes.com.br/loja" target="_blank">smcomponentes.com.br</a>
+
+        📞 <strong>Para suporte técnico:</strong>
+        Entre em contato pelo <a href="https://wa.me/5585999055729" target="_blank">WhatsApp (85)99905-5729</a>
+
+        📧 <strong>Para outras dúvidas:</strong>
+        Envie um email para <a href="mailto:contato@smcomponentes.com.br">contato@smcomponentes.com.br</a>
+
+        Enquanto isso, você pode reformular sua pergunta? Vou tentar novamente! 🔧
+        """);
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final LevenshteinDistance levenshteinDistance = LevenshteinDistance.getDefaultInstance();
     private HttpClient httpClient;
     private String apiKey;
     private String model;
-    private List<KnowledgeEntry> knowledgeBase = List.of();
-
-    // Cache inteligente para perguntas frequentes
-    private final Map<String, CacheEntry> responseCache = new LinkedHashMap<>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
-            return size() > 100; // Mantém apenas 100 entradas no cache
-        }
-    };
-
+    private final URI chatCompletionsUrl;
+    private final String knowledgeBaseFile;
+    private KnowledgeBase knowledgeBase = InMemoryKnowledgeBase.empty();
+    // Matriz de vetores da base, só no modo knowledge-base.scoring=embedding
+    private volatile EmbeddingScorer.Matrix knowledgeBaseEmbeddings;
+
+    // Cache de respostas para perguntas frequentes (local ou compartilhado entre as réplicas)
+    private final SharedResponseCache responseCache;
+    // Atualiza em segundo plano as respostas vencidas devolvidas pelo cache
+    private final BackgroundRefresher backgroundRefresher;
     private final SmComponentesScraperService scraperService;
-
-    // Palavras-chave para detecção de intenção
+    private final PrecomputedAnswerStore precomputedAnswers;
+    private final ConversationStore conversationStore;
+    private final LlmCallScheduler llmCallScheduler;
+    // max_tokens e tamanho do prompt ajustados ao orçamento de tokens por minuto e ao SLO de latência
+    private final TokenBudgetGovernor tokenGovernor;
+    private final AsyncTaskExecutor retrievalTaskExecutor;
+    private final TemplateResponder templateResponder;
+    private final QueryCanonicalizer queryCanonicalizer;
+    private final EmbeddingScorer embeddingScorer;
+    private final ChatMetrics metrics;
+
+    // Palavras-chave para detecção de intenção, comparadas com a pergunta canônica (sem acentos)
     private static final Set<String> PRODUCT_KEYWORDS = Set.of(
             "comprar", "produto", "componente", "conector", "cabo", "adaptador",
-            "preço", "valor", "custo", "onde encontrar", "quero comprar"
+            "preco", "valor", "custo", "onde encontrar", "quero comprar"
     );
 
     private static final Set<String> SUPPORT_KEYWORDS = Set.of(
-            "problema", "ajuda", "suporte", "dúvida", "como usar", "funcionamento",
-            "defeito", "não funciona", "garantia", "tutorial"
+            "problema", "ajuda", "suporte", "duvida", "como usar", "funcionamento",
+            "defeito", "nao funciona", "garantia", "tutorial"
+    );
+
+    // Palavras que remetem à mensagem anterior ("quanto custa esse?", "tem dele em estoque?")
+    private static final Set<String> CONTEXT_WORDS = Set.of(
+            "ele", "ela", "eles", "elas", "dele", "dela", "deles", "delas",
+            "isso", "isto", "disso", "nisso", "esse", "essa", "esses", "essas",
+            "desse", "dessa", "desses", "dessas", "nesse", "nessa",
+            "aquele", "aquela", "daquele", "daquela", "mesmo", "mesma", "outro", "outra"
     );
 
+    // Perguntas com até esta quantidade de palavras ("e em preto?", "quanto custa?") não têm sentido sozinhas
+    private static final int FOLLOW_UP_MAX_WORDS = 3;
+
     public AiServiceSimulator(
             @Value("${openrouter.api.key}") String apiKey,
             @Value("${openrouter.model:openai/gpt-3.5-turbo}") String model,
-            SmComponentesScraperService scraperService) {
+            @Value("${openrouter.base-url:https://openrouter.ai/api/v1}") String openRouterBaseUrl,
+            @Value("${knowledge-base.file:}") String knowledgeBaseFile,
+            SmComponentesScraperService scraperService,
+            SharedResponseCache responseCache,
+            BackgroundRefresher backgroundRefresher,
+            PrecomputedAnswerStore precomputedAnswers,
+            ConversationStore conversationStore,
+            LlmCallScheduler llmCallScheduler,
+            TokenBudgetGovernor tokenGovernor,
+            @Qualifier("retrievalTaskExecutor") AsyncTaskExecutor retrievalTaskExecutor,
+            TemplateResponder templateResponder,
+            QueryCanonicalizer queryCanonicalizer,
+            EmbeddingScorer embeddingScorer,
+            ChatMetrics metrics) {
         this.apiKey = apiKey;
         this.model = model;
+        this.chatCompletionsUrl = URI.create(openRouterBaseUrl.replaceAll("/+$", "") + "/chat/completions");
+        this.knowledgeBaseFile = knowledgeBaseFile;
         this.scraperService = scraperService;
+        this.responseCache = responseCache;
+        this.backgroundRefresher = backgroundRefresher;
+        this.precomputedAnswers = precomputedAnswers;
+        this.conversationStore = conversationStore;
+        this.llmCallScheduler = llmCallScheduler;
+        this.tokenGovernor = tokenGovernor;
+        this.retrievalTaskExecutor = retrievalTaskExecutor;
+        this.templateResponder = templateResponder;
+        this.queryCanonicalizer = queryCanonicalizer;
+        this.embeddingScorer = embeddingScorer;
+        this.metrics = metrics;
+        queryCanonicalizer.register("intencao", union(PRODUCT_KEYWORDS, SUPPORT_KEYWORDS));
     }
 
     @PostConstruct
@@ -71,99 +154,353 @@ public class AiServiceSimulator implements AiService {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
-        loadKnowledgeBase();
+        useKnowledgeBase(loadKnowledgeBase());
+        logger.info("Base de conhecimento carregada ({}). {} entradas.",
+                knowledgeBase.getClass().getSimpleName(), knowledgeBase.size());
+    }
+
+    // Substitui a base carregada do classpath (benchmarks com bases sintéticas de tamanhos variados)
+    void useKnowledgeBase(List<KnowledgeEntry> entries) {
+        useKnowledgeBase(InMemoryKnowledgeBase.of(entries));
+    }
+
+    void useKnowledgeBase(KnowledgeBase knowledgeBase) {
+        // As palavras das perguntas da base entram no vocabulário: perguntas cadastradas já são canônicas
+        List<String> questions = new ArrayList<>(knowledgeBase.size());
+        for (int i = 0; i < knowledgeBase.size(); i++) {
+            questions.add(knowledgeBase.normalizedQuestion(i).toString());
+        }
+        queryCanonicalizer.register("base-de-conhecimento", questions);
+        this.knowledgeBaseEmbeddings = embeddingScorer.isEnabled() ? embeddingScorer.index(knowledgeBase) : null;
+        this.knowledgeBase = knowledgeBase;
     }
 
-    private void loadKnowledgeBase() {
+    /**
+     * Ordem de preferência: arquivo compilado informado em {@code knowledge-base.file} (mapeado em
+     * memória e compartilhável entre JVMs), arquivo compilado no build e empacotado no classpath
+     * (se corresponder ao JSON) e, por último, o próprio JSON carregado no heap.
+     */
+    private KnowledgeBase loadKnowledgeBase() {
+        if (knowledgeBaseFile != null && !knowledgeBaseFile.isBlank()) {
+            try {
+                return MappedKnowledgeBase.open(Path.of(knowledgeBaseFile));
+            } catch (IOException e) {
+                logger.warn("Base de conhecimento em {} ignorada: {}", knowledgeBaseFile, e.getMessage());
+            }
+        }
+
+        ClassPathResource json = new ClassPathResource("knowledge_base.json");
         try {
-            ClassPathResource resource = new ClassPathResource("knowledge_base.json");
-            try (InputStream inputStream = resource.getInputStream()) {
-                this.knowledgeBase = objectMapper.readValue(inputStream,
+            long checksum;
+            try (InputStream inputStream = json.getInputStream()) {
+                checksum = KnowledgeBaseCompiler.checksum(inputStream);
+            }
+            ClassPathResource compiled = new ClassPathResource(MappedKnowledgeBase.RESOURCE);
+            if (compiled.exists()) {
+                try {
+                    return MappedKnowledgeBase.open(compiled, checksum);
+                } catch (IOException e) {
+                    logger.warn("Base de conhecimento compilada ignorada: {}", e.getMessage());
+                }
+            }
+
+            try (InputStream inputStream = json.getInputStream()) {
+                List<KnowledgeEntry> entries = objectMapper.readValue(inputStream,
                         objectMapper.getTypeFactory().constructCollectionType(List.class, KnowledgeEntry.class));
-                logger.info("Base de conhecimento carregada com sucesso. {} entradas.", knowledgeBase.size());
+                return InMemoryKnowledgeBase.of(entries);
             }
         } catch (Exception e) {
             logger.error("Erro ao carregar a base de conhecimento. Continuando com base vazia.", e);
-            this.knowledgeBase = List.of();
+            return InMemoryKnowledgeBase.empty();
         }
     }
 
     @Override
     public String getAnswerForQuestion(String question) {
+        return getAnswerForQuestion(question, null);
+    }
+
+    @Override
+    public String getAnswerForQuestion(String question, String sessionId) {
+        return getEncodedAnswer(question, sessionId).text();
+    }
+
+    @Override
+    public EncodedAnswer getEncodedAnswer(String question, String sessionId) {
         if (question == null || question.trim().isEmpty()) {
-            return "Olá! 😊 Como posso te ajudar hoje na SM Componentes?";
+            return GREETING_ANSWER;
+        }
+
+        // Perguntas de continuação ("e o de 3 metros?") dependem do histórico e não passam pelo cache
+        Conversation conversation = conversationStore.find(sessionId);
+        EncodedAnswer answer = conversation != null && isFollowUp(question, conversation)
+                ? answerFollowUp(question, conversation)
+                : answerStandalone(question);
+
+        if (sessionId != null) {
+            conversationStore.recordTurn(sessionId, question, answer.text());
         }
+        return answer;
+    }
 
+    @Override
+    public EncodedAnswer findLocalAnswer(String question) {
+        if (question == null || question.trim().isEmpty()) {
+            return GREETING_ANSWER;
+        }
         String normalizedQuestion = normalizeQuestion(question);
+        EncodedAnswer cached = lookupCached(normalizedQuestion, question);
+        if (cached != null) return cached;
 
-        // Verifica cache primeiro
-        CacheEntry cachedResponse = responseCache.get(normalizedQuestion);
-        if (cachedResponse != null && !cachedResponse.isExpired()) {
-            logger.info("Resposta recuperada do cache para: {}", normalizedQuestion);
-            return cachedResponse.getResponse();
+        List<KnowledgeMatch> relevantEntries = findRelevantEntries(normalizedQuestion);
+        if (!relevantEntries.isEmpty() && hasExactMatch(relevantEntries, normalizedQuestion)) {
+            EncodedAnswer answer = EncodedAnswer.of(relevantEntries.get(0).entry().getAnswer());
+            cacheResponse(normalizedQuestion, answer);
+            return answer;
         }
+        return null;
+    }
 
-        try {
-            // 1. Detectar intenção da pergunta
-            QuestionIntent intent = detectIntent(question);
+    private EncodedAnswer answerStandalone(String question) {
+        long start = System.nanoTime();
+        String normalizedQuestion = normalizeQuestion(question);
+        metrics.recordStage(Stage.NORMALIZATION, start);
 
-            // 2. Busca na base de conhecimento estática
-            List<KnowledgeEntry> relevantEntries = findRelevantEntries(normalizedQuestion);
+        EncodedAnswer cached = lookupCached(normalizedQuestion, question);
+        if (cached != null) return cached;
+
+        try {
+            EncodedAnswer answer = EncodedAnswer.of(generateAnswer(question));
+            cacheResponse(normalizedQuestion, answer);
+            return answer;
+        } catch (DeadlineExceededException e) {
+            logger.warn("Pergunta não enviada à IA dentro do prazo: '{}'", question);
+            return FALLBACK_ANSWER;
+        } catch (Exception e) {
+            logger.error("Erro inesperado ao processar pergunta: '{}'", question, e);
+            return FALLBACK_ANSWER;
+        }
+    }
 
-            // 3. Busca dinâmica de produtos (apenas se for intenção de compra/produto)
-            List<Product> relevantProducts = Collections.emptyList();
-            if (intent == QuestionIntent.PRODUCT_INQUIRY) {
-                relevantProducts = scraperService.searchProducts(question);
+    // Cache de respostas e, em seguida, respostas pré-computadas pelo job em lote
+    private EncodedAnswer lookupCached(String normalizedQuestion, String question) {
+        CachedAnswer cachedResponse = responseCache.lookup(normalizedQuestion);
+        metrics.recordCacheLookup(Cache.RESPONSE, cachedResponse != null);
+        if (cachedResponse != null) {
+            // Sem log por acerto (caminho quente): a decisão vai para o rastreamento da requisição
+            RequestTrace.current().tag("cache.response", "hit");
+            if (cachedResponse.stale()) {
+                refreshInBackground(normalizedQuestion, question);
             }
+            return cachedResponse.answer();
+        }
+
+        // Respostas pré-geradas pelo job em lote evitam a chamada à OpenRouter
+        EncodedAnswer precomputed = precomputedAnswers.get(normalizedQuestion);
+        metrics.recordCacheLookup(Cache.PRECOMPUTED, precomputed != null);
+        if (precomputed != null) {
+            RequestTrace.current().tag("cache.response", "precomputed");
+            cacheResponse(normalizedQuestion, precomputed);
+            return precomputed;
+        }
+        return null;
+    }
 
-            // 4. Monta contexto combinado baseado na intenção
-            String context = buildContext(intent, relevantEntries, relevantProducts, question);
+    /**
+     * Resposta vencida devolvida ao cliente: gera a nova em segundo plano (uma por pergunta). Se a
+     * geração falhar, a vencida continua valendo em vez de dar lugar à resposta de erro.
+     */
+    private void refreshInBackground(String normalizedQuestion, String question) {
+        RequestTrace.current().tag("cache.response", "stale");
+        backgroundRefresher.refresh("response:" + normalizedQuestion,
+                () -> cacheResponse(normalizedQuestion, EncodedAnswer.of(generateAnswer(question))),
+                () -> responseCache.extend(normalizedQuestion));
+    }
 
-            // 5. Se encontrou resposta exata na base de conhecimento, usa ela
-            if (!relevantEntries.isEmpty() && hasExactMatch(relevantEntries, normalizedQuestion)) {
-                String exactAnswer = relevantEntries.get(0).getAnswer();
-                cacheResponse(normalizedQuestion, exactAnswer);
-                return exactAnswer;
-            }
+    private EncodedAnswer answerFollowUp(String question, Conversation conversation) {
+        // A busca de produtos e a intenção usam a pergunta anterior como complemento
+        String retrievalQuery = conversation.lastQuestion() + " " + question;
+        try {
+            return EncodedAnswer.of(generate(question, retrievalQuery, conversation.render()));
+        } catch (DeadlineExceededException e) {
+            logger.warn("Pergunta de continuação não enviada à IA dentro do prazo: '{}'", question);
+            return FALLBACK_ANSWER;
+        } catch (Exception e) {
+            logger.error("Erro inesperado ao processar pergunta de continuação: '{}'", question, e);
+            return FALLBACK_ANSWER;
+        }
+    }
+
+    /**
+     * Só é continuação a pergunta que depende do histórico: curta demais para ter sentido sozinha,
+     * iniciada por "e" ("e o de 3 metros?") ou com pronome que remete à mensagem anterior. As demais
+     * perguntas de uma sessão passam pelo cache e pelas respostas pré-computadas como qualquer outra.
+     * A intenção não entra na decisão: "quanto custa esse cabo?" é de produto e ainda assim precisa
+     * do histórico para a busca saber de qual cabo se trata.
+     */
+    private boolean isFollowUp(String question, Conversation conversation) {
+        return !conversation.isEmpty()
+                && dependsOnContext(normalizeQuestion(question))
+                && !hasKnowledgeBaseMatch(question);
+    }
+
+    static boolean dependsOnContext(String canonicalQuestion) {
+        String[] words = canonicalQuestion.split(" ");
+        if (words.length <= FOLLOW_UP_MAX_WORDS || "e".equals(words[0])) return true;
+        for (String word : words) {
+            if (CONTEXT_WORDS.contains(word)) return true;
+        }
+        return false;
+    }
 
-            // 6. Monta prompt otimizado baseado na intenção
-            String prompt = buildPrompt(intent, question, context);
+    @Override
+    public String generateAnswer(String question) {
+        return generate(question, question, "");
+    }
 
-            // 7. Chama OpenRouter
-            String aiResponse = callOpenRouter(prompt);
+    private String generate(String question, String retrievalQuery, String history) {
+        String normalizedQuestion = normalizeQuestion(question);
 
-            // Processa links para garantir que sejam clicáveis
-            String processedResponse = ensureClickableLinks(aiResponse);
+        // 1. Detectar intenção da pergunta
+        long start = System.nanoTime();
+        QuestionIntent intent = detectIntent(retrievalQuery);
+        metrics.recordStage(Stage.INTENT_DETECTION, start);
+        RequestTrace trace = RequestTrace.current();
+        trace.tag("intent", intent.name());
+
+        // 2. Busca dinâmica de produtos (apenas se for intenção de compra/produto), disparada
+        //    em paralelo com a busca na base de conhecimento
+        Future<List<Product>> productLookup = intent == QuestionIntent.PRODUCT_INQUIRY
+                ? startProductLookup(retrievalQuery)
+                : null;
+
+        // 3. Busca na base de conhecimento estática (na thread atual)
+        start = System.nanoTime();
+        List<KnowledgeMatch> relevantEntries = findRelevantEntries(normalizedQuestion);
+        boolean confidentMatch = !relevantEntries.isEmpty() && hasExactMatch(relevantEntries, normalizedQuestion);
+        metrics.recordStage(Stage.KB_RETRIEVAL, start);
+
+        // 4. Correspondência de alta confiança na base de conhecimento: usa a resposta cadastrada
+        //    e cancela a busca de produtos
+        if (confidentMatch) {
+            if (productLookup != null) {
+                productLookup.cancel(true);
+            }
+            templateResponder.recordKnowledgeBaseAnswer();
+            trace.tag("tier", "knowledge_base");
+            return relevantEntries.get(0).entry().getAnswer();
+        }
 
-            // Debug do processamento
-            logResponseDetails(aiResponse, processedResponse);
+        // 5. Busca simples de produto com resultado claro: resposta montada pelo template, sem IA
+        start = System.nanoTime();
+        List<Product> relevantProducts = awaitProducts(productLookup);
+        metrics.recordStage(Stage.PRODUCT_LOOKUP, start);
+        if (intent == QuestionIntent.PRODUCT_INQUIRY) {
+            String templated = templateResponder.renderProducts(retrievalQuery, relevantProducts);
+            if (templated != null) {
+                templateResponder.recordProductTemplateAnswer();
+                trace.tag("tier", "product_template");
+                return templated;
+            }
+        }
 
-            // Cache da resposta
-            cacheResponse(normalizedQuestion, processedResponse);
+        // 6. Baixa confiança: monta contexto combinado baseado na intenção e segue para a IA
+        templateResponder.recordLlmAnswer();
+        trace.tag("tier", "llm");
+        start = System.nanoTime();
+        TokenBudgetGovernor.TokenPlan plan = tokenGovernor.plan(intent);
+        String context = plan.limitContext(buildContext(intent, relevantEntries, relevantProducts, question));
+
+        // 7. Monta prompt otimizado baseado na intenção (contexto e histórico limitados pelo orçamento)
+        String prompt = buildPrompt(intent, question, context, plan.limitHistory(history));
+        metrics.recordStage(Stage.PROMPT_BUILD, start);
+        trace.tag("max_tokens", Integer.toString(plan.maxTokens()));
+
+        // 8. Chama OpenRouter (fila por prioridade da intenção, com o prazo da requisição)
+        String aiResponse = llmCallScheduler.execute(intent, deadline -> callOpenRouter(prompt, intent, plan, deadline));
+
+        // Processa links para garantir que sejam clicáveis
+        start = System.nanoTime();
+        String processedResponse = ensureClickableLinks(aiResponse);
+        metrics.recordStage(Stage.LINK_REWRITE, start);
+        logger.debug("Resposta da IA processada: {} caracteres, links HTML: {}",
+                processedResponse.length(), processedResponse.contains("<a href"));
+
+        return processedResponse;
+    }
 
-            return processedResponse;
+    private Future<List<Product>> startProductLookup(String query) {
+        try {
+            return retrievalTaskExecutor.submit(() -> scraperService.searchProducts(query));
+        } catch (TaskRejectedException e) {
+            // Executor saturado: segue sem produtos em vez de bloquear a pergunta
+            logger.warn("Busca de produtos não agendada (executor cheio): {}", query);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Erro inesperado ao processar pergunta: '{}'", question, e);
-            return getFallbackResponse(question);
+    // Espera a busca de produtos no máximo até o prazo da requisição; sem produtos, o contexto
+    // usa as categorias sugeridas
+    private List<Product> awaitProducts(Future<List<Product>> productLookup) {
+        if (productLookup == null) {
+            return Collections.emptyList();
+        }
+        RequestDeadline deadline = RequestDeadline.current();
+        try {
+            return deadline == null
+                    ? productLookup.get()
+                    : productLookup.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            productLookup.cancel(true);
+            logger.warn("Busca de produtos cancelada pelo prazo da requisição.");
+            return Collections.emptyList();
+        } catch (InterruptedException e) {
+            productLookup.cancel(true);
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (ExecutionException e) {
+            logger.error("Erro na busca de produtos", e.getCause());
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public boolean hasKnowledgeBaseMatch(String question) {
+        String normalizedQuestion = normalizeQuestion(question);
+        List<KnowledgeMatch> relevantEntries = findRelevantEntries(normalizedQuestion);
+        return !relevantEntries.isEmpty() && hasExactMatch(relevantEntries, normalizedQuestion);
+    }
+
+    @Override
+    public List<String> knowledgeBaseQuestions() {
+        KnowledgeBase current = knowledgeBase;
+        List<String> questions = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            questions.add(current.question(i));
         }
+        return questions;
     }
 
+    // Normalização + correção de digitação: a mesma chave para "potenciômetro" e "potenciomtro"
     private String normalizeQuestion(String question) {
-        return question.toLowerCase()
-                .replaceAll("[^a-z0-9áéíóúâêîôûãõç\\s]", "")
-                .replaceAll("\\s+", " ")
-                .trim();
+        return queryCanonicalizer.canonicalKey(question);
+    }
+
+    private static List<String> union(Set<String> first, Set<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
     }
 
-    private QuestionIntent detectIntent(String question) {
-        String lowerQuestion = question.toLowerCase();
+    // Visibilidade de pacote: usado também pelos benchmarks JMH (src/jmh/java)
+    QuestionIntent detectIntent(String question) {
+        String canonicalQuestion = normalizeQuestion(question);
 
         boolean hasProductKeywords = PRODUCT_KEYWORDS.stream()
-                .anyMatch(lowerQuestion::contains);
+                .anyMatch(canonicalQuestion::contains);
 
         boolean hasSupportKeywords = SUPPORT_KEYWORDS.stream()
-                .anyMatch(lowerQuestion::contains);
+                .anyMatch(canonicalQuestion::contains);
 
         if (hasProductKeywords) {
             return QuestionIntent.PRODUCT_INQUIRY;
@@ -174,25 +511,50 @@ public class AiServiceSimulator implements AiService {
         }
     }
 
-    private List<KnowledgeEntry> findRelevantEntries(String userQuestion) {
-        if (knowledgeBase.isEmpty()) return List.of();
+    /**
+     * Até 3 entradas com similaridade mínima, da mais parecida para a menos (empate pela ordem no JSON).
+     * Como similaridade >= limiar exige |a - b| <= (1 - limiar) * max(a, b) entre os tamanhos, só a
+     * faixa de tamanhos compatível da base (ordenada por tamanho) é comparada. No modo
+     * {@code knowledge-base.scoring=embedding} a comparação é pelo cosseno entre vetores de n-gramas
+     * ({@link EmbeddingScorer}), contra a base inteira.
+     *
+     * @param query pergunta já na forma canônica ({@link QueryCanonicalizer#canonicalKey})
+     */
+    List<KnowledgeMatch> findRelevantEntries(String query) {
+        KnowledgeBase kb = knowledgeBase;
+        if (kb.size() == 0) return List.of();
+
+        EmbeddingScorer.Matrix embeddings = knowledgeBaseEmbeddings;
+        if (embeddings != null && embeddings.source() == kb) {
+            List<KnowledgeMatch> entries = new ArrayList<>(3);
+            for (int index : embeddingScorer.topMatches(embeddings, query, 3)) {
+                entries.add(KnowledgeMatch.of(kb, index));
+            }
+            return entries;
+        }
+
+        int queryLength = query.length();
+        int minLength = (int) Math.floor(queryLength * SIMILARITY_THRESHOLD);
+        int maxLength = (int) Math.ceil(queryLength / SIMILARITY_THRESHOLD);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = kb.firstIndexWithLengthAtLeast(minLength); i < kb.size() && kb.normalizedLength(i) <= maxLength; i++) {
+            double similarityScore = calculateSimilarity(query, kb.normalizedQuestion(i));
+            if (similarityScore >= SIMILARITY_THRESHOLD) {
+                candidates.add(new Candidate(i, kb.sourceOrder(i), similarityScore));
+            }
+        }
 
-        return knowledgeBase.stream()
-                .map(entry -> {
-                    double similarityScore = calculateSimilarity(userQuestion, entry.getQuestion());
-                    return Map.entry(entry, similarityScore);
-                })
-                .filter(e -> e.getValue() >= SIMILARITY_THRESHOLD)
-                .sorted(Map.Entry.<KnowledgeEntry, Double>comparingByValue().reversed())
+        return candidates.stream()
+                .sorted(Comparator.comparingDouble(Candidate::similarity).reversed()
+                        .thenComparingInt(Candidate::sourceOrder))
                 .limit(3)
-                .map(Map.Entry::getKey)
+                .map(candidate -> KnowledgeMatch.of(kb, candidate.index()))
                 .collect(Collectors.toList());
     }
 
-    private double calculateSimilarity(String question1, String question2) {
-        String normalized1 = normalizeQuestion(question1);
-        String normalized2 = normalizeQuestion(question2);
-
+    // Ambos os lados já normalizados (a pergunta da base é normalizada ao compilar/carregar)
+    private double calculateSimilarity(String normalized1, CharSequence normalized2) {
         // Usa Levenshtein para similaridade
         int maxLength = Math.max(normalized1.length(), normalized2.length());
         if (maxLength == 0) return 1.0;
@@ -203,24 +565,42 @@ public class AiServiceSimulator implements AiService {
         return similarity;
     }
 
-    private boolean hasExactMatch(List<KnowledgeEntry> entries, String userQuestion) {
+    private record Candidate(int index, int sourceOrder, double similarity) {
+    }
+
+    // Entrada encontrada com a pergunta normalizada guardada na base, para não normalizá-la de novo
+    record KnowledgeMatch(KnowledgeEntry entry, CharSequence normalizedQuestion) {
+
+        static KnowledgeMatch of(KnowledgeBase kb, int index) {
+            return new KnowledgeMatch(kb.entry(index), kb.normalizedQuestion(index));
+        }
+    }
+
+    // Correspondência "exata": distância pequena ou similaridade alta, conforme os limiares do TemplateResponder
+    boolean hasExactMatch(List<KnowledgeMatch> entries, String userQuestion) {
         return entries.stream()
-                .anyMatch(entry -> {
-                    String normalizedEntryQuestion = normalizeQuestion(entry.getQuestion());
+                .anyMatch(match -> {
+                    CharSequence normalizedEntryQuestion = match.normalizedQuestion();
                     int distance = levenshteinDistance.apply(userQuestion, normalizedEntryQuestion);
-                    return distance <= MAX_LEVENSHTEIN_DISTANCE;
+                    int maxLength = Math.max(userQuestion.length(), normalizedEntryQuestion.length());
+                    double similarity = maxLength == 0 ? 1.0 : 1.0 - ((double) distance / maxLength);
+                    if (templateResponder.isConfidentKnowledgeMatch(distance, similarity)) {
+                        return true;
+                    }
+                    return embeddingScorer.isEnabled() && templateResponder.isConfidentEmbeddingMatch(
+                            embeddingScorer.similarity(userQuestion, normalizedEntryQuestion));
                 });
     }
 
-    private String buildContext(QuestionIntent intent, List<KnowledgeEntry> entries,
+    private String buildContext(QuestionIntent intent, List<KnowledgeMatch> entries,
                                 List<Product> products, String originalQuestion) {
         StringBuilder sb = new StringBuilder();
 
         // Informações institucionais
         if (!entries.isEmpty()) {
             sb.append("📚 **Informações institucionais relevantes:**\n");
-            for (KnowledgeEntry entry : entries) {
-                sb.append("• ").append(entry.getAnswer()).append("\n");
+            for (KnowledgeMatch match : entries) {
+                sb.append("• ").append(match.entry().getAnswer()).append("\n");
             }
             sb.append("\n");
         }
@@ -261,13 +641,15 @@ public class AiServiceSimulator implements AiService {
         return sb.toString().trim();
     }
 
-    private String buildPrompt(QuestionIntent intent, String question, String context) {
+    private String buildPrompt(QuestionIntent intent, String question, String context, String history) {
         String role = getRoleByIntent(intent);
+        // O histórico já chega limitado pela ConversationStore (turnos recentes + resumo compacto)
+        String historyBlock = history.isEmpty() ? "" : "Histórico recente da conversa:\n" + history + "\n\n";
 
         return """
             %s
 
-            Contexto disponível:
+            %sContexto disponível:
             %s
 
             Pergunta do cliente:
@@ -294,7 +676,7 @@ public class AiServiceSimulator implements AiService {
             ❌ "Email: suporte@smcomponentes.com.br"
 
             Resposta (em português do Brasil, com links HTML):
-            """.formatted(role, context, question);
+            """.formatted(role, historyBlock, context, question);
     }
 
     private String getRoleByIntent(QuestionIntent intent) {
@@ -308,8 +690,8 @@ public class AiServiceSimulator implements AiService {
         }
     }
 
-    private String callOpenRouter(String prompt) {
-        String url = "https://openrouter.ai/api/v1/chat/completions";
+    private String callOpenRouter(String prompt, QuestionIntent intent, TokenBudgetGovernor.TokenPlan plan,
+                                  RequestDeadline deadline) {
         String referer = "https://smcomponentes.com.br";
 
         try {
@@ -324,21 +706,29 @@ public class AiServiceSimulator implements AiService {
 
             requestBodyMap.put("messages", messages);
             requestBodyMap.put("temperature", 0.6);
-            requestBodyMap.put("max_tokens", 800);
+            requestBodyMap.put("max_tokens", plan.maxTokens());
 
             String requestBody = objectMapper.writeValueAsString(requestBodyMap);
 
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
+                    .uri(chatCompletionsUrl)
                     .header("Authorization", "Bearer " + apiKey)
                     .header("Content-Type", "application/json")
                     .header("HTTP-Referer", referer)
                     .header("X-Title", "SM Componentes - Atendente AI")
-                    .timeout(Duration.ofSeconds(30))
+                    .timeout(Duration.ofNanos(Math.max(1, deadline.remainingNanos())))
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException | InterruptedException e) {
+                metrics.recordOpenRouter(0, start);
+                throw e;
+            }
+            metrics.recordOpenRouter(response.statusCode(), start);
 
             if (response.statusCode() != 200) {
                 logger.error("Erro OpenRouter ({}): {}", response.statusCode(), response.body());
@@ -346,21 +736,41 @@ public class AiServiceSimulator implements AiService {
             }
 
             JsonNode json = objectMapper.readTree(response.body());
-            JsonNode contentNode = json.path("choices").get(0).path("message").path("content");
+            JsonNode choice = json.path("choices").path(0);
+            JsonNode contentNode = choice.path("message").path("content");
             if (contentNode.isMissingNode() || contentNode.isNull()) {
                 throw new RuntimeException("Resposta da IA sem conteúdo");
             }
 
-            return contentNode.asText().trim();
+            String content = contentNode.asText().trim();
+            recordUsage(json, choice, intent, prompt, content, System.nanoTime() - start);
+            return content;
 
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             logger.error("Falha na chamada à OpenRouter", e);
+            throw new RuntimeException("Falha de comunicação com o serviço de IA", e);
+        } catch (InterruptedException e) {
+            logger.error("Chamada à OpenRouter interrompida", e);
             Thread.currentThread().interrupt();
             throw new RuntimeException("Falha de comunicação com o serviço de IA", e);
         }
     }
 
-    private String ensureClickableLinks(String response) {
+    // Bloco "usage" da OpenRouter; sem ele, os tokens são estimados pelo tamanho do texto
+    private void recordUsage(JsonNode json, JsonNode choice, QuestionIntent intent, String prompt, String content,
+                             long latencyNanos) {
+        JsonNode usageNode = json.path("usage");
+        TokenBudgetGovernor.TokenUsage usage = usageNode.has("prompt_tokens") && usageNode.has("completion_tokens")
+                ? new TokenBudgetGovernor.TokenUsage(usageNode.path("prompt_tokens").asInt(),
+                        usageNode.path("completion_tokens").asInt(), false)
+                : TokenBudgetGovernor.TokenUsage.estimate(prompt, content);
+        boolean truncated = "length".equals(choice.path("finish_reason").asText());
+        tokenGovernor.record(intent, json.path("model").asText(model), usage, latencyNanos, truncated);
+        metrics.recordTokens(usage.promptTokens(), usage.completionTokens());
+        RequestTrace.current().tag("tokens", usage.promptTokens() + "+" + usage.completionTokens());
+    }
+
+    String ensureClickableLinks(String response) {
         if (response == null || response.trim().isEmpty()) {
             return response;
         }
@@ -399,61 +809,11 @@ public class AiServiceSimulator implements AiService {
         return processed;
     }
 
-    private void logResponseDetails(String originalResponse, String processedResponse) {
-        logger.info("=== PROCESSAMENTO DE RESPOSTA ===");
-        logger.info("Original: {}", originalResponse);
-        logger.info("Processada: {}", processedResponse);
-        logger.info("Contém links HTML: {}", processedResponse.contains("<a href"));
-        logger.info("=== FIM PROCESSAMENTO ===");
-    }
-
-    private void cacheResponse(String question, String response) {
-        responseCache.put(question, new CacheEntry(response));
-    }
-
-    private String getFallbackResponse(String originalQuestion) {
-        return """
-            Olá! 😊 
-            
-            No momento, estou com dificuldades técnicas, mas posso te ajudar de outras formas:
-
-            🔍 <strong>Para encontrar produtos:</strong> 
-            Visite nossas categorias principais em <a href="https://smcomponentes.com.br/loja" target="_blank">smcomponentes.com.br</a>
-
-            📞 <strong>Para suporte técnico:</strong>
-            Entre em contato pelo <a href="https://wa.me/5585999055729" target="_blank">WhatsApp (85)99905-5729</a>
-
-            📧 <strong>Para outras dúvidas:</strong>
-            Envie um email para <a href="mailto:contato@smcomponentes.com.br">contato@smcomponentes.com.br</a>
-
-            Enquanto isso, você pode reformular sua pergunta? Vou tentar novamente! 🔧
-            """;
+    private void cacheResponse(String question, EncodedAnswer response) {
+        responseCache.put(question, response);
     }
 
     // Classes internas para organização
-    private enum QuestionIntent {
-        PRODUCT_INQUIRY, SUPPORT_REQUEST, GENERAL_INQUIRY
-    }
-
-    private static class CacheEntry {
-        private final String response;
-        private final long timestamp;
-        private static final long CACHE_TTL = 30 * 60 * 1000; // 30 minutos
-
-        CacheEntry(String response) {
-            this.response = response;
-            this.timestamp = System.currentTimeMillis();
-        }
-
-        public String getResponse() {
-            return response;
-        }
-
-        public boolean isExpired() {
-            return (System.currentTimeMillis() - timestamp) > CACHE_TTL;
-        }
-    }
-
     // Classe para a base de conhecimento
     public static class KnowledgeEntry {
         private String question;
@@ -0,0 +1,90 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Atualizações em segundo plano das entradas vencidas dos caches (stale-while-revalidate): quem
+ * encontra o valor vencido o devolve na hora e pede a atualização aqui. Há no máximo uma
+ * atualização em andamento por chave; os pedidos repetidos enquanto ela roda são descartados.
+ *
+ * <p>Cada atualização roda com prazo próprio ({@code cache.refresh.timeout-ms}) no executor
+ * {@code refreshTaskExecutor}. Em caso de falha (ou executor cheio) o chamador é avisado pelo
+ * {@code onFailure}, para prolongar a vida do valor vencido em vez de descartá-lo.
+ */
+@Component
+public class BackgroundRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundRefresher.class);
+
+    private final AsyncTaskExecutor executor;
+    private final Duration timeout;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BackgroundRefresher(
+            @Qualifier("refreshTaskExecutor") AsyncTaskExecutor executor,
+            @Value("${cache.refresh.timeout-ms:30000}") long timeoutMs) {
+        this.executor = executor;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    /**
+     * Agenda {@code refresh} para a chave, a menos que já haja uma atualização dela em andamento.
+     * As chaves de caches diferentes devem ter prefixos distintos ("response:", "scraper:").
+     *
+     * @return true se a atualização foi agendada por esta chamada
+     */
+    public boolean refresh(String key, Runnable refresh, Runnable onFailure) {
+        if (!inFlight.add(key)) {
+            deduplicated.increment();
+            return false;
+        }
+        started.increment();
+        try {
+            executor.execute(() -> run(key, refresh, onFailure));
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(key);
+            logger.warn("Atualização de {} não agendada (executor cheio).", key);
+            onFailure.run();
+            failed.increment();
+            return false;
+        }
+    }
+
+    private void run(String key, Runnable refresh, Runnable onFailure) {
+        try (RequestDeadline.Scope ignored = RequestDeadline.after(timeout).bind()) {
+            refresh.run();
+            succeeded.increment();
+            logger.debug("Entrada vencida atualizada em segundo plano: {}", key);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao atualizar {} em segundo plano; o valor vencido continua em uso: {}", key, e.toString());
+            onFailure.run();
+            failed.increment();
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    public RefreshStats stats() {
+        return new RefreshStats(inFlight.size(), started.sum(), deduplicated.sum(), succeeded.sum(), failed.sum());
+    }
+
+    public record RefreshStats(int inFlight, long started, long deduplicated, long succeeded, long failed) {
+    }
+}
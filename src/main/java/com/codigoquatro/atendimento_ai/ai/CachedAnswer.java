@@ -0,0 +1,8 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Resposta encontrada no cache; {@code stale} indica que passou do TTL e está na janela de
+ * tolerância (deve ser devolvida e atualizada em segundo plano).
+ */
+public record CachedAnswer(EncodedAnswer answer, boolean stale) {
+}
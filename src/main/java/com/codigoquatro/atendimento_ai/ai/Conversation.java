@@ -0,0 +1,138 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Memória de uma sessão de conversa: buffer circular com os últimos turnos e um resumo
+ * compacto dos turnos mais antigos. O tamanho total é limitado, então o histórico enviado
+ * ao prompt não cresce com a duração da conversa.
+ */
+class Conversation {
+
+    private static final Pattern HTML_TAGS = Pattern.compile("<[^>]+>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Turn[] turns;
+    private final int maxTurnChars;
+    private final int summaryMaxChars;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int head;
+    private int count;
+    private String summary = "";
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    Conversation(int maxTurns, int maxTurnChars, int summaryMaxChars) {
+        this.turns = new Turn[Math.max(1, maxTurns)];
+        this.maxTurnChars = maxTurnChars;
+        this.summaryMaxChars = summaryMaxChars;
+    }
+
+    void addTurn(String question, String answer) {
+        Turn turn = new Turn(clip(question, maxTurnChars), clip(toPlainText(answer), maxTurnChars));
+        lock.lock();
+        try {
+            if (count == turns.length) {
+                // Buffer cheio: o turno mais antigo é compactado no resumo antes de ser sobrescrito
+                compact(turns[head]);
+                turns[head] = turn;
+                head = (head + 1) % turns.length;
+            } else {
+                turns[(head + count) % turns.length] = turn;
+                count++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        touch();
+    }
+
+    String lastQuestion() {
+        lock.lock();
+        try {
+            if (count == 0) return null;
+            return turns[(head + count - 1) % turns.length].question();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return count == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Histórico formatado para o prompt: resumo dos turnos antigos seguido dos turnos recentes.
+     */
+    String render() {
+        lock.lock();
+        try {
+            StringBuilder sb = new StringBuilder();
+            if (!summary.isEmpty()) {
+                sb.append("Resumo da conversa anterior: ").append(summary).append("\n");
+            }
+            for (int i = 0; i < count; i++) {
+                Turn turn = turns[(head + i) % turns.length];
+                sb.append("Cliente: ").append(turn.question()).append("\n");
+                sb.append("Atendente: ").append(turn.answer()).append("\n");
+            }
+            return sb.toString().trim();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Estimativa de memória ocupada (2 bytes por caractere, sem overhead de objetos)
+    long approximateBytes() {
+        lock.lock();
+        try {
+            long chars = summary.length();
+            for (int i = 0; i < count; i++) {
+                Turn turn = turns[(head + i) % turns.length];
+                chars += turn.question().length() + turn.answer().length();
+            }
+            return chars * 2;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    // Mantém no resumo apenas as perguntas antigas; quando excede o limite, descarta as mais velhas
+    private void compact(Turn oldest) {
+        String merged = summary.isEmpty() ? oldest.question() : summary + " | " + oldest.question();
+        if (merged.length() > summaryMaxChars) {
+            merged = merged.substring(merged.length() - summaryMaxChars);
+            int separator = merged.indexOf(" | ");
+            if (separator >= 0) merged = merged.substring(separator + 3);
+        }
+        summary = merged;
+    }
+
+    private static String toPlainText(String html) {
+        if (html == null) return "";
+        String text = HTML_TAGS.matcher(html).replaceAll(" ");
+        return WHITESPACE.matcher(text).replaceAll(" ").trim();
+    }
+
+    private static String clip(String text, int maxChars) {
+        if (text == null) return "";
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "…";
+    }
+
+    private record Turn(String question, String answer) {
+    }
+}
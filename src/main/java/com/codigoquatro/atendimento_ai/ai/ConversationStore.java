@@ -0,0 +1,125 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Sessões de conversa em memória, limitadas em quantidade e expiradas por inatividade.
+ */
+@Component
+public class ConversationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationStore.class);
+    private static final Pattern VALID_SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{8,64}");
+
+    private final Map<String, Conversation> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final int maxSessions;
+    private final long ttlMillis;
+    private final int maxTurns;
+    private final int maxTurnChars;
+    private final int summaryMaxChars;
+
+    public ConversationStore(
+            @Value("${conversation.max-sessions:10000}") int maxSessions,
+            @Value("${conversation.ttl-minutes:30}") long ttlMinutes,
+            @Value("${conversation.max-turns:4}") int maxTurns,
+            @Value("${conversation.max-turn-chars:300}") int maxTurnChars,
+            @Value("${conversation.summary-max-chars:400}") int summaryMaxChars) {
+        this.maxSessions = maxSessions;
+        this.ttlMillis = ttlMinutes * 60 * 1000;
+        this.maxTurns = maxTurns;
+        this.maxTurnChars = maxTurnChars;
+        this.summaryMaxChars = summaryMaxChars;
+    }
+
+    public static boolean isValidSessionId(String sessionId) {
+        return sessionId != null && VALID_SESSION_ID.matcher(sessionId).matches();
+    }
+
+    /**
+     * Retorna a conversa existente (ainda válida) ou null.
+     */
+    Conversation find(String sessionId) {
+        if (!isValidSessionId(sessionId)) return null;
+        Conversation conversation = sessions.get(sessionId);
+        if (conversation == null) return null;
+        if (isExpired(conversation, System.currentTimeMillis())) {
+            if (sessions.remove(sessionId, conversation)) evictions.incrementAndGet();
+            return null;
+        }
+        conversation.touch();
+        return conversation;
+    }
+
+    Conversation getOrCreate(String sessionId) {
+        if (!isValidSessionId(sessionId)) return null;
+        Conversation existing = find(sessionId);
+        if (existing != null) return existing;
+        if (sessions.size() >= maxSessions) {
+            evictOldest();
+        }
+        return sessions.computeIfAbsent(sessionId,
+                id -> new Conversation(maxTurns, maxTurnChars, summaryMaxChars));
+    }
+
+    public void recordTurn(String sessionId, String question, String answer) {
+        Conversation conversation = getOrCreate(sessionId);
+        if (conversation != null) {
+            conversation.addTurn(question, answer);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${conversation.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = sessions.size();
+        sessions.entrySet().removeIf(e -> isExpired(e.getValue(), now));
+        int removed = before - sessions.size();
+        if (removed > 0) {
+            evictions.addAndGet(removed);
+            logger.debug("{} sessões de conversa expiradas removidas.", removed);
+        }
+    }
+
+    public SessionStats stats() {
+        long bytes = 0;
+        for (Conversation conversation : sessions.values()) {
+            bytes += conversation.approximateBytes();
+        }
+        return new SessionStats(sessions.size(), maxSessions, bytes, evictions.get());
+    }
+
+    // Ao atingir o limite, remove ~10% das sessões menos recentemente usadas de uma vez
+    private void evictOldest() {
+        evictExpired();
+        int excess = sessions.size() - maxSessions + 1;
+        if (excess <= 0) return;
+        int batch = Math.max(excess, maxSessions / 10);
+        sessions.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess()))
+                .limit(batch)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(id -> {
+                    if (sessions.remove(id) != null) evictions.incrementAndGet();
+                });
+    }
+
+    private boolean isExpired(Conversation conversation, long now) {
+        return now - conversation.lastAccess() > ttlMillis;
+    }
+
+    public record SessionStats(int activeSessions, int maxSessions, long approximateBytes, long evictions) {
+    }
+}
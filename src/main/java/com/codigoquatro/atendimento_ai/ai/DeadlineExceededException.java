@@ -0,0 +1,12 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Chamada à IA descartada antes do envio: o prazo da requisição expirou ou a fila do
+ * agendador estava cheia.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,116 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Modo de busca na base de conhecimento por vetores de n-gramas com hash
+ * ({@code knowledge-base.scoring=embedding}), alternativo ao Levenshtein por caracteres.
+ *
+ * <p>As perguntas da base viram uma matriz {@code float[]} contígua ({@link Matrix}), montada uma
+ * vez por base carregada; cada busca codifica a pergunta e calcula o cosseno contra todas as linhas
+ * em uma passada sequencial pela matriz, com SIMD quando a Vector API está disponível.
+ */
+@Component
+public class EmbeddingScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingScorer.class);
+
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final HashedNgramEncoder encoder;
+    private final SimilarityKernel kernel;
+
+    @Autowired
+    public EmbeddingScorer(
+            @Value("${knowledge-base.scoring:levenshtein}") String scoring,
+            @Value("${knowledge-base.embedding.dimensions:256}") int dimensions,
+            @Value("${knowledge-base.embedding.min-similarity:0.60}") double minSimilarity) {
+        this(scoring, dimensions, minSimilarity, SimilarityKernel.best());
+    }
+
+    EmbeddingScorer(String scoring, int dimensions, double minSimilarity, SimilarityKernel kernel) {
+        this.enabled = "embedding".equalsIgnoreCase(scoring.trim());
+        if (!enabled && !"levenshtein".equalsIgnoreCase(scoring.trim())) {
+            throw new IllegalArgumentException("knowledge-base.scoring deve ser 'levenshtein' ou 'embedding': " + scoring);
+        }
+        this.minSimilarity = minSimilarity;
+        this.encoder = new HashedNgramEncoder(dimensions);
+        this.kernel = kernel;
+        if (enabled) {
+            logger.info("Busca na base por vetores de n-gramas ({} dimensões, cálculo {}).", dimensions, kernel.name());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    String kernelName() {
+        return kernel.name();
+    }
+
+    // Uma linha por entrada, na ordem dos índices da base
+    Matrix index(KnowledgeBase knowledgeBase) {
+        int rows = knowledgeBase.size();
+        int dimensions = encoder.dimensions();
+        float[] values = new float[Math.multiplyExact(rows, dimensions)];
+        for (int i = 0; i < rows; i++) {
+            encoder.encodeInto(knowledgeBase.normalizedQuestion(i), values, i * dimensions);
+        }
+        return new Matrix(knowledgeBase, values, rows, dimensions);
+    }
+
+    /**
+     * Índices das até {@code limit} entradas com cosseno mínimo, da mais parecida para a menos
+     * (empate pela ordem no JSON).
+     */
+    int[] topMatches(Matrix matrix, String normalizedQuestion, int limit) {
+        KnowledgeBase knowledgeBase = matrix.source();
+        float[] query = encoder.encode(normalizedQuestion);
+        float[] scores = new float[matrix.rows()];
+        kernel.scores(matrix.values(), matrix.rows(), matrix.dimensions(), query, scores);
+
+        int[] best = new int[limit];
+        int found = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] < minSimilarity) continue;
+            int position = found;
+            while (position > 0 && better(scores, knowledgeBase, i, best[position - 1])) {
+                position--;
+            }
+            if (position >= limit) continue;
+            int last = Math.min(found, limit - 1);
+            System.arraycopy(best, position, best, position + 1, last - position);
+            best[position] = i;
+            if (found < limit) found++;
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    // Cosseno entre duas perguntas já normalizadas
+    double similarity(CharSequence normalized1, CharSequence normalized2) {
+        float[] a = encoder.encode(normalized1);
+        float[] b = encoder.encode(normalized2);
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static boolean better(float[] scores, KnowledgeBase knowledgeBase, int candidate, int current) {
+        return scores[candidate] > scores[current]
+                || (scores[candidate] == scores[current]
+                && knowledgeBase.sourceOrder(candidate) < knowledgeBase.sourceOrder(current));
+    }
+
+    // Guarda a base de origem para o chamador saber se a matriz corresponde à base atual
+    record Matrix(KnowledgeBase source, float[] values, int rows, int dimensions) {
+    }
+}
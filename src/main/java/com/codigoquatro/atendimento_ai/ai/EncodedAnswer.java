@@ -0,0 +1,135 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resposta já serializada como literal JSON em UTF-8 (com aspas e escapes).
+ * É codificada uma única vez ao entrar no cache e escrita diretamente na resposta HTTP
+ * nos acertos. Só os bytes ficam guardados (a entrada do cache ocupa o tamanho do literal UTF-8);
+ * o texto é decodificado quando realmente necessário (ex.: persistência, histórico da conversa).
+ */
+public final class EncodedAnswer {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final byte[] json;
+
+    private EncodedAnswer(byte[] json) {
+        this.json = json;
+    }
+
+    public static EncodedAnswer of(String text) {
+        if (text == null) return new EncodedAnswer(new byte[]{'n', 'u', 'l', 'l'});
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(text);
+        byte[] json = new byte[escaped.length + 2];
+        json[0] = '"';
+        System.arraycopy(escaped, 0, json, 1, escaped.length);
+        json[json.length - 1] = '"';
+        return new EncodedAnswer(json);
+    }
+
+    /**
+     * Reconstrói a resposta a partir de um literal JSON recebido de fora (cache de outra réplica).
+     * O literal é decodificado e codificado de novo, então bytes que não sejam exatamente uma
+     * string JSON nunca chegam à resposta HTTP.
+     *
+     * @throws IllegalArgumentException se os bytes não forem uma única string JSON
+     */
+    public static EncodedAnswer parse(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                throw new IllegalArgumentException("Resposta codificada deve ser uma string JSON");
+            }
+            String text = parser.getValueAsString();
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Conteúdo após a string JSON");
+            }
+            return of(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Resposta codificada inválida", e);
+        }
+    }
+
+    /**
+     * Bytes do literal JSON. O array é compartilhado e não deve ser modificado.
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    /**
+     * Texto da resposta. Os escapes gerados por {@link #of} (aspas, barra invertida, controles) são
+     * desfeitos num único passe sobre os bytes, sem o parser JSON; qualquer outro escape usa o parser.
+     */
+    public String text() {
+        if (json[0] != '"') return null;
+        int end = json.length - 1;
+        byte[] out = null;
+        int written = 0;
+        for (int i = 1; i < end; i++) {
+            byte b = json[i];
+            if (b != '\\') {
+                if (out != null) out[written++] = b;
+                continue;
+            }
+            if (out == null) {
+                out = new byte[end - 1];
+                written = i - 1;
+                System.arraycopy(json, 1, out, 0, written);
+            }
+            byte escaped = json[++i];
+            switch (escaped) {
+                case '"', '\\', '/' -> out[written++] = escaped;
+                case 'n' -> out[written++] = '\n';
+                case 't' -> out[written++] = '\t';
+                case 'r' -> out[written++] = '\r';
+                case 'b' -> out[written++] = '\b';
+                case 'f' -> out[written++] = '\f';
+                case 'u' -> {
+                    int code = hex(i + 1);
+                    if (code < 0 || code >= 0x80) return parseText();
+                    out[written++] = (byte) code;
+                    i += 4;
+                }
+                default -> {
+                    return parseText();
+                }
+            }
+        }
+        return out == null
+                ? new String(json, 1, end - 1, StandardCharsets.UTF_8)
+                : new String(out, 0, written, StandardCharsets.UTF_8);
+    }
+
+    // Valor dos 4 dígitos hexadecimais que seguem um escape "u" (-1 se inválido)
+    private int hex(int start) {
+        if (start + 4 > json.length) return -1;
+        int value = 0;
+        for (int i = start; i < start + 4; i++) {
+            int digit = Character.digit(json[i], 16);
+            if (digit < 0) return -1;
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private String parseText() {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return parser.getValueAsString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Resposta codificada inválida", e);
+        }
+    }
+
+    public int sizeInBytes() {
+        return json.length;
+    }
+}
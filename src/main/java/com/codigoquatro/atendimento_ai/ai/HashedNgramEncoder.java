@@ -0,0 +1,95 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Projeta uma pergunta normalizada em um vetor de tamanho fixo pelo "hashing trick": cada palavra
+ * e cada trigrama de caracteres da palavra (com marcas de início e fim) soma ±1 em uma posição
+ * escolhida por hash. O vetor é normalizado (norma L2 = 1), então o produto escalar entre dois
+ * vetores é a similaridade de cosseno.
+ *
+ * <p>Por ser um saco de n-gramas, a ordem das palavras não importa ("preço do cabo" e "cabo preço"
+ * ficam próximos), e os trigramas toleram erros de digitação ("entrga" x "entrega").
+ */
+final class HashedNgramEncoder {
+
+    private static final long WORD_SEED = 0x9E3779B97F4A7C15L;
+    private static final long TRIGRAM_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final int dimensions;
+    private final int mask;
+
+    HashedNgramEncoder(int dimensions) {
+        if (dimensions <= 0 || Integer.bitCount(dimensions) != 1) {
+            throw new IllegalArgumentException("A dimensão dos vetores deve ser potência de 2: " + dimensions);
+        }
+        this.dimensions = dimensions;
+        this.mask = dimensions - 1;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    float[] encode(CharSequence normalizedQuestion) {
+        float[] vector = new float[dimensions];
+        encodeInto(normalizedQuestion, vector, 0);
+        return vector;
+    }
+
+    // Escreve o vetor em target[offset .. offset + dimensions) (linha da matriz da base)
+    void encodeInto(CharSequence text, float[] target, int offset) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && text.charAt(start) == ' ') start++;
+            int end = start;
+            while (end < length && text.charAt(end) != ' ') end++;
+            if (end > start) {
+                addWord(text, start, end, target, offset);
+            }
+            start = end;
+        }
+
+        double norm = 0;
+        for (int i = offset; i < offset + dimensions; i++) {
+            norm += target[i] * target[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = offset; i < offset + dimensions; i++) {
+                target[i] *= scale;
+            }
+        }
+    }
+
+    private void addWord(CharSequence text, int start, int end, float[] target, int offset) {
+        long wordHash = WORD_SEED;
+        for (int i = start; i < end; i++) {
+            wordHash = (wordHash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        add(wordHash, target, offset);
+
+        // Trigramas de "^palavra$"; '^' e '$' nunca aparecem em texto normalizado
+        int padded = end - start + 2;
+        for (int i = 0; i + 3 <= padded; i++) {
+            long h = TRIGRAM_SEED;
+            h = (h ^ charAt(text, start, end, i)) * 0x100000001B3L;
+            h = (h ^ charAt(text, start, end, i + 1)) * 0x100000001B3L;
+            h = (h ^ charAt(text, start, end, i + 2)) * 0x100000001B3L;
+            add(h, target, offset);
+        }
+    }
+
+    private static char charAt(CharSequence text, int start, int end, int paddedIndex) {
+        if (paddedIndex == 0) return '^';
+        int index = start + paddedIndex - 1;
+        return index < end ? text.charAt(index) : '$';
+    }
+
+    // Hash com sinal: colisões tendem a se cancelar em vez de inflar a similaridade
+    private void add(long hash, float[] target, int offset) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        target[offset + ((int) hash & mask)] += hash < 0 ? -1f : 1f;
+    }
+}
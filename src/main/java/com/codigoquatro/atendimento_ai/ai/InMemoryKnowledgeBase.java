@@ -0,0 +1,92 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Base de conhecimento no heap, usada quando o arquivo compilado não está disponível
+ * (leitura direta do JSON) e pelos benchmarks com bases sintéticas.
+ */
+public final class InMemoryKnowledgeBase implements KnowledgeBase {
+
+    private static final InMemoryKnowledgeBase EMPTY = new InMemoryKnowledgeBase(List.of());
+
+    private final AiServiceSimulator.KnowledgeEntry[] entries;
+    private final String[] normalizedQuestions;
+    private final int[] lengths;
+    private final int[] sourceOrders;
+
+    private InMemoryKnowledgeBase(List<AiServiceSimulator.KnowledgeEntry> source) {
+        String[] normalized = source.stream()
+                .map(entry -> QuestionNormalizer.normalize(entry.getQuestion()))
+                .toArray(String[]::new);
+        Integer[] order = new Integer[source.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> normalized[i].length()).thenComparingInt(i -> i));
+
+        this.entries = new AiServiceSimulator.KnowledgeEntry[order.length];
+        this.normalizedQuestions = new String[order.length];
+        this.lengths = new int[order.length];
+        this.sourceOrders = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            entries[i] = source.get(order[i]);
+            normalizedQuestions[i] = normalized[order[i]];
+            lengths[i] = normalized[order[i]].length();
+            sourceOrders[i] = order[i];
+        }
+    }
+
+    public static InMemoryKnowledgeBase of(List<AiServiceSimulator.KnowledgeEntry> entries) {
+        return entries.isEmpty() ? EMPTY : new InMemoryKnowledgeBase(entries);
+    }
+
+    public static InMemoryKnowledgeBase empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return entries.length;
+    }
+
+    @Override
+    public int firstIndexWithLengthAtLeast(int length) {
+        int low = 0;
+        int high = lengths.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lengths[mid] < length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int normalizedLength(int index) {
+        return lengths[index];
+    }
+
+    @Override
+    public CharSequence normalizedQuestion(int index) {
+        return normalizedQuestions[index];
+    }
+
+    @Override
+    public int sourceOrder(int index) {
+        return sourceOrders[index];
+    }
+
+    @Override
+    public String question(int index) {
+        return entries[index].getQuestion();
+    }
+
+    @Override
+    public AiServiceSimulator.KnowledgeEntry entry(int index) {
+        return entries[index];
+    }
+}
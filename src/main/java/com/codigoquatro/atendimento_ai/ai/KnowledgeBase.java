@@ -0,0 +1,29 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Base de conhecimento indexada para a busca por similaridade. As entradas ficam ordenadas pelo
+ * tamanho da pergunta normalizada, de modo que a busca compara apenas a faixa de tamanhos que
+ * pode atingir o limiar de similaridade.
+ *
+ * <p>A pergunta normalizada é exposta como {@link CharSequence} para que a implementação mapeada
+ * em memória compare direto sobre o arquivo; a entrada completa só é decodificada em {@link #entry(int)}.
+ */
+public interface KnowledgeBase {
+
+    int size();
+
+    // Primeiro índice cuja pergunta normalizada tem pelo menos {@code length} caracteres (size() se nenhum)
+    int firstIndexWithLengthAtLeast(int length);
+
+    int normalizedLength(int index);
+
+    CharSequence normalizedQuestion(int index);
+
+    // Posição da entrada no knowledge_base.json (desempate entre similaridades iguais)
+    int sourceOrder(int index);
+
+    // Só a pergunta original, sem decodificar a resposta (autocompletar percorre a base inteira)
+    String question(int index);
+
+    AiServiceSimulator.KnowledgeEntry entry(int index);
+}
@@ -0,0 +1,127 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Compila o {@code knowledge_base.json} no formato lido por {@link MappedKnowledgeBase}. Roda no
+ * build (fase {@code process-classes}):
+ * {@code KnowledgeBaseCompiler <knowledge_base.json> <knowledge_base.kbm>}.
+ */
+public final class KnowledgeBaseCompiler {
+
+    private KnowledgeBaseCompiler() {
+    }
+
+    // CRC32 do JSON lido em fluxo, sem manter o conteúdo no heap
+    public static long checksum(InputStream json) throws IOException {
+        try (CheckedInputStream in = new CheckedInputStream(json, new CRC32())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getChecksum().getValue();
+        }
+    }
+
+    public static void compile(List<AiServiceSimulator.KnowledgeEntry> entries, long sourceChecksum,
+                               Path target) throws IOException {
+        int size = entries.size();
+        String[] normalized = entries.stream()
+                .map(entry -> QuestionNormalizer.normalize(entry.getQuestion()))
+                .toArray(String[]::new);
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> normalized[i].length()).thenComparingInt(i -> i));
+
+        int[] table = new int[size * MappedKnowledgeBase.ENTRY_INTS];
+        StringBuilder normalizedPool = new StringBuilder();
+        Utf8Pool utf8Pool = new Utf8Pool();
+        for (int i = 0; i < size; i++) {
+            AiServiceSimulator.KnowledgeEntry entry = entries.get(order[i]);
+            int row = i * MappedKnowledgeBase.ENTRY_INTS;
+            table[row] = normalizedPool.length();
+            table[row + 1] = normalized[order[i]].length();
+            table[row + 2] = order[i];
+            normalizedPool.append(normalized[order[i]]);
+            utf8Pool.add(entry.getQuestion(), table, row + 3);
+            utf8Pool.add(entry.getAnswer(), table, row + 5);
+        }
+
+        long totalBytes = MappedKnowledgeBase.HEADER_BYTES + (long) table.length * Integer.BYTES
+                + (long) normalizedPool.length() * Character.BYTES + utf8Pool.bytes.size();
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IOException("Base de conhecimento compilada excede 2 GB.");
+        }
+
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeInt(MappedKnowledgeBase.MAGIC);
+            out.writeLong(sourceChecksum);
+            out.writeInt(size);
+            out.writeInt(normalizedPool.length());
+            out.writeInt(utf8Pool.bytes.size());
+            for (int value : table) {
+                out.writeInt(value);
+            }
+            out.writeChars(normalizedPool.toString());
+            utf8Pool.bytes.writeTo(out);
+        }
+    }
+
+    // Pool de strings UTF-8 com deduplicação (respostas iguais compartilham os mesmos bytes)
+    private static final class Utf8Pool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private void add(String value, int[] table, int column) {
+            String text = value == null ? "" : value;
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            Integer offset = offsets.get(text);
+            if (offset == null) {
+                offset = bytes.size();
+                offsets.put(text, offset);
+                bytes.writeBytes(encoded);
+            }
+            table[column] = offset;
+            table[column + 1] = encoded.length;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Uso: KnowledgeBaseCompiler <json de origem> <arquivo compilado>");
+        }
+        Path source = Path.of(args[0]);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<AiServiceSimulator.KnowledgeEntry> entries;
+        try (InputStream in = Files.newInputStream(source)) {
+            entries = objectMapper.readValue(in, objectMapper.getTypeFactory()
+                    .constructCollectionType(List.class, AiServiceSimulator.KnowledgeEntry.class));
+        }
+        long checksum;
+        try (InputStream in = Files.newInputStream(source)) {
+            checksum = checksum(in);
+        }
+        Path target = Path.of(args[1]);
+        compile(entries, checksum, target);
+        System.out.printf("Base de conhecimento compilada: %d entradas, %d bytes em %s%n",
+                entries.size(), Files.size(target), target);
+    }
+}
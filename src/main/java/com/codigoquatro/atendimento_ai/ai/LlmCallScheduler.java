@@ -0,0 +1,217 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.metrics.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Agendador limitado das chamadas à IA. No máximo {@code maxConcurrent} chamadas ficam em voo;
+ * as demais aguardam em uma fila ordenada pela prioridade da intenção ({@link QuestionIntent})
+ * e, dentro da mesma classe, por ordem de chegada. A chamada roda na própria thread de quem
+ * pede a vaga, então não há pool extra.
+ *
+ * <p>Quem tem o prazo da requisição vencido (antes de entrar ou enquanto espera) é descartado
+ * sem chegar à OpenRouter. O tempo de espera na fila e os descartes são contabilizados por classe.
+ */
+@Component
+public class LlmCallScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmCallScheduler.class);
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration defaultTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.intent.ordinal()).thenComparingLong(w -> w.sequence));
+    private int available;
+    private long sequence;
+
+    private final Map<QuestionIntent, ClassCounters> counters = new EnumMap<>(QuestionIntent.class);
+
+    public LlmCallScheduler(
+            @Value("${llm.scheduler.max-concurrent:16}") int maxConcurrent,
+            @Value("${llm.scheduler.max-queued:200}") int maxQueued,
+            @Value("${llm.scheduler.default-timeout-ms:30000}") long defaultTimeoutMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.defaultTimeout = Duration.ofMillis(defaultTimeoutMs);
+        this.available = maxConcurrent;
+        for (QuestionIntent intent : QuestionIntent.values()) {
+            counters.put(intent, new ClassCounters());
+        }
+    }
+
+    /**
+     * Executa a chamada quando houver vaga, respeitando a prioridade da intenção. A função recebe
+     * o prazo efetivo (o da requisição, limitado ao timeout padrão) para usar como timeout HTTP.
+     *
+     * @throws DeadlineExceededException se o prazo vencer antes do envio ou a fila estiver cheia
+     */
+    public <T> T execute(QuestionIntent intent, Function<RequestDeadline, T> call) {
+        RequestDeadline deadline = RequestDeadline.currentOr(defaultTimeout);
+        ClassCounters classCounters = counters.get(intent);
+
+        if (deadline.isExpired()) {
+            throw drop(intent, classCounters, "prazo vencido antes de entrar na fila");
+        }
+
+        long enqueuedAt = System.nanoTime();
+        if (!acquire(intent, deadline, classCounters)) {
+            throw drop(intent, classCounters, "prazo vencido ou fila cheia");
+        }
+        long acquiredAt = System.nanoTime();
+        classCounters.recordWait(acquiredAt - enqueuedAt);
+        RequestTrace.current().span("llm_queue", enqueuedAt, acquiredAt);
+
+        try {
+            // A vaga pode ter chegado junto com o fim do prazo
+            if (deadline.isExpired()) {
+                throw drop(intent, classCounters, "prazo vencido durante a espera");
+            }
+            classCounters.executed.increment();
+            return call.apply(deadline);
+        } finally {
+            release();
+        }
+    }
+
+    private boolean acquire(QuestionIntent intent, RequestDeadline deadline, ClassCounters classCounters) {
+        lock.lock();
+        try {
+            if (available > 0 && waiting.isEmpty()) {
+                available--;
+                return true;
+            }
+            if (waiting.size() >= maxQueued) {
+                return false;
+            }
+
+            Waiter waiter = new Waiter(intent, sequence++, lock.newCondition());
+            waiting.add(waiter);
+            classCounters.queued.increment();
+            try {
+                while (!waiter.granted) {
+                    long remaining = deadline.remainingNanos();
+                    if (remaining <= 0) {
+                        waiting.remove(waiter);
+                        return false;
+                    }
+                    waiter.condition.awaitNanos(remaining);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted) {
+                    handOff();
+                } else {
+                    waiting.remove(waiter);
+                }
+                return false;
+            } finally {
+                classCounters.queued.decrement();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            handOff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Repassa a vaga diretamente ao próximo da fila (maior prioridade) ou a devolve ao total livre
+    private void handOff() {
+        Waiter next = waiting.poll();
+        if (next != null) {
+            next.granted = true;
+            next.condition.signal();
+        } else {
+            available++;
+        }
+    }
+
+    private DeadlineExceededException drop(QuestionIntent intent, ClassCounters classCounters, String reason) {
+        classCounters.dropped.increment();
+        RequestTrace.current().tag("llm_dropped", reason);
+        logger.warn("Chamada à IA ({}) descartada: {}.", intent, reason);
+        return new DeadlineExceededException("Chamada à IA descartada: " + reason);
+    }
+
+    public SchedulerStats stats() {
+        int inFlight;
+        int queued;
+        lock.lock();
+        try {
+            inFlight = maxConcurrent - available;
+            queued = waiting.size();
+        } finally {
+            lock.unlock();
+        }
+        Map<QuestionIntent, ClassStats> classes = new EnumMap<>(QuestionIntent.class);
+        counters.forEach((intent, c) -> classes.put(intent, c.snapshot()));
+        return new SchedulerStats(inFlight, maxConcurrent, queued, maxQueued, classes);
+    }
+
+    private static final class Waiter {
+        private final QuestionIntent intent;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(QuestionIntent intent, long sequence, Condition condition) {
+            this.intent = intent;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+
+    private static final class ClassCounters {
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void recordWait(long waitNanos) {
+            waits.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        private ClassStats snapshot() {
+            long count = waits.sum();
+            double averageWaitMs = count == 0 ? 0 : (double) totalWaitNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+            double maxWaitMs = (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+            return new ClassStats(executed.sum(), dropped.sum(), queued.sum(), averageWaitMs, maxWaitMs);
+        }
+    }
+
+    public record ClassStats(long executed, long dropped, long queued, double averageWaitMs, double maxWaitMs) {
+    }
+
+    public record SchedulerStats(int inFlight, int maxConcurrent, int queued, int maxQueued,
+                                 Map<QuestionIntent, ClassStats> classes) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Base de conhecimento lida de um arquivo compilado ({@link KnowledgeBaseCompiler}) e mapeada em
+ * memória somente leitura. Nada é copiado para o heap na abertura: a busca compara as perguntas
+ * normalizadas direto sobre as páginas mapeadas e pergunta/resposta só são decodificadas quando a
+ * entrada é usada. Várias JVMs que mapeiam o mesmo arquivo compartilham as páginas do page cache.
+ *
+ * <p>Formato (big-endian):
+ * <pre>
+ * cabeçalho   "KBM2", CRC32 do JSON de origem (long), entradas, chars normalizados, bytes UTF-8 (int)
+ * tabela      por entrada, em ordem de tamanho da pergunta normalizada: offset e tamanho normalizados,
+ *             ordem no JSON, offset e tamanho da pergunta, offset e tamanho da resposta (7 ints)
+ * normalizado perguntas normalizadas em UTF-16, lidas como CharSequence sem decodificação
+ * pool UTF-8   perguntas e respostas originais (respostas repetidas são gravadas uma vez)
+ * </pre>
+ */
+public final class MappedKnowledgeBase implements KnowledgeBase {
+
+    static final String RESOURCE = "knowledge_base.kbm";
+
+    // "KBM2": perguntas normalizadas sem acentos; arquivos "KBM1" são recusados e a base é lida do JSON
+    static final int MAGIC = 0x4B424D32; // "KBM2"
+    static final int HEADER_BYTES = 24;
+    static final int ENTRY_INTS = 7;
+
+    private static final int NORMALIZED_OFFSET = 0;
+    private static final int NORMALIZED_LENGTH = 1;
+    private static final int SOURCE_ORDER = 2;
+    private static final int QUESTION_OFFSET = 3;
+    private static final int QUESTION_LENGTH = 4;
+    private static final int ANSWER_OFFSET = 5;
+    private static final int ANSWER_LENGTH = 6;
+
+    private final int size;
+    private final IntBuffer table;
+    private final CharBuffer normalized;
+    private final ByteBuffer utf8;
+
+    private MappedKnowledgeBase(int size, IntBuffer table, CharBuffer normalized, ByteBuffer utf8) {
+        this.size = size;
+        this.table = table;
+        this.normalized = normalized;
+        this.utf8 = utf8;
+    }
+
+    // Abre um arquivo informado explicitamente (knowledge-base.file), sem conferir o JSON de origem
+    public static MappedKnowledgeBase open(Path file) throws IOException {
+        return open(file, null);
+    }
+
+    /**
+     * Abre o arquivo conferindo que foi compilado a partir do JSON com o checksum informado.
+     *
+     * @throws IOException se o arquivo for inválido ou não corresponder ao JSON
+     */
+    public static MappedKnowledgeBase open(Path file, Long expectedChecksum) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo da base de conhecimento maior que 2 GB: " + file);
+            }
+            // O mapeamento continua válido depois que o canal é fechado
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Arquivo da base de conhecimento em formato desconhecido: " + file);
+        }
+        if (expectedChecksum != null && mapped.getLong(4) != expectedChecksum) {
+            throw new IOException("Arquivo da base de conhecimento desatualizado em relação ao JSON.");
+        }
+        int size = mapped.getInt(12);
+        int normalizedChars = mapped.getInt(16);
+        int utf8Bytes = mapped.getInt(20);
+        long tableBytes = (long) size * ENTRY_INTS * Integer.BYTES;
+        long expectedBytes = HEADER_BYTES + tableBytes + (long) normalizedChars * Character.BYTES + utf8Bytes;
+        if (size < 0 || normalizedChars < 0 || utf8Bytes < 0 || expectedBytes != mapped.capacity()) {
+            throw new IOException("Arquivo da base de conhecimento corrompido: " + file);
+        }
+
+        int normalizedStart = HEADER_BYTES + (int) tableBytes;
+        int utf8Start = normalizedStart + normalizedChars * Character.BYTES;
+        return new MappedKnowledgeBase(size,
+                mapped.slice(HEADER_BYTES, (int) tableBytes).asIntBuffer(),
+                mapped.slice(normalizedStart, normalizedChars * Character.BYTES).asCharBuffer(),
+                mapped.slice(utf8Start, utf8Bytes));
+    }
+
+    /**
+     * Abre o arquivo empacotado no classpath. Em {@code target/classes} ele é mapeado no lugar;
+     * dentro do JAR precisa antes ser copiado para um arquivo temporário (para compartilhar páginas
+     * entre JVMs, use {@code knowledge-base.file} apontando para uma cópia no disco).
+     */
+    public static MappedKnowledgeBase open(Resource resource, long expectedChecksum) throws IOException {
+        if (resource.isFile()) {
+            return open(resource.getFile().toPath(), expectedChecksum);
+        }
+        Path copy = Files.createTempFile("knowledge_base", ".kbm");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return open(copy, expectedChecksum);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int firstIndexWithLengthAtLeast(int length) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (normalizedLength(mid) < length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int normalizedLength(int index) {
+        return column(index, NORMALIZED_LENGTH);
+    }
+
+    // Visão sobre as páginas mapeadas; a posição do buffer de origem nunca muda, então é seguro entre threads
+    @Override
+    public CharSequence normalizedQuestion(int index) {
+        int offset = column(index, NORMALIZED_OFFSET);
+        return normalized.subSequence(offset, offset + column(index, NORMALIZED_LENGTH));
+    }
+
+    @Override
+    public int sourceOrder(int index) {
+        return column(index, SOURCE_ORDER);
+    }
+
+    @Override
+    public String question(int index) {
+        return decode(column(index, QUESTION_OFFSET), column(index, QUESTION_LENGTH));
+    }
+
+    @Override
+    public AiServiceSimulator.KnowledgeEntry entry(int index) {
+        AiServiceSimulator.KnowledgeEntry entry = new AiServiceSimulator.KnowledgeEntry();
+        entry.setQuestion(question(index));
+        entry.setAnswer(decode(column(index, ANSWER_OFFSET), column(index, ANSWER_LENGTH)));
+        return entry;
+    }
+
+    private int column(int index, int column) {
+        return table.get(index * ENTRY_INTS + column);
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        utf8.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
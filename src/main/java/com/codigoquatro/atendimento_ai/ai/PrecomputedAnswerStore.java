@@ -0,0 +1,64 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Respostas geradas fora do horário de pico para as perguntas mais frequentes.
+ * Chaveado pela pergunta normalizada; consultado antes de qualquer chamada à OpenRouter.
+ * As respostas ficam guardadas já codificadas em JSON, como no cache de respostas.
+ */
+@Component
+public class PrecomputedAnswerStore {
+
+    private final Map<String, PrecomputedAnswer> answers = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public PrecomputedAnswerStore(
+            @Value("${precompute.answer-ttl-hours:24}") long ttlHours,
+            @Value("${precompute.max-entries:1000}") int maxEntries) {
+        this.ttlMillis = ttlHours * 60 * 60 * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public EncodedAnswer get(String normalizedQuestion) {
+        PrecomputedAnswer answer = answers.get(normalizedQuestion);
+        if (answer == null) return null;
+        if (answer.isExpired(ttlMillis)) {
+            answers.remove(normalizedQuestion, answer);
+            return null;
+        }
+        return answer.answer();
+    }
+
+    public boolean contains(String normalizedQuestion) {
+        return get(normalizedQuestion) != null;
+    }
+
+    /**
+     * Armazena a resposta pré-gerada. Ao atingir o limite, descarta primeiro as expiradas;
+     * se ainda estiver cheio, a nova resposta é ignorada (o job prioriza as mais frequentes).
+     */
+    public boolean put(String normalizedQuestion, String answer) {
+        if (answers.size() >= maxEntries && !answers.containsKey(normalizedQuestion)) {
+            answers.entrySet().removeIf(e -> e.getValue().isExpired(ttlMillis));
+            if (answers.size() >= maxEntries) return false;
+        }
+        answers.put(normalizedQuestion, new PrecomputedAnswer(EncodedAnswer.of(answer), System.currentTimeMillis()));
+        return true;
+    }
+
+    public int size() {
+        return answers.size();
+    }
+
+    private record PrecomputedAnswer(EncodedAnswer answer, long createdAt) {
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAt > ttlMillis;
+        }
+    }
+}
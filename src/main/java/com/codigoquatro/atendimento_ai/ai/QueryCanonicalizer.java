@@ -0,0 +1,160 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Etapa de canonicalização depois de {@link QuestionNormalizer}: cada palavra fora do vocabulário
+ * é trocada pela palavra conhecida mais próxima ("potenciomtro" → "potenciometro",
+ * "hdmy" → "hdmi"), para que variações de digitação caiam na mesma chave do cache de respostas,
+ * nas mesmas entradas da base de conhecimento e nas mesmas palavras-chave de intenção e categoria.
+ *
+ * <p>O vocabulário reúne o arquivo {@code vocabulario.txt} (palavras comuns e nomes de produtos
+ * do catálogo) e as fontes registradas na subida ({@link #register}): perguntas da base de
+ * conhecimento e palavras-chave da detecção de intenção e das categorias da loja. A correção usa
+ * um {@link SymSpellDictionary}; palavras de até 3 letras e com dígitos ("p10", "10k") não são
+ * corrigidas, e as de 4 ou 5 letras só com distância 1.
+ */
+@Component
+public class QueryCanonicalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCanonicalizer.class);
+
+    static final String VOCABULARY_RESOURCE = "vocabulario.txt";
+
+    private final boolean enabled;
+    private final int maxDistance;
+    // Frequência das palavras de cada fonte; as frases não ficam guardadas (a base pode ser grande)
+    private final Map<String, Map<String, Integer>> sourceWords = new LinkedHashMap<>();
+    private volatile SymSpellDictionary dictionary;
+
+    private final LongAdder words = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+
+    public QueryCanonicalizer(
+            @Value("${canonicalizer.enabled:true}") boolean enabled,
+            @Value("${canonicalizer.max-edit-distance:2}") int maxDistance) {
+        this.enabled = enabled;
+        this.maxDistance = maxDistance;
+        register("vocabulario", loadVocabularyResource());
+    }
+
+    /**
+     * Acrescenta (ou substitui) uma fonte de vocabulário e reconstrói o dicionário. Feito na subida,
+     * antes do tráfego: mudar o vocabulário pode mudar as chaves canônicas.
+     */
+    public synchronized void register(String source, Collection<String> phrases) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String phrase : phrases) {
+            for (String word : QuestionNormalizer.normalize(phrase).split(" ")) {
+                if (!word.isEmpty()) {
+                    counts.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        sourceWords.put(source, counts);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (Map<String, Integer> sourceCounts : sourceWords.values()) {
+            sourceCounts.forEach((word, count) -> frequencies.merge(word, count, Integer::sum));
+        }
+        dictionary = SymSpellDictionary.build(frequencies, maxDistance);
+        logger.debug("Vocabulário da canonicalização: {} palavras (fonte '{}' com {} frases).",
+                frequencies.size(), source, phrases.size());
+    }
+
+    // Chave canônica de uma pergunta: normalização seguida da correção de cada palavra
+    public String canonicalKey(String question) {
+        return canonicalize(QuestionNormalizer.normalize(question));
+    }
+
+    // Entrada já normalizada; devolve a mesma instância quando nenhuma palavra é corrigida
+    public String canonicalize(String normalized) {
+        if (!enabled || normalized.isEmpty()) {
+            return normalized;
+        }
+        SymSpellDictionary current = dictionary;
+        StringBuilder result = null;
+        int length = normalized.length();
+        int start = 0;
+        int count = 0;
+        while (start < length) {
+            int end = normalized.indexOf(' ', start);
+            if (end < 0) end = length;
+            String word = normalized.substring(start, end);
+            String corrected = correct(current, word);
+            count++;
+            if (corrected != word && result == null) {
+                result = new StringBuilder(length + 8).append(normalized, 0, Math.max(0, start - 1));
+            }
+            if (result != null) {
+                if (start > 0) result.append(' ');
+                result.append(corrected);
+                if (corrected != word) corrections.increment();
+            }
+            start = end + 1;
+        }
+        words.add(count);
+        return result == null ? normalized : result.toString();
+    }
+
+    private String correct(SymSpellDictionary current, String word) {
+        int length = word.length();
+        if (length <= 3 || hasDigit(word) || current.contains(word)) {
+            return word;
+        }
+        String corrected = current.correct(word, length <= 5 ? 1 : maxDistance);
+        return corrected.equals(word) ? word : corrected;
+    }
+
+    private static boolean hasDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    public CanonicalizerStats stats() {
+        return new CanonicalizerStats(enabled, dictionary.size(), words.sum(), corrections.sum());
+    }
+
+    // Uma palavra ou frase por linha; linhas vazias e iniciadas por '#' são ignoradas
+    private static List<String> loadVocabularyResource() {
+        List<String> phrases = new ArrayList<>();
+        ClassPathResource resource = new ClassPathResource(VOCABULARY_RESOURCE);
+        if (!resource.exists()) {
+            return phrases;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    phrases.add(line);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Vocabulário {} não carregado: {}", VOCABULARY_RESOURCE, e.getMessage());
+        }
+        return phrases;
+    }
+
+    public record CanonicalizerStats(boolean enabled, int vocabularySize, long words, long corrections) {
+    }
+}
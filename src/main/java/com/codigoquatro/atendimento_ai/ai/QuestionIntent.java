@@ -0,0 +1,9 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Intenção detectada na pergunta do cliente. A ordem de declaração define a prioridade
+ * das chamadas à IA sob carga: perguntas de produto (possível venda) passam na frente.
+ */
+public enum QuestionIntent {
+    PRODUCT_INQUIRY, SUPPORT_REQUEST, GENERAL_INQUIRY
+}
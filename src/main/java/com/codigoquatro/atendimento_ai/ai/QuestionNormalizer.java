@@ -0,0 +1,38 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de perguntas compartilhada entre o atendimento online e os jobs em lote,
+ * garantindo que a mesma pergunta gere sempre a mesma chave de cache.
+ *
+ * <p>Os acentos são removidos ("potenciômetro", "potenciometro" e "garantía" viram a mesma
+ * grafia sem acento); a correção de erros de digitação fica a cargo do {@link QueryCanonicalizer}.
+ */
+public final class QuestionNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern INVALID_CHARS = Pattern.compile("[^a-z0-9\\s]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QuestionNormalizer() {
+    }
+
+    public static String normalize(String question) {
+        if (question == null) return "";
+        String lower = foldAccents(question.toLowerCase());
+        String cleaned = INVALID_CHARS.matcher(lower).replaceAll("");
+        return WHITESPACE.matcher(cleaned).replaceAll(" ").trim();
+    }
+
+    // Decomposição NFD + remoção das marcas; texto só ASCII (o caso comum) não passa pelo Normalizer
+    static String foldAccents(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return text;
+    }
+}
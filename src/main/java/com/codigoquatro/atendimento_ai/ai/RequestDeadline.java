@@ -0,0 +1,74 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.time.Duration;
+
+/**
+ * Prazo fim a fim de uma requisição, definido no controller e propagado pela thread atual
+ * (e pelos executores, via {@link #propagate(Runnable)}) até o timeout da chamada HTTP à IA.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    // Prazo vinculado à thread atual, ou null quando a chamada não veio de uma requisição
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    // O mais restritivo entre o prazo atual (se houver) e um novo prazo local
+    public static RequestDeadline currentOr(Duration timeout) {
+        RequestDeadline local = after(timeout);
+        RequestDeadline current = current();
+        return current != null && current.deadlineNanos - local.deadlineNanos < 0 ? current : local;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    // Vincula o prazo à thread atual até o fechamento do escopo, restaurando o anterior
+    public Scope bind() {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    // Captura o prazo da thread que submete a tarefa e o aplica na thread que a executa
+    public static Runnable propagate(Runnable task) {
+        RequestDeadline captured = current();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = captured.bind()) {
+                task.run();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,85 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cache de respostas por pergunta normalizada, limitado em tamanho (descarta as mais antigas).
+ * Não usa {@code synchronized}: leituras e escritas não bloqueiam threads (nem virtual threads).
+ *
+ * <p>Cada entrada tem dois prazos: até o TTL ela está fresca; depois, durante a janela de
+ * tolerância ({@code graceMillis}), ainda é devolvida, marcada como vencida, para que o chamador
+ * responda na hora e atualize em segundo plano. Só depois dos dois a entrada deixa de existir.
+ */
+class ResponseCache {
+
+    private static final long CACHE_TTL = 30 * 60 * 1000; // 30 minutos
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long graceMillis;
+
+    ResponseCache(int maxEntries) {
+        this(maxEntries, CACHE_TTL);
+    }
+
+    ResponseCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, 0);
+    }
+
+    ResponseCache(int maxEntries, long ttlMillis, long graceMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.graceMillis = graceMillis;
+    }
+
+    // Resposta fresca ou vencida dentro da janela de tolerância
+    EncodedAnswer get(String normalizedQuestion) {
+        CachedAnswer lookup = lookup(normalizedQuestion);
+        return lookup == null ? null : lookup.answer();
+    }
+
+    CachedAnswer lookup(String normalizedQuestion) {
+        CacheEntry entry = entries.get(normalizedQuestion);
+        // Entradas expiradas ficam no mapa até serem sobrescritas ou descartadas pela ordem de inserção
+        if (entry == null) return null;
+        long now = System.currentTimeMillis();
+        if (now > entry.expiresAt()) return null;
+        return new CachedAnswer(entry.response(), now > entry.freshUntil());
+    }
+
+    void put(String normalizedQuestion, EncodedAnswer response) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry = new CacheEntry(response, now + ttlMillis, now + ttlMillis + graceMillis);
+        if (entries.put(normalizedQuestion, entry) == null) {
+            insertionOrder.add(normalizedQuestion);
+        }
+        while (entries.size() > maxEntries) {
+            String eldest = insertionOrder.poll();
+            if (eldest == null) break;
+            entries.remove(eldest);
+        }
+    }
+
+    /**
+     * Atualização que falhou: a entrada vencida continua valendo por mais uma janela de tolerância
+     * e é tratada como fresca por {@code retryMillis}, para não disparar uma nova tentativa a cada leitura.
+     */
+    void extend(String normalizedQuestion, long retryMillis) {
+        long now = System.currentTimeMillis();
+        entries.computeIfPresent(normalizedQuestion, (key, entry) -> now > entry.expiresAt()
+                ? entry
+                : new CacheEntry(entry.response(), now + retryMillis, Math.max(entry.expiresAt(), now + graceMillis)));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Guardada já codificada em JSON UTF-8: menor que a String e pronta para a resposta HTTP
+    private record CacheEntry(EncodedAnswer response, long freshUntil, long expiresAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public void scores(float[] matrix, int rows, int dimensions, float[] query, float[] out) {
+        for (int row = 0; row < rows; row++) {
+            int base = row * dimensions;
+            float sum = 0;
+            for (int k = 0; k < dimensions; k++) {
+                sum += matrix[base + k] * query[k];
+            }
+            out[row] = sum;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,287 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.cluster.ConsistentHashRing;
+import com.codigoquatro.atendimento_ai.cluster.PeerCacheClient;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de respostas por pergunta normalizada, opcionalmente compartilhado entre as réplicas.
+ *
+ * <p>Com {@code cluster.enabled=true}, cada chave tem um dono escolhido por hash consistente sobre
+ * as réplicas configuradas em {@code cluster.peers}. O dono guarda a resposta no seu cache local;
+ * as demais réplicas buscam e gravam nele pelo protocolo interno ({@link PeerCacheClient}) e mantêm
+ * um near-cache pequeno e de vida curta. Assim a mesma pergunta chega à IA uma vez por cluster, não
+ * uma vez por réplica.
+ *
+ * <p>Réplicas com {@code cluster.peer-failure-threshold} falhas seguidas saem do anel por
+ * {@code cluster.peer-retry-ms}; só as chaves delas mudam de dono nesse intervalo. Sem cluster, é apenas o cache local (comportamento de uma réplica isolada).
+ *
+ * <p>As respostas vencidas (além de {@code response-cache.ttl-minutes}, dentro de
+ * {@code response-cache.grace-minutes}) continuam sendo devolvidas, marcadas em {@link CachedAnswer};
+ * o dono as repassa às demais réplicas com o cabeçalho {@link PeerCacheClient#STALE_HEADER}.
+ */
+@Component
+public class SharedResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedResponseCache.class);
+
+    private final ResponseCache local;
+    private final ResponseCache nearCache;
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final Duration peerTimeout;
+    private final long peerRetryNanos;
+    private final int failureThreshold;
+    private final long refreshRetryMillis;
+    private final PeerCacheClient client;
+    private final byte[] token;
+    private final ChatMetrics metrics;
+
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+    private final Map<String, Integer> consecutiveFailures = new ConcurrentHashMap<>();
+    private volatile List<String> configuredPeers;
+    private volatile ConsistentHashRing ring;
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+    private final LongAdder remoteStores = new LongAdder();
+
+    public SharedResponseCache(
+            @Value("${response-cache.max-entries:100}") int maxEntries,
+            @Value("${response-cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${response-cache.grace-minutes:120}") long graceMinutes,
+            @Value("${cache.refresh.retry-seconds:60}") long refreshRetrySeconds,
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.self:}") String self,
+            @Value("${cluster.peers:}") List<String> peers,
+            @Value("${cluster.virtual-nodes:160}") int virtualNodes,
+            @Value("${cluster.near-cache.max-entries:200}") int nearCacheMaxEntries,
+            @Value("${cluster.near-cache.ttl-seconds:60}") long nearCacheTtlSeconds,
+            @Value("${cluster.peer-timeout-ms:200}") long peerTimeoutMs,
+            @Value("${cluster.peer-retry-ms:5000}") long peerRetryMs,
+            @Value("${cluster.peer-failure-threshold:3}") int failureThreshold,
+            @Value("${cluster.token:}") String token,
+            ChatMetrics metrics) {
+        this.local = new ResponseCache(maxEntries, TimeUnit.MINUTES.toMillis(ttlMinutes),
+                TimeUnit.MINUTES.toMillis(graceMinutes));
+        this.refreshRetryMillis = TimeUnit.SECONDS.toMillis(refreshRetrySeconds);
+        this.nearCache = new ResponseCache(nearCacheMaxEntries, TimeUnit.SECONDS.toMillis(nearCacheTtlSeconds));
+        this.self = normalizePeer(self);
+        this.token = token == null ? new byte[0] : token.getBytes(StandardCharsets.UTF_8);
+        // Sem token o protocolo interno aceitaria gravações de qualquer cliente: o cluster não sobe
+        this.enabled = enabled && !this.self.isEmpty() && this.token.length > 0;
+        this.virtualNodes = virtualNodes;
+        this.peerTimeout = Duration.ofMillis(peerTimeoutMs);
+        this.peerRetryNanos = TimeUnit.MILLISECONDS.toNanos(peerRetryMs);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.client = this.enabled ? new PeerCacheClient(peerTimeout, token) : null;
+        this.metrics = metrics;
+        this.configuredPeers = withSelf(peers);
+        this.ring = new ConsistentHashRing(configuredPeers, virtualNodes);
+        if (enabled && this.self.isEmpty()) {
+            logger.warn("cluster.enabled=true sem cluster.self: cache compartilhado desativado.");
+        } else if (enabled && this.token.length == 0) {
+            logger.warn("cluster.enabled=true sem cluster.token: cache compartilhado desativado.");
+        } else if (this.enabled) {
+            logger.info("Cache de respostas compartilhado entre {} réplicas (esta: {}).", configuredPeers.size(), this.self);
+        }
+    }
+
+    // Cache apenas local (réplica isolada, TTL de 30 minutos sem tolerância), usado nos testes e benchmarks
+    public static SharedResponseCache standalone(int maxEntries, ChatMetrics metrics) {
+        return new SharedResponseCache(maxEntries, 30, 0, 60, false, "", List.of(), 1, 1, 1, 1, 1, 1, "", metrics);
+    }
+
+    // Resposta fresca ou vencida (dentro da tolerância), sem indicar qual
+    public EncodedAnswer get(String normalizedQuestion) {
+        CachedAnswer cached = lookup(normalizedQuestion);
+        return cached == null ? null : cached.answer();
+    }
+
+    public CachedAnswer lookup(String normalizedQuestion) {
+        CachedAnswer cached = local.lookup(normalizedQuestion);
+        if (cached != null || !enabled) {
+            return cached;
+        }
+        String owner = currentRing().owner(normalizedQuestion);
+        if (owner == null || owner.equals(self)) {
+            return null;
+        }
+        CachedAnswer near = nearCache.lookup(normalizedQuestion);
+        if (near != null) {
+            return near;
+        }
+        CachedAnswer remote = fetch(owner, normalizedQuestion);
+        metrics.recordCacheLookup(Cache.PEER, remote != null);
+        // Vencidas não vão para o near-cache: a próxima leitura volta ao dono e vê a versão atualizada
+        if (remote != null && !remote.stale()) {
+            nearCache.put(normalizedQuestion, remote.answer());
+        }
+        return remote;
+    }
+
+    public void put(String normalizedQuestion, EncodedAnswer answer) {
+        String owner = enabled ? currentRing().owner(normalizedQuestion) : null;
+        if (owner == null || owner.equals(self)) {
+            local.put(normalizedQuestion, answer);
+            return;
+        }
+        nearCache.put(normalizedQuestion, answer);
+        remoteStores.increment();
+        client.store(owner, normalizedQuestion, answer.json()).whenComplete((ignored, error) -> {
+            if (error != null) {
+                peerFailed(owner, error);
+            } else {
+                consecutiveFailures.remove(owner);
+            }
+        });
+    }
+
+    /**
+     * Atualização em segundo plano que falhou: a resposta vencida continua valendo. Só o dono guarda a
+     * entrada; nas demais réplicas não há o que prolongar (o dono a mantém até o fim da tolerância).
+     */
+    public void extend(String normalizedQuestion) {
+        String owner = enabled ? currentRing().owner(normalizedQuestion) : null;
+        if (owner == null || owner.equals(self)) {
+            local.extend(normalizedQuestion, refreshRetryMillis);
+        }
+    }
+
+    // Lado do dono no protocolo interno (InternalCacheController)
+    public EncodedAnswer getOwned(String normalizedQuestion) {
+        return local.get(normalizedQuestion);
+    }
+
+    public CachedAnswer lookupOwned(String normalizedQuestion) {
+        return local.lookup(normalizedQuestion);
+    }
+
+    public void putOwned(String normalizedQuestion, EncodedAnswer answer) {
+        local.put(normalizedQuestion, answer);
+    }
+
+    /**
+     * Token de uma chamada do protocolo interno ou da administração do cluster. Sem cluster ativo
+     * (e, portanto, sem token configurado) nenhuma chamada é aceita. Comparação em tempo constante.
+     */
+    public boolean acceptsToken(String presented) {
+        return enabled && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Substitui a lista de réplicas (entrada ou saída de nós); só ~1/N das chaves mudam de dono
+    public void updatePeers(List<String> peers) {
+        configuredPeers = withSelf(peers);
+        downUntil.keySet().retainAll(configuredPeers);
+        consecutiveFailures.keySet().retainAll(configuredPeers);
+        rebuildRing();
+        logger.info("Réplicas do cache compartilhado atualizadas: {}", configuredPeers);
+    }
+
+    public ClusterStats stats() {
+        return new ClusterStats(enabled, self, configuredPeers, currentRing().members(), local.size(), nearCache.size(),
+                remoteHits.sum(), remoteMisses.sum(), remoteErrors.sum(), remoteStores.sum());
+    }
+
+    private CachedAnswer fetch(String owner, String normalizedQuestion) {
+        Duration timeout = peerTimeout;
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            long remaining = deadline.remainingNanos();
+            if (remaining <= 0) {
+                return null;
+            }
+            timeout = Duration.ofNanos(Math.min(remaining, peerTimeout.toNanos()));
+        }
+        try {
+            PeerCacheClient.Entry entry = client.fetch(owner, normalizedQuestion, timeout);
+            consecutiveFailures.remove(owner);
+            if (entry == null) {
+                remoteMisses.increment();
+                return null;
+            }
+            remoteHits.increment();
+            return new CachedAnswer(EncodedAnswer.parse(entry.json()), entry.stale());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            peerFailed(owner, e);
+            return null;
+        }
+    }
+
+    // Após falhas seguidas a réplica sai do anel por um intervalo; as chaves dela passam aos sucessores
+    private void peerFailed(String peer, Throwable error) {
+        remoteErrors.increment();
+        if (consecutiveFailures.merge(peer, 1, Integer::sum) < failureThreshold) {
+            logger.debug("Falha ao acessar a réplica {}: {}", peer, error.toString());
+            return;
+        }
+        consecutiveFailures.remove(peer);
+        if (downUntil.put(peer, System.nanoTime() + peerRetryNanos) == null) {
+            logger.warn("Réplica {} indisponível para o cache compartilhado: {}", peer, error.toString());
+            rebuildRing();
+        }
+    }
+
+    private ConsistentHashRing currentRing() {
+        if (!downUntil.isEmpty()) {
+            long now = System.nanoTime();
+            if (downUntil.entrySet().removeIf(e -> now - e.getValue() >= 0)) {
+                rebuildRing();
+            }
+        }
+        return ring;
+    }
+
+    private void rebuildRing() {
+        List<String> alive = new ArrayList<>(configuredPeers);
+        alive.removeAll(downUntil.keySet());
+        ring = new ConsistentHashRing(alive, virtualNodes);
+    }
+
+    private List<String> withSelf(List<String> peers) {
+        Set<String> members = new LinkedHashSet<>();
+        if (!self.isEmpty()) {
+            members.add(self);
+        }
+        for (String peer : peers) {
+            String normalized = normalizePeer(peer);
+            if (!normalized.isEmpty()) {
+                members.add(normalized);
+            }
+        }
+        return List.copyOf(members);
+    }
+
+    private static String normalizePeer(String peer) {
+        return peer == null ? "" : peer.trim().replaceAll("/+$", "");
+    }
+
+    public record ClusterStats(boolean enabled, String self, List<String> peers, List<String> ring,
+                               int localEntries, int nearCacheEntries,
+                               long remoteHits, long remoteMisses, long remoteErrors, long remoteStores) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+/**
+ * Produto escalar de um vetor contra todas as linhas de uma matriz contígua (linha a linha,
+ * {@code rows x dimensions}). Há uma versão escalar e uma SIMD ({@code jdk.incubator.vector}).
+ */
+interface SimilarityKernel {
+
+    void scores(float[] matrix, int rows, int dimensions, float[] query, float[] out);
+
+    String name();
+
+    /**
+     * A versão SIMD quando o módulo {@code jdk.incubator.vector} foi carregado
+     * ({@code --add-modules jdk.incubator.vector}); caso contrário, a escalar.
+     */
+    static SimilarityKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorSimilarityKernel();
+            } catch (LinkageError e) {
+                return new ScalarSimilarityKernel();
+            }
+        }
+        return new ScalarSimilarityKernel();
+    }
+}
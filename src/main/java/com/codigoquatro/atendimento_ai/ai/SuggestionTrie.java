@@ -0,0 +1,230 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Trie imutável para o autocompletar de perguntas: dado um prefixo normalizado, devolve as frases
+ * mais frequentes que começam com ele.
+ *
+ * <p>Os nós ficam achatados em arrays, em ordem de largura: os filhos de um nó são contíguos e
+ * ordenados pelo caractere, então descer um nível é uma busca binária em {@code labels}. Cada nó
+ * guarda as {@code maxPerNode} frases de maior peso da sua subárvore, calculadas na construção;
+ * a consulta percorre o prefixo e copia essa lista, sem visitar a subárvore. As frases já ficam
+ * codificadas como JSON ({@link EncodedAnswer}) para a resposta HTTP.
+ *
+ * <p>Construída por inteiro a cada atualização e trocada por referência; nunca é alterada.
+ */
+public final class SuggestionTrie {
+
+    private static final SuggestionTrie EMPTY = build(List.of(), 1);
+
+    // Nó n: caractere da aresta que chega nele em labels[n]; filhos em [firstChild[n], firstChild[n + 1])
+    private final char[] labels;
+    private final int[] firstChild;
+    // Frases do nó n em top[topStart[n]] .. top[topStart[n + 1] - 1], da mais pesada para a mais leve
+    private final int[] topStart;
+    private final int[] top;
+    private final EncodedAnswer[] phrases;
+    private final long[] weights;
+    private final int maxPerNode;
+
+    private SuggestionTrie(char[] labels, int[] firstChild, int[] topStart, int[] top,
+                           EncodedAnswer[] phrases, long[] weights, int maxPerNode) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.topStart = topStart;
+        this.top = top;
+        this.phrases = phrases;
+        this.weights = weights;
+        this.maxPerNode = maxPerNode;
+    }
+
+    public static SuggestionTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Monta a trie. Frases com a mesma chave normalizada entram uma vez só (a de maior peso); no
+     * empate de peso vence a frase mais curta e depois a ordem alfabética.
+     */
+    public static SuggestionTrie build(List<Suggestion> suggestions, int maxPerNode) {
+        List<Suggestion> ranked = new ArrayList<>(suggestions);
+        ranked.sort(Comparator.comparingLong(Suggestion::weight).reversed()
+                .thenComparingInt(s -> s.text().length())
+                .thenComparing(Suggestion::text));
+
+        // Inserção em ordem de peso: cada nó do caminho aceita a frase enquanto tiver vaga
+        BuildNode root = new BuildNode('\0', maxPerNode);
+        List<EncodedAnswer> phrases = new ArrayList<>();
+        List<Long> weights = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        int nodes = 1;
+        for (Suggestion suggestion : ranked) {
+            String key = QuestionNormalizer.normalize(suggestion.text());
+            if (key.isEmpty() || !keys.add(key)) continue;
+            int id = phrases.size();
+            phrases.add(EncodedAnswer.of(suggestion.text().trim()));
+            weights.add(suggestion.weight());
+            BuildNode node = root;
+            node.offer(id);
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                BuildNode child = node.children.get(c);
+                if (child == null) {
+                    child = new BuildNode(c, maxPerNode);
+                    node.children.put(c, child);
+                    nodes++;
+                }
+                child.offer(id);
+                node = child;
+            }
+        }
+
+        // Achatamento em largura: os filhos de cada nó recebem ids consecutivos
+        char[] labels = new char[nodes];
+        int[] firstChild = new int[nodes + 1];
+        int[] topStart = new int[nodes + 1];
+        int[] top = new int[countTop(root)];
+        ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        int next = 1;
+        int topOffset = 0;
+        for (int n = 0; n < nodes; n++) {
+            BuildNode node = queue.poll();
+            labels[n] = node.label;
+            firstChild[n] = next;
+            for (BuildNode child : node.children.values()) {
+                queue.add(child);
+                next++;
+            }
+            topStart[n] = topOffset;
+            System.arraycopy(node.top, 0, top, topOffset, node.size);
+            topOffset += node.size;
+        }
+        firstChild[nodes] = next;
+        topStart[nodes] = topOffset;
+
+        long[] weightArray = new long[weights.size()];
+        for (int i = 0; i < weightArray.length; i++) weightArray[i] = weights.get(i);
+        return new SuggestionTrie(labels, firstChild, topStart, top,
+                phrases.toArray(new EncodedAnswer[0]), weightArray, maxPerNode);
+    }
+
+    private static int countTop(BuildNode root) {
+        int total = 0;
+        ArrayDeque<BuildNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BuildNode node = stack.pop();
+            total += node.size;
+            node.children.values().forEach(stack::push);
+        }
+        return total;
+    }
+
+    /**
+     * Até {@code limit} frases (no máximo {@code maxPerNode}) que começam com o prefixo, da mais
+     * frequente para a menos frequente. O prefixo já deve estar normalizado
+     * ({@link QuestionNormalizer#normalize}).
+     */
+    public List<EncodedAnswer> complete(CharSequence normalizedPrefix, int limit) {
+        int node = find(normalizedPrefix);
+        if (node < 0 || limit <= 0) {
+            return List.of();
+        }
+        int from = topStart[node];
+        int to = Math.min(topStart[node + 1], from + limit);
+        List<EncodedAnswer> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(phrases[top[i]]);
+        }
+        return result;
+    }
+
+    // Nó do prefixo, ou -1 se nenhuma frase começa com ele
+    private int find(CharSequence prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int low = firstChild[node];
+            int high = firstChild[node + 1] - 1;
+            char c = prefix.charAt(i);
+            node = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = labels[mid];
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    node = mid;
+                    break;
+                }
+            }
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    public int size() {
+        return phrases.length;
+    }
+
+    public int nodes() {
+        return labels.length;
+    }
+
+    public int maxPerNode() {
+        return maxPerNode;
+    }
+
+    // Peso da frase mais frequente (0 se vazia); usado nas estatísticas
+    public long maxWeight() {
+        return weights.length == 0 ? 0 : weights[0];
+    }
+
+    // Tamanho aproximado dos arrays da trie (sem contar o cabeçalho dos objetos)
+    public long sizeInBytes() {
+        long bytes = (long) labels.length * Character.BYTES
+                + (long) (firstChild.length + topStart.length + top.length) * Integer.BYTES
+                + (long) weights.length * Long.BYTES;
+        for (EncodedAnswer phrase : phrases) {
+            bytes += phrase.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Frase candidata e seu peso (frequência). O texto é devolvido como está; a chave da trie é o
+     * texto normalizado.
+     */
+    public record Suggestion(String text, long weight) {
+    }
+
+    private static final class BuildNode {
+
+        private final char label;
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final int[] top;
+        private int size;
+
+        private BuildNode(char label, int maxPerNode) {
+            this.label = label;
+            this.top = new int[maxPerNode];
+        }
+
+        private void offer(int phrase) {
+            if (size < top.length) {
+                top[size++] = phrase;
+            }
+        }
+    }
+}
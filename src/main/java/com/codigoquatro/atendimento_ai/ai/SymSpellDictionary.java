@@ -0,0 +1,135 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dicionário de correção ortográfica no estilo SymSpell: para cada palavra do vocabulário são
+ * pré-calculadas todas as variantes com até {@code maxDistance} letras apagadas. Na consulta,
+ * apagam-se letras da palavra digitada e as variantes são procuradas no mapa; só os candidatos
+ * encontrados passam pela distância de edição. O custo por palavra depende do tamanho dela e não
+ * do vocabulário.
+ *
+ * <p>Imutável; um novo vocabulário gera um novo dicionário.
+ */
+final class SymSpellDictionary {
+
+    private final Map<String, Integer> frequencies;
+    private final Map<String, String[]> deletes;
+    private final int maxDistance;
+
+    private SymSpellDictionary(Map<String, Integer> frequencies, Map<String, String[]> deletes, int maxDistance) {
+        this.frequencies = frequencies;
+        this.deletes = deletes;
+        this.maxDistance = maxDistance;
+    }
+
+    // frequencies: palavra (já normalizada) -> número de ocorrências nas fontes do vocabulário
+    static SymSpellDictionary build(Map<String, Integer> frequencies, int maxDistance) {
+        Map<String, List<String>> index = new HashMap<>();
+        for (String word : frequencies.keySet()) {
+            for (String variant : variants(word, maxDistance)) {
+                index.computeIfAbsent(variant, k -> new ArrayList<>(1)).add(word);
+            }
+        }
+        Map<String, String[]> deletes = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((variant, words) -> deletes.put(variant, words.toArray(String[]::new)));
+        return new SymSpellDictionary(Map.copyOf(frequencies), deletes, maxDistance);
+    }
+
+    int size() {
+        return frequencies.size();
+    }
+
+    boolean contains(String word) {
+        return frequencies.containsKey(word);
+    }
+
+    /**
+     * Palavra do vocabulário mais próxima, com distância de até {@code maxDistance} (limitada também
+     * pelo tamanho da palavra); empate pela frequência e depois pela ordem alfabética. Sem
+     * candidato, devolve a própria palavra.
+     */
+    String correct(String word, int maxDistance) {
+        int limit = Math.min(maxDistance, this.maxDistance);
+        if (limit <= 0 || frequencies.containsKey(word)) {
+            return word;
+        }
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestFrequency = 0;
+        Set<String> checked = new HashSet<>();
+        for (String variant : variants(word, limit)) {
+            String[] candidates = deletes.get(variant);
+            if (candidates == null) continue;
+            for (String candidate : candidates) {
+                if (!checked.add(candidate) || Math.abs(candidate.length() - word.length()) > limit) continue;
+                int distance = distance(word, candidate, limit);
+                if (distance > limit) continue;
+                int frequency = frequencies.get(candidate);
+                if (distance < bestDistance
+                        || (distance == bestDistance && (frequency > bestFrequency
+                        || (frequency == bestFrequency && candidate.compareTo(best) < 0)))) {
+                    best = candidate;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return best != null ? best : word;
+    }
+
+    // A palavra e todas as variantes com 1..maxDistance letras apagadas
+    private static Set<String> variants(String word, int maxDistance) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = List.of(word);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                if (current.length() <= 1) continue;
+                for (int i = 0; i < current.length(); i++) {
+                    String deleted = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    // Damerau-Levenshtein restrita (transposição de letras vizinhas conta 1), abandonada acima do limite
+    static int distance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) return limit + 1;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+}
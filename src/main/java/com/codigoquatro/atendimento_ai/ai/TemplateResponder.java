@@ -0,0 +1,177 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Respostas locais por faixa de confiança, sem passar pela OpenRouter:
+ * <ul>
+ *   <li>correspondência de alta confiança na base de conhecimento: devolve a resposta cadastrada;</li>
+ *   <li>pergunta de busca de produto ("onde compro X") com um resultado claro da raspagem:
+ *       monta a lista de produtos a partir de um template HTML fixo;</li>
+ *   <li>demais perguntas (baixa confiança): seguem para a IA.</li>
+ * </ul>
+ * Os limiares são configuráveis e a taxa de desvio da IA fica disponível em {@link #stats()}.
+ */
+@Component
+public class TemplateResponder {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+
+    // Termos que indicam uma pergunta de localização de produto, e não uma dúvida técnica
+    private static final Set<String> LOOKUP_TERMS = Set.of(
+            "onde", "compro", "comprar", "encontrar", "encontro", "acho", "procuro", "procurando",
+            "vende", "vendem", "tem", "quero", "preciso", "link"
+    );
+
+    // Palavras que não identificam o produto procurado
+    private static final Set<String> STOP_WORDS = Set.of(
+            "onde", "compro", "comprar", "encontrar", "encontro", "acho", "procuro", "procurando",
+            "vende", "vendem", "tem", "quero", "preciso", "link", "voces", "voce", "para", "com",
+            "uma", "um", "de", "do", "da", "dos", "das", "o", "a", "os", "as", "e", "no", "na",
+            "produto", "produtos", "preco", "valor", "custo", "quanto", "custa", "loja", "ai", "ja"
+    );
+
+    private static final String STORE_LINK =
+            "<a href=\"https://smcomponentes.com.br/loja\" target=\"_blank\">catálogo completo</a>";
+
+    private final int maxKnowledgeDistance;
+    private final double minKnowledgeSimilarity;
+    private final double minKnowledgeCosine;
+    private final double minProductScore;
+    private final int maxProductItems;
+    private final int maxProductQueryTerms;
+
+    private final LongAdder knowledgeBaseAnswers = new LongAdder();
+    private final LongAdder productTemplateAnswers = new LongAdder();
+    private final LongAdder llmAnswers = new LongAdder();
+
+    public TemplateResponder(
+            @Value("${responder.kb.max-distance:5}") int maxKnowledgeDistance,
+            @Value("${responder.kb.min-similarity:0.90}") double minKnowledgeSimilarity,
+            @Value("${responder.kb.min-cosine:0.85}") double minKnowledgeCosine,
+            @Value("${responder.product.min-score:0.6}") double minProductScore,
+            @Value("${responder.product.max-items:3}") int maxProductItems,
+            @Value("${responder.product.max-query-terms:4}") int maxProductQueryTerms) {
+        this.maxKnowledgeDistance = maxKnowledgeDistance;
+        this.minKnowledgeSimilarity = minKnowledgeSimilarity;
+        this.minKnowledgeCosine = minKnowledgeCosine;
+        this.minProductScore = minProductScore;
+        this.maxProductItems = maxProductItems;
+        this.maxProductQueryTerms = maxProductQueryTerms;
+    }
+
+    // Correspondência na base de conhecimento confiável o bastante para dispensar a IA
+    public boolean isConfidentKnowledgeMatch(int distance, double similarity) {
+        return distance <= maxKnowledgeDistance || similarity >= minKnowledgeSimilarity;
+    }
+
+    // Mesmo critério para o modo de busca por vetores (cosseno entre os vetores de n-gramas)
+    public boolean isConfidentEmbeddingMatch(double cosine) {
+        return cosine >= minKnowledgeCosine;
+    }
+
+    /**
+     * Monta a resposta de produtos a partir do template quando a pergunta é uma busca simples e
+     * há ao menos um produto com pontuação acima do limiar. Retorna null caso contrário.
+     */
+    public String renderProducts(String question, List<Product> products) {
+        if (products.isEmpty()) {
+            return null;
+        }
+        List<String> words = tokenize(question);
+        List<String> terms = new ArrayList<>(words.size());
+        boolean lookup = false;
+        for (String word : words) {
+            if (LOOKUP_TERMS.contains(word)) lookup = true;
+            if (!STOP_WORDS.contains(word) && word.length() > 1) terms.add(word);
+        }
+        // Perguntas longas ou sem termo de busca costumam ser dúvidas técnicas: ficam com a IA
+        if (terms.isEmpty() || terms.size() > maxProductQueryTerms || (!lookup && terms.size() > 2)) {
+            return null;
+        }
+
+        List<RankedProduct> ranked = new ArrayList<>();
+        for (Product product : products) {
+            double score = score(terms, product.getName());
+            if (score >= minProductScore) {
+                ranked.add(new RankedProduct(product, score));
+            }
+        }
+        if (ranked.isEmpty()) {
+            return null;
+        }
+        ranked.sort(Comparator.comparingDouble(RankedProduct::score).reversed());
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Encontrei estes produtos na SM Componentes para você: 😊<br>\n<ul>\n");
+        for (int i = 0; i < Math.min(maxProductItems, ranked.size()); i++) {
+            Product product = ranked.get(i).product();
+            sb.append("<li><a href=\"").append(HtmlUtils.htmlEscape(product.getProductUrl()))
+                    .append("\" target=\"_blank\">").append(HtmlUtils.htmlEscape(product.getName()))
+                    .append("</a> (Categoria: ").append(HtmlUtils.htmlEscape(product.getCategory()))
+                    .append(")</li>\n");
+        }
+        sb.append("</ul>\nSe não for exatamente o que procura, confira o ").append(STORE_LINK).append('.');
+        return sb.toString();
+    }
+
+    public void recordKnowledgeBaseAnswer() {
+        knowledgeBaseAnswers.increment();
+    }
+
+    public void recordProductTemplateAnswer() {
+        productTemplateAnswers.increment();
+    }
+
+    public void recordLlmAnswer() {
+        llmAnswers.increment();
+    }
+
+    public ResponderStats stats() {
+        long kb = knowledgeBaseAnswers.sum();
+        long product = productTemplateAnswers.sum();
+        long llm = llmAnswers.sum();
+        long total = kb + product + llm;
+        double bypassRate = total == 0 ? 0 : (double) (kb + product) / total;
+        return new ResponderStats(kb, product, llm, bypassRate);
+    }
+
+    // Fração dos termos da pergunta presentes no nome do produto
+    private static double score(List<String> terms, String productName) {
+        Set<String> nameWords = new HashSet<>(tokenize(productName));
+        int matched = 0;
+        for (String term : terms) {
+            if (nameWords.contains(term)) matched++;
+        }
+        return (double) matched / terms.size();
+    }
+
+    private static List<String> tokenize(String text) {
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(folded)) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    private record RankedProduct(Product product, double score) {
+    }
+
+    public record ResponderStats(long knowledgeBaseAnswers, long productTemplateAnswers, long llmAnswers,
+                                 double bypassRate) {
+    }
+}
@@ -0,0 +1,280 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Orçamento de tokens das chamadas à IA. Cada resposta da OpenRouter é registrada com o bloco
+ * {@code usage} (tokens do prompt e da resposta) e a latência, em janelas deslizantes por
+ * intenção, por modelo e no total. Antes de cada chamada o governador devolve um
+ * {@link TokenPlan}: o {@code max_tokens} e o tamanho do contexto e do histórico do prompt.
+ *
+ * <p>O fator de ajuste é o menor entre orçamento/consumo (tokens por minuto na janela) e
+ * SLO/latência média da janela, limitado a 1. Ao passar do orçamento ou do SLO o aperto é
+ * imediato; com folga (ou sem chamadas, quando a janela esvazia) o fator volta a 1 aos poucos,
+ * ao longo de {@code relax-seconds}. O {@code max_tokens} nunca fica abaixo de {@code min-tokens}.
+ *
+ * <p>O aperto segue a prioridade das intenções ({@link QuestionIntent}): perguntas gerais recebem
+ * o fator inteiro, suporte e produto uma fração dele (fator elevado a 2/3 e 1/3).
+ */
+@Component
+public class TokenBudgetGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBudgetGovernor.class);
+
+    private final boolean enabled;
+    private final long tokensPerMinute;
+    private final long latencySloNanos;
+    private final int maxTokens;
+    private final int minTokens;
+    private final int maxContextChars;
+    private final int maxHistoryChars;
+    private final long relaxNanos;
+    private final int windowSeconds;
+    private final LongSupplier clock;
+
+    private final RollingWindow total;
+    private final Map<QuestionIntent, RollingWindow> intents = new EnumMap<>(QuestionIntent.class);
+    private final Map<String, RollingWindow> models = new ConcurrentHashMap<>();
+
+    private double factor = 1.0;
+    private long factorUpdatedAt;
+
+    @Autowired
+    public TokenBudgetGovernor(
+            @Value("${llm.governor.enabled:true}") boolean enabled,
+            @Value("${llm.governor.tokens-per-minute:60000}") long tokensPerMinute,
+            @Value("${llm.governor.latency-slo-ms:8000}") long latencySloMs,
+            @Value("${llm.governor.max-tokens:800}") int maxTokens,
+            @Value("${llm.governor.min-tokens:250}") int minTokens,
+            @Value("${llm.governor.max-context-chars:4000}") int maxContextChars,
+            @Value("${llm.governor.max-history-chars:1600}") int maxHistoryChars,
+            @Value("${llm.governor.relax-seconds:30}") int relaxSeconds,
+            @Value("${llm.governor.window-seconds:60}") int windowSeconds) {
+        this(enabled, tokensPerMinute, latencySloMs, maxTokens, minTokens, maxContextChars, maxHistoryChars,
+                relaxSeconds, windowSeconds, System::nanoTime);
+    }
+
+    // clock: relógio em nanos (System.nanoTime nos testes de integração, manual nos unitários)
+    TokenBudgetGovernor(boolean enabled, long tokensPerMinute, long latencySloMs, int maxTokens, int minTokens,
+                        int maxContextChars, int maxHistoryChars, int relaxSeconds, int windowSeconds,
+                        LongSupplier clock) {
+        this.enabled = enabled;
+        this.tokensPerMinute = tokensPerMinute;
+        this.latencySloNanos = TimeUnit.MILLISECONDS.toNanos(latencySloMs);
+        this.maxTokens = maxTokens;
+        this.minTokens = Math.min(minTokens, maxTokens);
+        this.maxContextChars = maxContextChars;
+        this.maxHistoryChars = maxHistoryChars;
+        this.relaxNanos = TimeUnit.SECONDS.toNanos(Math.max(1, relaxSeconds));
+        this.windowSeconds = windowSeconds;
+        this.clock = clock;
+        this.total = new RollingWindow(windowSeconds);
+        for (QuestionIntent intent : QuestionIntent.values()) {
+            intents.put(intent, new RollingWindow(windowSeconds));
+        }
+        this.factorUpdatedAt = clock.getAsLong();
+    }
+
+    /**
+     * Limites da próxima chamada. Desativado, devolve sempre os limites máximos configurados.
+     */
+    public TokenPlan plan(QuestionIntent intent) {
+        return planFor(intent, enabled ? currentFactor() : 1.0);
+    }
+
+    private TokenPlan planFor(QuestionIntent intent, double globalFactor) {
+        double exponent = (double) (intent.ordinal() + 1) / QuestionIntent.values().length;
+        double intentFactor = Math.pow(globalFactor, exponent);
+        int tokens = Math.max(minTokens, (int) Math.round(maxTokens * intentFactor));
+        return new TokenPlan(tokens, scaled(maxContextChars, intentFactor), scaled(maxHistoryChars, intentFactor),
+                intentFactor);
+    }
+
+    /**
+     * Registra uma resposta da IA. {@code model} é o modelo informado na resposta (a OpenRouter
+     * pode rotear para outro); {@code truncated} indica {@code finish_reason = "length"}.
+     */
+    public void record(QuestionIntent intent, String model, TokenUsage usage, long latencyNanos, boolean truncated) {
+        long now = clock.getAsLong();
+        total.add(now, usage, latencyNanos, truncated);
+        intents.get(intent).add(now, usage, latencyNanos, truncated);
+        models.computeIfAbsent(model, m -> new RollingWindow(windowSeconds)).add(now, usage, latencyNanos, truncated);
+    }
+
+    // Aperta na hora e relaxa linearmente em relaxNanos até o alvo
+    private synchronized double currentFactor() {
+        long now = clock.getAsLong();
+        double target = targetFactor(total.snapshot(now));
+        double previous = factor;
+        if (target <= factor) {
+            factor = target;
+        } else {
+            double step = (double) (now - factorUpdatedAt) / relaxNanos;
+            factor = Math.min(target, factor + step);
+        }
+        factorUpdatedAt = now;
+        if (factor < 1.0 && previous == 1.0) {
+            logger.info("Orçamento de tokens apertado: fator {} (tokens/min ou latência acima do alvo).",
+                    String.format("%.2f", factor));
+        }
+        return factor;
+    }
+
+    private double targetFactor(UsageStats window) {
+        if (window.calls() == 0) {
+            return 1.0;
+        }
+        double target = 1.0;
+        double usedPerMinute = window.tokensPerMinute();
+        if (usedPerMinute > tokensPerMinute) {
+            target = tokensPerMinute / usedPerMinute;
+        }
+        double averageLatencyNanos = window.averageLatencyMs() * TimeUnit.MILLISECONDS.toNanos(1);
+        if (averageLatencyNanos > latencySloNanos) {
+            target = Math.min(target, latencySloNanos / averageLatencyNanos);
+        }
+        return target;
+    }
+
+    private static int scaled(int value, double factor) {
+        return (int) Math.round(value * factor);
+    }
+
+    public GovernorStats stats() {
+        long now = clock.getAsLong();
+        double current = enabled ? currentFactor() : 1.0;
+        Map<QuestionIntent, UsageStats> intentStats = new EnumMap<>(QuestionIntent.class);
+        intents.forEach((intent, window) -> intentStats.put(intent, window.snapshot(now)));
+        Map<QuestionIntent, TokenPlan> plans = new EnumMap<>(QuestionIntent.class);
+        for (QuestionIntent intent : QuestionIntent.values()) {
+            plans.put(intent, planFor(intent, current));
+        }
+        Map<String, UsageStats> modelStats = new TreeMap<>();
+        models.forEach((model, window) -> modelStats.put(model, window.snapshot(now)));
+        return new GovernorStats(enabled, current, tokensPerMinute, TimeUnit.NANOSECONDS.toMillis(latencySloNanos),
+                total.snapshot(now), plans, intentStats, modelStats);
+    }
+
+    /**
+     * Janela deslizante de {@code seconds} baldes de um segundo; baldes antigos são zerados ao
+     * serem reaproveitados. Sincronizada: só é tocada uma vez por chamada à IA.
+     */
+    private static final class RollingWindow {
+
+        private final int seconds;
+        private final long[] epochs;
+        private final long[] calls;
+        private final long[] promptTokens;
+        private final long[] completionTokens;
+        private final long[] latencyNanos;
+        private final long[] truncated;
+
+        private RollingWindow(int seconds) {
+            this.seconds = seconds;
+            this.epochs = new long[seconds];
+            this.calls = new long[seconds];
+            this.promptTokens = new long[seconds];
+            this.completionTokens = new long[seconds];
+            this.latencyNanos = new long[seconds];
+            this.truncated = new long[seconds];
+            Arrays.fill(epochs, Long.MIN_VALUE);
+        }
+
+        private synchronized void add(long nowNanos, TokenUsage usage, long latency, boolean wasTruncated) {
+            long epoch = TimeUnit.NANOSECONDS.toSeconds(nowNanos);
+            int slot = (int) Math.floorMod(epoch, (long) seconds);
+            if (epochs[slot] != epoch) {
+                epochs[slot] = epoch;
+                calls[slot] = 0;
+                promptTokens[slot] = 0;
+                completionTokens[slot] = 0;
+                latencyNanos[slot] = 0;
+                truncated[slot] = 0;
+            }
+            calls[slot]++;
+            promptTokens[slot] += usage.promptTokens();
+            completionTokens[slot] += usage.completionTokens();
+            latencyNanos[slot] += latency;
+            if (wasTruncated) truncated[slot]++;
+        }
+
+        private synchronized UsageStats snapshot(long nowNanos) {
+            long epoch = TimeUnit.NANOSECONDS.toSeconds(nowNanos);
+            long callSum = 0;
+            long promptSum = 0;
+            long completionSum = 0;
+            long latencySum = 0;
+            long truncatedSum = 0;
+            for (int i = 0; i < seconds; i++) {
+                if (epoch - epochs[i] < seconds) {
+                    callSum += calls[i];
+                    promptSum += promptTokens[i];
+                    completionSum += completionTokens[i];
+                    latencySum += latencyNanos[i];
+                    truncatedSum += truncated[i];
+                }
+            }
+            double averageLatencyMs = callSum == 0 ? 0 : (double) latencySum / callSum / TimeUnit.MILLISECONDS.toNanos(1);
+            double tokensPerMinute = (double) (promptSum + completionSum) * 60 / seconds;
+            return new UsageStats(callSum, promptSum, completionSum, tokensPerMinute, averageLatencyMs, truncatedSum);
+        }
+    }
+
+    /**
+     * Tokens de uma chamada. {@code estimated} indica que a resposta veio sem o bloco
+     * {@code usage} e os valores foram estimados pelo tamanho do texto (~4 caracteres por token).
+     */
+    public record TokenUsage(int promptTokens, int completionTokens, boolean estimated) {
+
+        static TokenUsage estimate(String prompt, String completion) {
+            return new TokenUsage(prompt.length() / 4 + 1, completion.length() / 4 + 1, true);
+        }
+    }
+
+    /**
+     * Limites de uma chamada: {@code max_tokens} enviado à IA e tamanho máximo (em caracteres)
+     * do contexto e do histórico incluídos no prompt.
+     */
+    public record TokenPlan(int maxTokens, int maxContextChars, int maxHistoryChars, double factor) {
+
+        // Mantém o início do contexto (entradas mais relevantes primeiro), cortando em fim de linha
+        String limitContext(String context) {
+            if (context.length() <= maxContextChars) {
+                return context;
+            }
+            int cut = context.lastIndexOf('\n', maxContextChars);
+            return context.substring(0, cut > 0 ? cut : maxContextChars).trim();
+        }
+
+        // Mantém o fim do histórico (turnos mais recentes), cortando em início de linha
+        String limitHistory(String history) {
+            if (history.length() <= maxHistoryChars) {
+                return history;
+            }
+            int from = history.length() - maxHistoryChars;
+            int cut = history.indexOf('\n', from);
+            return cut < 0 ? "" : history.substring(cut + 1);
+        }
+    }
+
+    public record UsageStats(long calls, long promptTokens, long completionTokens, double tokensPerMinute,
+                             double averageLatencyMs, long truncated) {
+    }
+
+    public record GovernorStats(boolean enabled, double factor, long budgetTokensPerMinute, long latencySloMs,
+                                UsageStats window, Map<QuestionIntent, TokenPlan> plans,
+                                Map<QuestionIntent, UsageStats> intents, Map<String, UsageStats> models) {
+    }
+}
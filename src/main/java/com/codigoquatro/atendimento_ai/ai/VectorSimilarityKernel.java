@@ -0,0 +1,41 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Produto escalar com a Vector API: multiplica-e-soma (FMA) na largura SIMD preferida da CPU
+ * (ex.: 16 floats com AVX-512) e reduz as lanes no fim de cada linha. Só é carregada quando o
+ * módulo incubador está presente (ver {@link SimilarityKernel#best()}).
+ */
+final class VectorSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void scores(float[] matrix, int rows, int dimensions, float[] query, float[] out) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(dimensions);
+        for (int row = 0; row < rows; row++) {
+            int base = row * dimensions;
+            FloatVector acc = FloatVector.zero(SPECIES);
+            int k = 0;
+            for (; k < bound; k += step) {
+                FloatVector m = FloatVector.fromArray(SPECIES, matrix, base + k);
+                FloatVector q = FloatVector.fromArray(SPECIES, query, k);
+                acc = m.fma(q, acc);
+            }
+            float sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; k < dimensions; k++) {
+                sum += matrix[base + k] * query[k];
+            }
+            out[row] = sum;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
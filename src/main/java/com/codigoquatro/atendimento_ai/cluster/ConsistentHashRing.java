@@ -0,0 +1,74 @@
+package com.codigoquatro.atendimento_ai.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Anel de hash consistente imutável. Cada membro ocupa {@code virtualNodes} pontos do anel e a
+ * chave pertence ao primeiro ponto no sentido horário. Com N membros, a entrada ou saída de um
+ * deles muda o dono de aproximadamente 1/N das chaves; as demais continuam onde estavam.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.members = List.copyOf(members);
+        int total = this.members.size() * virtualNodes;
+        long[][] ring = new long[total][2];
+        int n = 0;
+        for (int m = 0; m < this.members.size(); m++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                ring[n][0] = hash(this.members.get(m) + "#" + v);
+                ring[n][1] = m;
+                n++;
+            }
+        }
+        Arrays.sort(ring, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[total];
+        this.owners = new String[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = ring[i][0];
+            owners[i] = this.members.get((int) ring[i][1]);
+        }
+    }
+
+    public List<String> members() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    // Dono da chave (null com o anel vazio)
+    public String owner(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // FNV-1a de 64 bits seguido da finalização do MurmurHash3 para espalhar bem chaves parecidas
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,82 @@
+package com.codigoquatro.atendimento_ai.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cliente do protocolo interno de cache entre réplicas: {@code GET /internal/cache?key=...} devolve
+ * a resposta guardada pelo dono (200 com os bytes, 404 se ausente) e {@code PUT} grava. O corpo é o
+ * literal JSON UTF-8 da resposta, sem envelope, pronto para ser devolvido ao cliente. Respostas
+ * vencidas (ainda na janela de tolerância do dono) vêm com {@value #STALE_HEADER}{@code : true}.
+ */
+public class PeerCacheClient {
+
+    public static final String PATH = "/internal/cache";
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String STALE_HEADER = "X-Cache-Stale";
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final String token;
+
+    public PeerCacheClient(Duration timeout, String token) {
+        this.timeout = timeout;
+        this.token = token == null ? "" : token;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Busca a chave no dono; devolve null se o dono não a tiver.
+     *
+     * @throws IOException em falha de comunicação ou status inesperado
+     */
+    public Entry fetch(String peer, String key, Duration requestTimeout) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(
+                request(peer, key, requestTimeout).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Réplica " + peer + " respondeu " + response.statusCode());
+        }
+        boolean stale = response.headers().firstValue(STALE_HEADER).map(Boolean::parseBoolean).orElse(false);
+        return new Entry(response.body(), stale);
+    }
+
+    // Gravação assíncrona no dono; a falha chega pelo futuro
+    public CompletableFuture<Void> store(String peer, String key, byte[] value) {
+        HttpRequest request = request(peer, key, timeout)
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(value))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenAccept(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("Réplica " + peer + " respondeu " + response.statusCode());
+                    }
+                });
+    }
+
+    public record Entry(byte[] json, boolean stale) {
+    }
+
+    private HttpRequest.Builder request(String peer, String key, Duration requestTimeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+                        URI.create(peer + PATH + "?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8)))
+                .timeout(requestTimeout);
+        if (!token.isEmpty()) {
+            builder.header(TOKEN_HEADER, token);
+        }
+        return builder;
+    }
+}
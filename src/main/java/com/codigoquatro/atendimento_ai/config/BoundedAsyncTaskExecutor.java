@@ -0,0 +1,60 @@
+package com.codigoquatro.atendimento_ai.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor de uma thread por tarefa (virtual threads em {@link ExecutorConfig}) com os mesmos
+ * limites do pool de plataforma: no máximo {@code concurrency} tarefas rodando e
+ * {@code queueCapacity} esperando vaga. Acima disso {@code execute}/{@code submit} lançam
+ * {@link TaskRejectedException}, como o pool com a fila cheia, para que o lote, a busca de
+ * produtos e a atualização em segundo plano continuem tratando a sobrecarga.
+ *
+ * <p>A espera por vaga acontece dentro da tarefa, na thread dela: quem submete nunca bloqueia.
+ */
+final class BoundedAsyncTaskExecutor extends SimpleAsyncTaskExecutor {
+
+    private final Semaphore running;
+    // Tarefas aceitas e ainda não terminadas (rodando + esperando vaga)
+    private final Semaphore admitted;
+    private final int concurrency;
+    private final int queueCapacity;
+
+    BoundedAsyncTaskExecutor(String threadNamePrefix, int concurrency, int queueCapacity) {
+        super(threadNamePrefix);
+        this.concurrency = Math.max(1, concurrency);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.running = new Semaphore(this.concurrency);
+        this.admitted = new Semaphore((int) Math.min(Integer.MAX_VALUE, (long) this.concurrency + this.queueCapacity));
+    }
+
+    @Override
+    protected void doExecute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException("Executor " + getThreadNamePrefix() + " cheio: " + concurrency
+                    + " tarefas rodando e " + queueCapacity + " esperando");
+        }
+        try {
+            super.doExecute(() -> {
+                try {
+                    running.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    admitted.release();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    running.release();
+                    admitted.release();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            admitted.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.codigoquatro.atendimento_ai.config;
+
+import com.codigoquatro.atendimento_ai.ai.RequestDeadline;
+import com.codigoquatro.atendimento_ai.metrics.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executores limitados usados para paralelizar chamadas bloqueantes (OpenRouter, scraping).
+ *
+ * <p>Com {@code spring.threads.virtual.enabled=true} em Java 21+, cada tarefa roda em uma
+ * virtual thread e os limites passam a ser semáforos ({@link BoundedAsyncTaskExecutor}): o de
+ * concorrência e o de tarefas esperando, que rejeita o excesso como a fila cheia do pool; caso
+ * contrário, usa um pool de threads de plataforma com fila limitada.
+ *
+ * <p>Em ambos os modos o prazo da requisição ({@link RequestDeadline}) e o rastreamento
+ * ({@link RequestTrace}) de quem submete a tarefa são propagados para a thread que a executa,
+ * exceto no executor de atualizações em segundo plano, que roda depois da resposta ao cliente.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        logger.info("Executores de tarefas bloqueantes usando {}.",
+                virtualThreads ? "virtual threads" : "pool de threads de plataforma");
+    }
+
+    // Fan-out das perguntas do endpoint em lote que não foram respondidas localmente
+    @Bean(name = "batchTaskExecutor")
+    public AsyncTaskExecutor batchTaskExecutor(
+            @Value("${chat.batch.concurrency:8}") int concurrency,
+            @Value("${chat.batch.queue-capacity:500}") int queueCapacity) {
+        return boundedExecutor("chat-batch-", concurrency, queueCapacity);
+    }
+
+    // Raspagem das categorias da loja em paralelo
+    @Bean(name = "scraperTaskExecutor")
+    public AsyncTaskExecutor scraperTaskExecutor(
+            @Value("${scraper.concurrency:4}") int concurrency) {
+        return boundedExecutor("scraper-", concurrency, 100);
+    }
+
+    // Etapas de recuperação de contexto que rodam em paralelo à busca na base de conhecimento.
+    // Separado do executor de raspagem para que a busca de produtos não espere por vagas
+    // ocupadas pelas próprias páginas que ela dispara.
+    @Bean(name = "retrievalTaskExecutor")
+    public AsyncTaskExecutor retrievalTaskExecutor(
+            @Value("${retrieval.concurrency:16}") int concurrency) {
+        return boundedExecutor("retrieval-", concurrency, 200);
+    }
+
+    // Geração das respostas pré-computadas (job fora do horário de pico)
+    @Bean(name = "precomputeTaskExecutor")
+    public AsyncTaskExecutor precomputeTaskExecutor(
+            @Value("${precompute.parallelism:2}") int parallelism) {
+        return boundedExecutor("precompute-", parallelism, Integer.MAX_VALUE);
+    }
+
+    // Atualização em segundo plano de entradas vencidas dos caches (stale-while-revalidate). Não herda
+    // prazo nem rastreamento: a requisição que a disparou já foi respondida com o valor vencido
+    @Bean(name = "refreshTaskExecutor")
+    public AsyncTaskExecutor refreshTaskExecutor(
+            @Value("${cache.refresh.concurrency:4}") int concurrency) {
+        return boundedExecutor("cache-refresh-", concurrency, 100, false);
+    }
+
+    private AsyncTaskExecutor boundedExecutor(String threadNamePrefix, int concurrency, int queueCapacity) {
+        return boundedExecutor(threadNamePrefix, concurrency, queueCapacity, true);
+    }
+
+    private AsyncTaskExecutor boundedExecutor(String threadNamePrefix, int concurrency, int queueCapacity,
+                                              boolean propagateContext) {
+        TaskDecorator contextDecorator = propagateContext ? ExecutorConfig::propagateRequestContext : task -> task;
+        if (virtualThreads) {
+            BoundedAsyncTaskExecutor executor = new BoundedAsyncTaskExecutor(threadNamePrefix, concurrency, queueCapacity);
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(contextDecorator);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setTaskDecorator(contextDecorator);
+        return executor;
+    }
+
+    private static Runnable propagateRequestContext(Runnable task) {
+        return RequestTrace.propagate(RequestDeadline.propagate(task));
+    }
+}
@@ -0,0 +1,186 @@
+package com.codigoquatro.atendimento_ai.controller;
+
+import com.codigoquatro.atendimento_ai.admission.AdmissionControlFilter;
+import com.codigoquatro.atendimento_ai.admission.AdmissionControlFilter.AdmissionStats;
+import com.codigoquatro.atendimento_ai.ai.BackgroundRefresher;
+import com.codigoquatro.atendimento_ai.ai.BackgroundRefresher.RefreshStats;
+import com.codigoquatro.atendimento_ai.ai.ConversationStore;
+import com.codigoquatro.atendimento_ai.ai.ConversationStore.SessionStats;
+import com.codigoquatro.atendimento_ai.ai.LlmCallScheduler;
+import com.codigoquatro.atendimento_ai.ai.LlmCallScheduler.SchedulerStats;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer.CanonicalizerStats;
+import com.codigoquatro.atendimento_ai.ai.SharedResponseCache;
+import com.codigoquatro.atendimento_ai.ai.SharedResponseCache.ClusterStats;
+import com.codigoquatro.atendimento_ai.ai.TemplateResponder;
+import com.codigoquatro.atendimento_ai.ai.TemplateResponder.ResponderStats;
+import com.codigoquatro.atendimento_ai.ai.TokenBudgetGovernor;
+import com.codigoquatro.atendimento_ai.ai.TokenBudgetGovernor.GovernorStats;
+import com.codigoquatro.atendimento_ai.cluster.PeerCacheClient;
+import com.codigoquatro.atendimento_ai.repository.SegmentedInteractionLog;
+import com.codigoquatro.atendimento_ai.repository.SegmentedInteractionLog.LogStats;
+import com.codigoquatro.atendimento_ai.service.FrequentQuestionPrecomputeJob;
+import com.codigoquatro.atendimento_ai.service.FrequentQuestionPrecomputeJob.PrecomputeReport;
+import com.codigoquatro.atendimento_ai.service.QuestionSuggestService;
+import com.codigoquatro.atendimento_ai.service.QuestionSuggestService.SuggestStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private FrequentQuestionPrecomputeJob precomputeJob;
+
+    @Autowired
+    private ConversationStore conversationStore;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private LlmCallScheduler llmCallScheduler;
+
+    @Autowired
+    private TemplateResponder templateResponder;
+
+    @Autowired
+    private SharedResponseCache responseCache;
+
+    @Autowired
+    private BackgroundRefresher backgroundRefresher;
+
+    @Autowired
+    private QueryCanonicalizer queryCanonicalizer;
+
+    @Autowired
+    private TokenBudgetGovernor tokenGovernor;
+
+    @Autowired
+    private QuestionSuggestService questionSuggestService;
+
+    // Só existe com interaction-log.backend=segmented
+    @Autowired(required = false)
+    private SegmentedInteractionLog segmentedInteractionLog;
+
+    // Protege as ações que custam caro (chamadas pagas à IA, reconstrução da trie); vazio recusa todas
+    @Value("${admin.token:}")
+    private String adminToken;
+
+    // Dispara a pré-computação das perguntas frequentes sob demanda (até precompute.top-n chamadas à IA)
+    @PostMapping("/precompute")
+    public ResponseEntity<PrecomputeReport> precompute(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!acceptsAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(precomputeJob.run());
+    }
+
+    // Quantidade de sessões de conversa ativas e memória aproximada ocupada
+    @GetMapping("/sessions")
+    public ResponseEntity<SessionStats> sessions() {
+        return ResponseEntity.ok(conversationStore.stats());
+    }
+
+    // Contadores do controle de admissão (admitidas, rejeitadas por taxa e por sobrecarga)
+    @GetMapping("/admission")
+    public ResponseEntity<AdmissionStats> admission() {
+        return ResponseEntity.ok(admissionControlFilter.stats());
+    }
+
+    // Fila de chamadas à IA por intenção: executadas, descartadas por prazo e tempo de espera
+    @GetMapping("/llm-scheduler")
+    public ResponseEntity<SchedulerStats> llmScheduler() {
+        return ResponseEntity.ok(llmCallScheduler.stats());
+    }
+
+    // Respostas geradas localmente (base de conhecimento e template de produtos) x enviadas à IA
+    @GetMapping("/responder")
+    public ResponseEntity<ResponderStats> responder() {
+        return ResponseEntity.ok(templateResponder.stats());
+    }
+
+    // Cache de respostas compartilhado: réplicas configuradas, réplicas ativas no anel e acertos remotos
+    @GetMapping("/cluster")
+    public ResponseEntity<ClusterStats> cluster() {
+        return ResponseEntity.ok(responseCache.stats());
+    }
+
+    // Atualizações em segundo plano de respostas e listas de produtos vencidas
+    @GetMapping("/cache-refresh")
+    public ResponseEntity<RefreshStats> cacheRefresh() {
+        return ResponseEntity.ok(backgroundRefresher.stats());
+    }
+
+    // Consumo de tokens da IA (janela deslizante por intenção e modelo) e limites atuais do governador
+    @GetMapping("/llm-budget")
+    public ResponseEntity<GovernorStats> llmBudget() {
+        return ResponseEntity.ok(tokenGovernor.stats());
+    }
+
+    // Log de segmentos das interações: segmentos, registros, tamanho médio dos lotes e fsyncs
+    @GetMapping("/interaction-log")
+    public ResponseEntity<LogStats> interactionLog() {
+        if (segmentedInteractionLog == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(segmentedInteractionLog.stats());
+    }
+
+    // Canonicalização das perguntas: tamanho do vocabulário e palavras corrigidas
+    @GetMapping("/canonicalizer")
+    public ResponseEntity<CanonicalizerStats> canonicalizer() {
+        return ResponseEntity.ok(queryCanonicalizer.stats());
+    }
+
+    // Autocompletar do chat: frases e nós da trie, última reconstrução e consultas sem sugestão
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestStats> suggest() {
+        return ResponseEntity.ok(questionSuggestService.stats());
+    }
+
+    // Reconstrói a trie do autocompletar na hora (ex.: após atualizar a base de conhecimento)
+    @PostMapping("/suggest/refresh")
+    public ResponseEntity<SuggestStats> refreshSuggestions(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!acceptsAdminToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(questionSuggestService.refresh());
+    }
+
+    // Entrada ou saída de réplicas sem reiniciar (lista de URLs base, ex.: http://10.0.0.5:8080).
+    // Exige o cluster.token: quem muda o anel decide para onde as perguntas vão e de onde vêm as respostas
+    @PutMapping("/cluster/peers")
+    public ResponseEntity<ClusterStats> updatePeers(@RequestBody List<String> peers,
+                                                    @RequestHeader(value = PeerCacheClient.TOKEN_HEADER, required = false) String token) {
+        if (!responseCache.acceptsToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        responseCache.updatePeers(peers);
+        return ResponseEntity.ok(responseCache.stats());
+    }
+
+    // Comparação em tempo constante, como a do cluster.token
+    private boolean acceptsAdminToken(String presented) {
+        return !adminToken.isEmpty() && presented != null && MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
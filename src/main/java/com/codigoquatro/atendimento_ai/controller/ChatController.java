@@ -1,16 +1,27 @@
 package com.codigoquatro.atendimento_ai.controller;
 
+import com.codigoquatro.atendimento_ai.ai.RequestDeadline;
+import com.codigoquatro.atendimento_ai.metrics.RequestTrace;
 import com.codigoquatro.atendimento_ai.model.InteractionLog;
 import com.codigoquatro.atendimento_ai.service.InteractionService;
+import com.codigoquatro.atendimento_ai.service.QuestionSuggestService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,46 +29,122 @@ import java.util.Map;
 public class ChatController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
+    private static final String TRACE_HEADER = "X-Debug-Trace";
+
+    // Corpos fixos codificados uma única vez
+    private static final byte[] EMPTY_QUESTION_RESPONSE = ChatResponses.error("Pergunta não pode estar vazia.");
+    private static final byte[] EMPTY_BATCH_RESPONSE = ChatResponses.error("Informe ao menos uma pergunta.");
+    private static final byte[] PROCESSING_ERROR_RESPONSE = ChatResponses.answer(
+            "Desculpe, ocorreu um erro ao processar sua pergunta. Tente novamente ou reformule sua dúvida. Agradecemos sua compreensão.");
+    private static final CacheControl SUGGEST_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(60)).cachePrivate();
 
     @Autowired
     private InteractionService interactionService;
 
+    @Autowired
+    private QuestionSuggestService questionSuggestService;
+
+    @Value("${chat.batch.max-questions:50}")
+    private int maxBatchQuestions;
+
+    // Prazo fim a fim de cada requisição, propagado até o timeout da chamada à IA
+    @Value("${chat.request.deadline-ms:25000}")
+    private long requestDeadlineMs;
+
+    // Linha do tempo da requisição no cabeçalho X-Debug-Trace quando o cliente o envia (desligado
+    // por padrão: expõe a estrutura interna do atendimento)
+    @Value("${trace.debug-header.enabled:false}")
+    private boolean debugHeaderEnabled;
+
+    // Fração das requisições registradas como JSON no logger chat.trace
+    @Value("${trace.sample-rate:0.0}")
+    private double traceSampleRate;
+
     // Endpoint para receber a pergunta do usuário
     @PostMapping("/question")
-    public ResponseEntity<String> handleQuestion(@RequestBody Map<String, String> request) { // Muda o tipo de retorno
+    public ResponseEntity<byte[]> handleQuestion(@RequestBody Map<String, String> request,
+                                                 @RequestHeader(value = TRACE_HEADER, required = false) String debugTrace) {
         String question = request.get("question");
+        String sessionId = request.get("sessionId");
 
         if (question == null || question.trim().isEmpty()) {
-            String errorResponse = "{\"error\": \"Pergunta não pode estar vazia.\"}"; // JSON como string
             logger.warn("Recebida requisição com pergunta vazia ou nula.");
-            return ResponseEntity.badRequest().body(errorResponse);
+            return json(ResponseEntity.badRequest(), EMPTY_QUESTION_RESPONSE);
         }
 
-        try {
+        RequestTrace trace = startTrace(debugTrace);
+        try (RequestDeadline.Scope ignored = requestDeadline().bind();
+             RequestTrace.Scope traced = trace.bind()) {
             // Chama o serviço para processar a pergunta e obter a interação completa
-            InteractionLog interaction = interactionService.processQuestion(question);
-
-            // Retorna o HTML puro diretamente como string, sem envolver um objeto Java
-            String successResponse = "{\"answer\": \"" + escapeJsonString(interaction.getAnswer()) + "\"}";
+            InteractionLog interaction = sessionId == null
+                    ? interactionService.processQuestion(question)
+                    : interactionService.processQuestion(question, sessionId);
 
             logger.debug("Pergunta processada com sucesso. ID da interação: {}", interaction.getId());
-            return ResponseEntity.ok(successResponse);
+            return json(traced(ResponseEntity.ok(), trace), ChatResponses.answer(interaction));
 
         } catch (Exception e) {
             logger.error("Erro inesperado no controller ao processar a pergunta '{}' : ", question, e);
-            String errorResponse = "{\"answer\": \"Desculpe, ocorreu um erro ao processar sua pergunta. Tente novamente ou reformule sua dúvida. Agradecemos sua compreensão.\"}";
-            return ResponseEntity.ok(errorResponse); // Retorna 200 OK com a mensagem de erro
+            return json(traced(ResponseEntity.ok(), trace), PROCESSING_ERROR_RESPONSE); // Retorna 200 OK com a mensagem de erro
+        } finally {
+            trace.finish();
+        }
+    }
+
+    // Endpoint em lote: várias perguntas em uma única chamada, respostas na ordem de entrada
+    @PostMapping("/questions")
+    public ResponseEntity<byte[]> handleQuestions(@RequestBody Map<String, List<String>> request,
+                                                  @RequestHeader(value = TRACE_HEADER, required = false) String debugTrace) {
+        List<String> questions = request.get("questions");
+
+        if (questions == null || questions.isEmpty()) {
+            logger.warn("Recebida requisição em lote sem perguntas.");
+            return json(ResponseEntity.badRequest(), EMPTY_BATCH_RESPONSE);
+        }
+        if (questions.size() > maxBatchQuestions) {
+            return json(ResponseEntity.badRequest(),
+                    ChatResponses.error("O lote pode conter no máximo " + maxBatchQuestions + " perguntas."));
         }
+        if (questions.stream().anyMatch(q -> q == null || q.trim().isEmpty())) {
+            return json(ResponseEntity.badRequest(), EMPTY_QUESTION_RESPONSE);
+        }
+
+        RequestTrace trace = startTrace(debugTrace);
+        try (RequestDeadline.Scope ignored = requestDeadline().bind();
+             RequestTrace.Scope traced = trace.bind()) {
+            List<InteractionLog> interactions = interactionService.processQuestions(questions);
+            logger.debug("Lote de {} perguntas processado com sucesso.", questions.size());
+            return json(traced(ResponseEntity.ok(), trace), ChatResponses.batch(interactions));
+        } catch (Exception e) {
+            logger.error("Erro inesperado no controller ao processar lote de {} perguntas", questions.size(), e);
+            return json(traced(ResponseEntity.internalServerError(), trace), PROCESSING_ERROR_RESPONSE);
+        } finally {
+            trace.finish();
+        }
+    }
+
+    // Autocompletar: perguntas frequentes e da base que começam com o texto digitado (sem chamar a IA)
+    @GetMapping("/suggest")
+    public ResponseEntity<byte[]> suggest(@RequestParam(value = "q", defaultValue = "") String prefix,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        // A trie só muda a cada suggest.refresh-ms; o navegador pode reaproveitar por alguns segundos
+        return json(ResponseEntity.ok().cacheControl(SUGGEST_CACHE_CONTROL),
+                ChatResponses.suggestions(questionSuggestService.suggest(prefix, limit)));
+    }
+
+    private RequestTrace startTrace(String debugTrace) {
+        return RequestTrace.start(debugHeaderEnabled && debugTrace != null, traceSampleRate);
+    }
+
+    private static ResponseEntity.BodyBuilder traced(ResponseEntity.BodyBuilder builder, RequestTrace trace) {
+        return trace.isDebug() ? builder.header(TRACE_HEADER, trace.timeline()) : builder;
+    }
+
+    private RequestDeadline requestDeadline() {
+        return RequestDeadline.after(Duration.ofMillis(requestDeadlineMs));
     }
 
-    // Função auxiliar simples para escapar aspas e barras invertidas em JSON
-    // Isso é necessário porque o conteúdo de 'answer' pode conter aspas e quebras de linha
-    private String escapeJsonString(String input) {
-        if (input == null) return "null";
-        return input.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder builder, byte[] body) {
+        return builder.contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
@@ -0,0 +1,100 @@
+package com.codigoquatro.atendimento_ai.controller;
+
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Montagem dos corpos JSON do chat a partir de fragmentos já codificados,
+ * sem passar por serialização de objetos nem reescapar a resposta.
+ */
+final class ChatResponses {
+
+    private static final byte[] ANSWER_PREFIX = ascii("{\"answer\":");
+    private static final byte[] INTERACTION_ID_FIELD = ascii(",\"interactionId\":");
+    private static final byte[] RESULTS_PREFIX = ascii("{\"results\":[");
+    private static final byte[] QUESTION_PREFIX = ascii("{\"question\":");
+    private static final byte[] ANSWER_FIELD = ascii(",\"answer\":");
+    private static final byte[] RESULTS_END = ascii("]}");
+    private static final byte[] SUGGESTIONS_PREFIX = ascii("{\"suggestions\":[");
+    private static final byte[] ERROR_PREFIX = ascii("{\"error\":");
+    private static final byte[] OBJECT_END = ascii("}");
+    private static final byte[] COMMA = ascii(",");
+    private static final byte[] NULL = ascii("null");
+
+    private ChatResponses() {
+    }
+
+    static byte[] answer(InteractionLog interaction) {
+        return concat(ANSWER_PREFIX, answerJson(interaction), INTERACTION_ID_FIELD,
+                idJson(interaction.getId()), OBJECT_END);
+    }
+
+    static byte[] batch(List<InteractionLog> interactions) {
+        List<byte[]> parts = new ArrayList<>(interactions.size() * 8 + 2);
+        parts.add(RESULTS_PREFIX);
+        for (int i = 0; i < interactions.size(); i++) {
+            InteractionLog interaction = interactions.get(i);
+            if (i > 0) parts.add(COMMA);
+            parts.add(QUESTION_PREFIX);
+            parts.add(EncodedAnswer.of(interaction.getQuestion()).json());
+            parts.add(ANSWER_FIELD);
+            parts.add(answerJson(interaction));
+            parts.add(INTERACTION_ID_FIELD);
+            parts.add(idJson(interaction.getId()));
+            parts.add(OBJECT_END);
+        }
+        parts.add(RESULTS_END);
+        return concat(parts.toArray(new byte[0][]));
+    }
+
+    // Acertos de cache já trazem a resposta codificada; nos demais casos codifica uma vez aqui
+    static byte[] answerJson(InteractionLog interaction) {
+        return interaction.getAnswerJson() != null
+                ? interaction.getAnswerJson()
+                : EncodedAnswer.of(interaction.getAnswer()).json();
+    }
+
+    static byte[] answer(String answer) {
+        return concat(ANSWER_PREFIX, EncodedAnswer.of(answer).json(), OBJECT_END);
+    }
+
+    // Frases já codificadas na trie de sugestões; só a lista é montada aqui
+    static byte[] suggestions(List<EncodedAnswer> suggestions) {
+        List<byte[]> parts = new ArrayList<>(suggestions.size() * 2 + 2);
+        parts.add(SUGGESTIONS_PREFIX);
+        for (int i = 0; i < suggestions.size(); i++) {
+            if (i > 0) parts.add(COMMA);
+            parts.add(suggestions.get(i).json());
+        }
+        parts.add(RESULTS_END);
+        return concat(parts.toArray(new byte[0][]));
+    }
+
+    static byte[] error(String message) {
+        return concat(ERROR_PREFIX, EncodedAnswer.of(message).json(), OBJECT_END);
+    }
+
+    static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) length += part.length;
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    private static byte[] idJson(Long interactionId) {
+        return interactionId == null ? NULL : ascii("\"" + interactionId + "\"");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
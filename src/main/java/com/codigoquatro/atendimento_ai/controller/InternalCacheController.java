@@ -0,0 +1,63 @@
+package com.codigoquatro.atendimento_ai.controller;
+
+import com.codigoquatro.atendimento_ai.ai.CachedAnswer;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.ai.SharedResponseCache;
+import com.codigoquatro.atendimento_ai.cluster.PeerCacheClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Lado do dono no protocolo de cache entre réplicas ({@link PeerCacheClient}). Só é registrado com
+ * {@code cluster.enabled=true} e só aceita chamadas com o {@code cluster.token} configurado (sem
+ * token, o cluster não sobe e tudo é recusado): uma gravação aqui é servida a todos os clientes.
+ * Fica fora de {@code /api/chat/**}, então não passa pelo controle de admissão; em produção,
+ * {@code /internal/**} deve ficar restrito à rede interna das réplicas (proxy ou firewall).
+ */
+@RestController
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class InternalCacheController {
+
+    @Autowired
+    private SharedResponseCache responseCache;
+
+    @GetMapping(PeerCacheClient.PATH)
+    public ResponseEntity<byte[]> get(@RequestParam("key") String key,
+                                      @RequestHeader(value = PeerCacheClient.TOKEN_HEADER, required = false) String token) {
+        if (!responseCache.acceptsToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        CachedAnswer cached = responseCache.lookupOwned(key);
+        if (cached == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (cached.stale()) {
+            response.header(PeerCacheClient.STALE_HEADER, "true");
+        }
+        return response.body(cached.answer().json());
+    }
+
+    @PutMapping(value = PeerCacheClient.PATH, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> put(@RequestParam("key") String key, @RequestBody byte[] body,
+                                    @RequestHeader(value = PeerCacheClient.TOKEN_HEADER, required = false) String token) {
+        if (!responseCache.acceptsToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            responseCache.putOwned(key, EncodedAnswer.parse(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.codigoquatro.atendimento_ai.metrics;
+
+import com.codigoquatro.atendimento_ai.admission.AdmissionControlFilter;
+import com.codigoquatro.atendimento_ai.ai.ConversationStore;
+import com.codigoquatro.atendimento_ai.ai.LlmCallScheduler;
+import com.codigoquatro.atendimento_ai.ai.PrecomputedAnswerStore;
+import com.codigoquatro.atendimento_ai.ai.QuestionIntent;
+import com.codigoquatro.atendimento_ai.ai.TemplateResponder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges de ocupação (requisições em voo, fila da IA, sessões) e contadores já mantidos pelos
+ * componentes. Os valores são lidos apenas quando o Prometheus coleta as métricas.
+ */
+@Component
+public class ChatGaugesBinder implements MeterBinder {
+
+    private final AdmissionControlFilter admissionControlFilter;
+    private final LlmCallScheduler llmCallScheduler;
+    private final ConversationStore conversationStore;
+    private final PrecomputedAnswerStore precomputedAnswers;
+    private final TemplateResponder templateResponder;
+
+    public ChatGaugesBinder(AdmissionControlFilter admissionControlFilter,
+                            LlmCallScheduler llmCallScheduler,
+                            ConversationStore conversationStore,
+                            PrecomputedAnswerStore precomputedAnswers,
+                            TemplateResponder templateResponder) {
+        this.admissionControlFilter = admissionControlFilter;
+        this.llmCallScheduler = llmCallScheduler;
+        this.conversationStore = conversationStore;
+        this.precomputedAnswers = precomputedAnswers;
+        this.templateResponder = templateResponder;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.admission.in_flight", admissionControlFilter, f -> f.stats().inFlight())
+                .description("Requisições de chat em processamento")
+                .register(registry);
+        FunctionCounter.builder("chat.admission.rejected", admissionControlFilter, f -> f.stats().rejectedRateLimited())
+                .tag("reason", "rate_limited")
+                .register(registry);
+        FunctionCounter.builder("chat.admission.rejected", admissionControlFilter, f -> f.stats().rejectedOverloaded())
+                .tag("reason", "overloaded")
+                .register(registry);
+
+        Gauge.builder("chat.llm.in_flight", llmCallScheduler, s -> s.stats().inFlight())
+                .description("Chamadas à OpenRouter em andamento")
+                .register(registry);
+        Gauge.builder("chat.llm.queued", llmCallScheduler, s -> s.stats().queued())
+                .description("Chamadas à OpenRouter aguardando vaga")
+                .register(registry);
+        for (QuestionIntent intent : QuestionIntent.values()) {
+            FunctionCounter.builder("chat.llm.dropped", llmCallScheduler, s -> s.stats().classes().get(intent).dropped())
+                    .description("Chamadas descartadas por prazo vencido ou fila cheia")
+                    .tag("intent", intent.name())
+                    .register(registry);
+        }
+
+        Gauge.builder("chat.sessions.active", conversationStore, s -> s.stats().activeSessions())
+                .register(registry);
+        Gauge.builder("chat.precomputed.entries", precomputedAnswers, PrecomputedAnswerStore::size)
+                .register(registry);
+
+        FunctionCounter.builder("chat.answers", templateResponder, r -> r.stats().knowledgeBaseAnswers())
+                .description("Respostas geradas por faixa (base de conhecimento, template de produtos ou IA)")
+                .tag("tier", "knowledge_base")
+                .register(registry);
+        FunctionCounter.builder("chat.answers", templateResponder, r -> r.stats().productTemplateAnswers())
+                .tag("tier", "product_template")
+                .register(registry);
+        FunctionCounter.builder("chat.answers", templateResponder, r -> r.stats().llmAnswers())
+                .tag("tier", "llm")
+                .register(registry);
+    }
+}
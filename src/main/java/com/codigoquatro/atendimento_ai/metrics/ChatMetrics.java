@@ -0,0 +1,172 @@
+package com.codigoquatro.atendimento_ai.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers e contadores do caminho de uma pergunta, expostos em {@code /actuator/prometheus}.
+ *
+ * <p>Os medidores são registrados uma vez (no construtor ou no primeiro uso de uma tag nova) e
+ * guardados em arrays/mapas; no caminho quente cada medição é só {@code System.nanoTime()} e
+ * um {@link Timer#record(long, TimeUnit)}, sem criar objetos por requisição.
+ *
+ * <p>Cada medição também vira uma etapa do {@link RequestTrace} da requisição quando ele está ativo.
+ */
+@Component
+public class ChatMetrics {
+
+    public enum Stage {
+        NORMALIZATION("normalization"),
+        INTENT_DETECTION("intent_detection"),
+        KB_RETRIEVAL("kb_retrieval"),
+        PRODUCT_LOOKUP("product_lookup"),
+        PROMPT_BUILD("prompt_build"),
+        LINK_REWRITE("link_rewrite"),
+        PERSISTENCE("persistence");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Cache {
+        RESPONSE("response"),
+        PRECOMPUTED("precomputed"),
+        SCRAPER("scraper"),
+        PEER("peer");
+
+        private final String tag;
+        private final String traceKey;
+
+        Cache(String tag) {
+            this.tag = tag;
+            this.traceKey = "cache." + tag;
+        }
+    }
+
+    // Status HTTP válidos vão de 100 a 599; o índice 0 representa falha sem resposta
+    private static final int STATUS_SLOTS = 600;
+
+    private final MeterRegistry registry;
+    private final String model;
+    private final Timer[] stageTimers;
+    private final Timer[] openRouterTimers = new Timer[STATUS_SLOTS];
+    private final String[] openRouterSpanNames = new String[STATUS_SLOTS];
+    private final Counter[] cacheHits;
+    private final Counter[] cacheMisses;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
+    private final ConcurrentHashMap<String, Timer> scrapeTimers = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry,
+                       @Value("${openrouter.model:openai/gpt-3.5-turbo}") String model) {
+        this.registry = registry;
+        this.model = model;
+
+        Stage[] stages = Stage.values();
+        this.stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder("chat.stage.duration")
+                    .description("Duração de cada etapa do processamento de uma pergunta")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        Cache[] caches = Cache.values();
+        this.cacheHits = new Counter[caches.length];
+        this.cacheMisses = new Counter[caches.length];
+        for (Cache cache : caches) {
+            cacheHits[cache.ordinal()] = cacheCounter(cache, "hit");
+            cacheMisses[cache.ordinal()] = cacheCounter(cache, "miss");
+        }
+        openRouterTimer(0);
+        openRouterTimer(200);
+        promptTokens = tokenCounter("prompt");
+        completionTokens = tokenCounter("completion");
+    }
+
+    // Registra a duração desde startNanos (obtido com System.nanoTime())
+    public void recordStage(Stage stage, long startNanos) {
+        long endNanos = System.nanoTime();
+        stageTimers[stage.ordinal()].record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        RequestTrace.current().span(stage.tag, startNanos, endNanos);
+    }
+
+    // status 0 = falha de comunicação (timeout, conexão recusada etc.)
+    public void recordOpenRouter(int status, long startNanos) {
+        int slot = status > 0 && status < STATUS_SLOTS ? status : 0;
+        Timer timer = openRouterTimers[slot];
+        if (timer == null) {
+            timer = openRouterTimer(slot);
+        }
+        long endNanos = System.nanoTime();
+        timer.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        RequestTrace.current().span(openRouterSpanNames[slot], startNanos, endNanos);
+    }
+
+    // Tokens informados no bloco "usage" da resposta (ou estimados quando ele falta)
+    public void recordTokens(int prompt, int completion) {
+        promptTokens.increment(prompt);
+        completionTokens.increment(completion);
+    }
+
+    public void recordScrape(String category, long startNanos) {
+        Timer timer = scrapeTimers.get(category);
+        if (timer == null) {
+            timer = scrapeTimers.computeIfAbsent(category, c -> Timer.builder("chat.scraper.category.duration")
+                    .description("Duração da raspagem de uma página de categoria da loja")
+                    .tag("category", c)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        long endNanos = System.nanoTime();
+        timer.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        RequestTrace trace = RequestTrace.current();
+        if (trace.isActive()) {
+            trace.span("scrape:" + category, startNanos, endNanos);
+        }
+    }
+
+    public void recordCacheLookup(Cache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses)[cache.ordinal()].increment();
+        RequestTrace.current().tag(cache.traceKey, hit ? "hit" : "miss");
+    }
+
+    // Corrida benigna: o registry devolve o mesmo Timer para o mesmo id
+    private Timer openRouterTimer(int slot) {
+        Timer timer = Timer.builder("chat.openrouter.duration")
+                .description("Duração das chamadas à OpenRouter por modelo e status HTTP")
+                .tag("model", model)
+                .tag("status", slot == 0 ? "error" : Integer.toString(slot))
+                .publishPercentileHistogram()
+                .register(registry);
+        openRouterSpanNames[slot] = slot == 0 ? "openrouter[error]" : "openrouter[" + slot + "]";
+        openRouterTimers[slot] = timer;
+        return timer;
+    }
+
+    private Counter tokenCounter(String type) {
+        return Counter.builder("chat.openrouter.tokens")
+                .description("Tokens consumidos nas chamadas à OpenRouter")
+                .tag("model", model)
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private Counter cacheCounter(Cache cache, String result) {
+        return Counter.builder("chat.cache.lookups")
+                .description("Consultas aos caches de respostas e de produtos")
+                .tag("cache", cache.tag)
+                .tag("result", result)
+                .register(registry);
+    }
+}
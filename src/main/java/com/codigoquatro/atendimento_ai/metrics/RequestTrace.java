@@ -0,0 +1,190 @@
+package com.codigoquatro.atendimento_ai.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linha do tempo de uma requisição de chat: etapas com início e duração (inclusive as que rodam
+ * em outros executores) e marcações como intenção escolhida e decisões de cache.
+ *
+ * <p>Só é ativada quando o cliente pede o cabeçalho de depuração ou a requisição é sorteada pela
+ * amostragem. Fora disso, {@link #current()} devolve uma instância inativa e cada chamada se
+ * resume a um teste de campo, sem alocação. Requisições amostradas geram uma linha JSON no logger
+ * {@code chat.trace}, gravado por um appender assíncrono.
+ */
+public final class RequestTrace {
+
+    private static final Logger traceLogger = LoggerFactory.getLogger("chat.trace");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final RequestTrace INACTIVE = new RequestTrace(false, false, false);
+
+    private final boolean active;
+    private final boolean debug;
+    private final boolean sampled;
+    private final String id;
+    private final long startNanos;
+    private final ConcurrentLinkedQueue<Span> spans;
+    private final ConcurrentHashMap<String, String> tags;
+
+    private RequestTrace(boolean active, boolean debug, boolean sampled) {
+        this.active = active;
+        this.debug = debug;
+        this.sampled = sampled;
+        this.startNanos = System.nanoTime();
+        this.id = active ? Long.toHexString(ThreadLocalRandom.current().nextLong()) : "";
+        this.spans = active ? new ConcurrentLinkedQueue<>() : null;
+        this.tags = active ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Inicia o rastreamento da requisição quando pedido pelo cliente ({@code debugRequested})
+     * ou sorteado com probabilidade {@code sampleRate}; caso contrário devolve a instância inativa.
+     */
+    public static RequestTrace start(boolean debugRequested, double sampleRate) {
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!debugRequested && !sampled) {
+            return INACTIVE;
+        }
+        return new RequestTrace(true, debugRequested, sampled);
+    }
+
+    // Rastreamento vinculado à thread atual (nunca null)
+    public static RequestTrace current() {
+        RequestTrace trace = CURRENT.get();
+        return trace != null ? trace : INACTIVE;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // O cliente pediu a linha do tempo no cabeçalho de resposta
+    public boolean isDebug() {
+        return debug;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public void span(String name, long spanStartNanos, long spanEndNanos) {
+        if (active) {
+            spans.add(new Span(name, spanStartNanos - startNanos, spanEndNanos - spanStartNanos));
+        }
+    }
+
+    public void tag(String key, String value) {
+        if (active) {
+            tags.put(key, value);
+        }
+    }
+
+    public Scope bind() {
+        if (!active) {
+            return () -> { };
+        }
+        RequestTrace previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    // Leva o rastreamento da thread que submete a tarefa para a thread que a executa
+    public static Runnable propagate(Runnable task) {
+        RequestTrace captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = captured.bind()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Linha do tempo compacta para o cabeçalho de depuração, por exemplo:
+     * {@code id=3f2a; total=812.4ms; intent=PRODUCT_INQUIRY; kb_retrieval@0.3+0.6ms; openrouter[200]@1.2+790.1ms}
+     */
+    public String timeline() {
+        if (!active) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("id=").append(id).append("; total=").append(millis(System.nanoTime() - startNanos)).append("ms");
+        tags.forEach((key, value) -> sb.append("; ").append(key).append('=').append(value));
+        for (Span span : sortedSpans()) {
+            sb.append("; ").append(span.name()).append('@').append(millis(span.offsetNanos()))
+                    .append('+').append(millis(span.durationNanos())).append("ms");
+        }
+        return sb.toString();
+    }
+
+    // Emite o JSON da requisição amostrada (o appender do logger chat.trace é assíncrono)
+    public void finish() {
+        if (!sampled || !traceLogger.isInfoEnabled()) {
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("traceId", id);
+        event.put("totalMs", roundedMillis(System.nanoTime() - startNanos));
+        event.put("tags", new LinkedHashMap<>(tags));
+        List<Map<String, Object>> spanEvents = new ArrayList<>();
+        for (Span span : sortedSpans()) {
+            Map<String, Object> spanEvent = new LinkedHashMap<>();
+            spanEvent.put("name", span.name());
+            spanEvent.put("startMs", roundedMillis(span.offsetNanos()));
+            spanEvent.put("durationMs", roundedMillis(span.durationNanos()));
+            spanEvents.add(spanEvent);
+        }
+        event.put("spans", spanEvents);
+        try {
+            traceLogger.info(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            traceLogger.warn("Falha ao serializar rastreamento {}", id, e);
+        }
+    }
+
+    private List<Span> sortedSpans() {
+        List<Span> sorted = new ArrayList<>(spans);
+        sorted.sort(Comparator.comparingLong(Span::offsetNanos));
+        return sorted;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", roundedMillis(nanos));
+    }
+
+    // Milissegundos com uma casa decimal
+    private static double roundedMillis(long nanos) {
+        return Math.round((double) nanos / TimeUnit.MICROSECONDS.toNanos(100)) / 10.0;
+    }
+
+    private record Span(String name, long offsetNanos, long durationNanos) {
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -21,6 +21,10 @@ public class InteractionLog {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Resposta já codificada como literal JSON UTF-8, reaproveitada na resposta HTTP (não persistida)
+    @Transient
+    private byte[] answerJson;
+
     public InteractionLog() {}
 
     public InteractionLog(String question, String answer) {
@@ -37,4 +41,6 @@ public class InteractionLog {
     public void setAnswer(String answer) { this.answer = answer; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public byte[] getAnswerJson() { return answerJson; }
+    public void setAnswerJson(byte[] answerJson) { this.answerJson = answerJson; }
 }
@@ -2,9 +2,29 @@ package com.codigoquatro.atendimento_ai.repository;
 
 import com.codigoquatro.atendimento_ai.model.InteractionLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface InteractionLogRepository extends JpaRepository<InteractionLog, Long> {
+public interface InteractionLogRepository extends JpaRepository<InteractionLog, Long>, InteractionLogStore {
+
+    // Redeclarados: os mesmos métodos vêm de CrudRepository e de InteractionLogStore
+    @Override
+    <S extends InteractionLog> S save(S log);
+
+    @Override
+    <S extends InteractionLog> List<S> saveAll(Iterable<S> logs);
+
+    @Override
+    Optional<InteractionLog> findById(Long id);
 
+    // Projeção apenas das perguntas, evitando carregar as respostas (TEXT) na mineração em lote
+    @Override
+    @Query("select l.question from InteractionLog l where l.createdAt >= :since")
+    List<String> findQuestionsSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,25 @@
+package com.codigoquatro.atendimento_ai.repository;
+
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Armazenamento das interações usado por {@code InteractionService} e pela pré-computação.
+ * Implementado pelo repositório JPA ({@link InteractionLogRepository}, padrão) e pelo log
+ * append-only em arquivos de segmento ({@link SegmentedInteractionLog}), escolhido com
+ * {@code interaction-log.backend}.
+ */
+public interface InteractionLogStore {
+
+    <S extends InteractionLog> S save(S log);
+
+    <S extends InteractionLog> List<S> saveAll(Iterable<S> logs);
+
+    Optional<InteractionLog> findById(Long id);
+
+    // Apenas as perguntas, para a mineração em lote das mais frequentes
+    List<String> findQuestionsSince(LocalDateTime since);
+}
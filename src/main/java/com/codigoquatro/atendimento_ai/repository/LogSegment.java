@@ -0,0 +1,546 @@
+package com.codigoquatro.atendimento_ai.repository;
+
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Um arquivo de segmento do {@link SegmentedInteractionLog}, nomeado pelo id do primeiro registro
+ * ({@code 00000000000000000001.seg}). Registros com prefixo de tamanho:
+ * <pre>
+ * int   tamanho do conteúdo
+ * int   CRC32 do conteúdo
+ * byte  flags (1 = corpo comprimido com Deflate)
+ * long  id
+ * long  createdAt (epoch millis, LocalDateTime lido como UTC)
+ * corpo int tamanho da pergunta + pergunta UTF-8 + resposta UTF-8
+ * </pre>
+ *
+ * <p>Índice esparso em memória: um bloco a cada {@code indexIntervalBytes}, com o primeiro e o
+ * último id, a posição e o menor/maior {@code createdAt} do bloco. As buscas por id e por período
+ * só leem os blocos candidatos. Ao fechar o segmento o índice é gravado em {@code .idx}; na
+ * subida ele é usado se corresponder ao tamanho do arquivo, senão o segmento é relido.
+ *
+ * <p>Só a thread de escrita do log chama {@link #append}; leituras usam leitura posicional do
+ * canal e podem ocorrer em paralelo.
+ */
+final class LogSegment implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSegment.class);
+
+    static final String SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+
+    static final int HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 1 + 8 + 8;
+    private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int INDEX_MAGIC = 0x49445831; // "IDX1"
+    private static final int READ_CHUNK_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final long baseId;
+    private final int indexIntervalBytes;
+    private final FileChannel channel;
+
+    private final List<IndexBlock> blocks = new ArrayList<>();
+    private volatile long size;
+
+    private LogSegment(Path path, long baseId, int indexIntervalBytes, FileChannel channel) {
+        this.path = path;
+        this.baseId = baseId;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.channel = channel;
+    }
+
+    static Path fileName(Path dir, long baseId) {
+        return dir.resolve(String.format("%020d%s", baseId, SUFFIX));
+    }
+
+    static LogSegment create(Path dir, long baseId, int indexIntervalBytes) throws IOException {
+        Path path = fileName(dir, baseId);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(path, baseId, indexIntervalBytes, channel);
+    }
+
+    /**
+     * Abre um segmento existente: usa o {@code .idx} se ele corresponder ao arquivo, senão relê os
+     * registros e descarta a cauda inválida (registro incompleto ou com CRC errado, de uma queda
+     * no meio da escrita).
+     */
+    static LogSegment open(Path path, int indexIntervalBytes) throws IOException {
+        String name = path.getFileName().toString();
+        long baseId = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogSegment segment = new LogSegment(path, baseId, indexIntervalBytes, channel);
+        long fileSize = channel.size();
+        if (!segment.loadIndex(fileSize)) {
+            long validEnd = segment.rebuildIndex(fileSize);
+            if (validEnd < fileSize) {
+                logger.warn("Segmento {}: {} bytes inválidos no fim descartados na recuperação.",
+                        name, fileSize - validEnd);
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+            segment.size = validEnd;
+        } else {
+            segment.size = fileSize;
+        }
+        return segment;
+    }
+
+    long baseId() {
+        return baseId;
+    }
+
+    long size() {
+        return size;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    // Último id gravado, ou baseId - 1 se o segmento estiver vazio
+    synchronized long lastId() {
+        return blocks.isEmpty() ? baseId - 1 : blocks.get(blocks.size() - 1).lastId;
+    }
+
+    synchronized long records() {
+        long count = 0;
+        for (IndexBlock block : blocks) count += block.records;
+        return count;
+    }
+
+    synchronized boolean overlaps(long fromMillis, long toMillis) {
+        for (IndexBlock block : blocks) {
+            if (block.overlaps(fromMillis, toMillis)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Grava os registros já codificados no fim do arquivo (escrita agrupada), com fsync quando
+     * {@code sync}, e só então os torna visíveis (tamanho e índice). Se a escrita ou o fsync falhar,
+     * nada fica visível e os bytes gravados são descartados; a próxima escrita parte do mesmo ponto.
+     */
+    void append(List<EncodedRecord> records, boolean sync) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        long bytes = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = records.get(i).buffer().duplicate();
+            bytes += buffers[i].remaining();
+        }
+        try {
+            channel.position(size);
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(buffers);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            discardAfter(size, e);
+            throw e;
+        }
+        synchronized (this) {
+            long position = size;
+            for (EncodedRecord record : records) {
+                track(record.id(), record.createdAtMillis(), position);
+                position += record.buffer().remaining();
+            }
+            size += bytes;
+        }
+    }
+
+    // Melhor esforço: sem isso, uma escrita que falhou no fsync poderia reaparecer na recuperação
+    private void discardAfter(long validEnd, Exception cause) {
+        try {
+            channel.truncate(validEnd);
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    // Chamado com o monitor do segmento
+    private void track(long id, long createdAtMillis, long position) {
+        IndexBlock last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (last == null || position - last.position >= indexIntervalBytes) {
+            last = new IndexBlock(id, position);
+            blocks.add(last);
+        }
+        last.lastId = id;
+        last.records++;
+        last.minTime = Math.min(last.minTime, createdAtMillis);
+        last.maxTime = Math.max(last.maxTime, createdAtMillis);
+    }
+
+    InteractionLog find(long id) throws IOException {
+        long from;
+        long to;
+        synchronized (this) {
+            int block = blockContaining(id);
+            if (block < 0) return null;
+            from = blocks.get(block).position;
+            to = block + 1 < blocks.size() ? blocks.get(block + 1).position : size;
+        }
+        InteractionLog[] found = new InteractionLog[1];
+        scan(from, to, (position, recordId, createdAtMillis, payload) -> {
+            if (recordId == id) {
+                found[0] = decode(recordId, createdAtMillis, payload);
+                return false;
+            }
+            return recordId < id;
+        });
+        return found[0];
+    }
+
+    // Busca binária pelo primeiro id de cada bloco (ids crescentes no segmento)
+    private int blockContaining(long id) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).firstId <= id) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result >= 0 && blocks.get(result).lastId >= id ? result : -1;
+    }
+
+    /**
+     * Registros com {@code createdAt} em [fromMillis, toMillis), lendo só os blocos cujo intervalo
+     * de datas cruza o período (as datas não são estritamente crescentes: a interação é criada
+     * antes da resposta da IA e gravada depois).
+     */
+    void readRange(long fromMillis, long toMillis, RecordConsumer consumer) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < blocks.size(); i++) {
+                if (blocks.get(i).overlaps(fromMillis, toMillis)) {
+                    long end = i + 1 < blocks.size() ? blocks.get(i + 1).position : size;
+                    if (!ranges.isEmpty() && ranges.get(ranges.size() - 1)[1] == blocks.get(i).position) {
+                        ranges.get(ranges.size() - 1)[1] = end;
+                    } else {
+                        ranges.add(new long[]{blocks.get(i).position, end});
+                    }
+                }
+            }
+        }
+        for (long[] range : ranges) {
+            scan(range[0], range[1], (position, id, createdAtMillis, payload) -> {
+                if (createdAtMillis >= fromMillis && createdAtMillis < toMillis) {
+                    consumer.accept(decode(id, createdAtMillis, payload));
+                }
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Percorre os registros válidos em [from, to) com leituras em blocos de 64 KB. Devolve a
+     * posição logo após o último registro válido (menor que {@code to} se houver cauda inválida).
+     */
+    private long scan(long from, long to, RecordVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+        buffer.limit(0);
+        long bufferStart = from; // posição no arquivo do byte buffer.position()
+        long readPosition = from;
+        while (bufferStart < to) {
+            if (buffer.remaining() < HEADER_BYTES) {
+                if (readPosition >= to) break;
+                buffer.compact();
+                readPosition += fill(buffer, readPosition, to);
+                buffer.flip();
+                if (buffer.remaining() < HEADER_BYTES) break;
+            }
+            int length = buffer.getInt(buffer.position());
+            int crc = buffer.getInt(buffer.position() + 4);
+            if (length < FIXED_PAYLOAD_BYTES + 4 || length > MAX_PAYLOAD_BYTES || bufferStart + HEADER_BYTES + length > to) {
+                break;
+            }
+            if (buffer.remaining() < HEADER_BYTES + length) {
+                if (buffer.capacity() < HEADER_BYTES + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(HEADER_BYTES + length);
+                    larger.put(buffer);
+                    larger.flip();
+                    buffer = larger;
+                }
+                buffer.compact();
+                while (buffer.position() < HEADER_BYTES + length && readPosition < to) {
+                    int read = fill(buffer, readPosition, to);
+                    if (read == 0) break;
+                    readPosition += read;
+                }
+                buffer.flip();
+                if (buffer.remaining() < HEADER_BYTES + length) break;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position() + HEADER_BYTES, length);
+            if (crc32(payload) != crc) {
+                break;
+            }
+            long id = payload.getLong(1);
+            long createdAtMillis = payload.getLong(9);
+            boolean more = visitor.visit(bufferStart, id, createdAtMillis, payload);
+            buffer.position(buffer.position() + HEADER_BYTES + length);
+            bufferStart += HEADER_BYTES + length;
+            if (!more) break;
+        }
+        return bufferStart;
+    }
+
+    private int fill(ByteBuffer buffer, long position, long to) throws IOException {
+        int limit = (int) Math.min(buffer.remaining(), to - position);
+        ByteBuffer target = buffer.slice(buffer.position(), limit);
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + total);
+            if (read < 0) break;
+            total += read;
+        }
+        buffer.position(buffer.position() + total);
+        return total;
+    }
+
+    private long rebuildIndex(long fileSize) throws IOException {
+        synchronized (this) {
+            blocks.clear();
+        }
+        return scan(0, fileSize, (position, id, createdAtMillis, payload) -> {
+            synchronized (this) {
+                track(id, createdAtMillis, position);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Grava o índice esparso em {@code .idx} (arquivo temporário + rename). Chamado ao fechar o
+     * segmento ou a aplicação.
+     */
+    synchronized void writeIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 4 + blocks.size() * IndexBlock.BYTES + 8);
+        buffer.putInt(INDEX_MAGIC).putLong(size).putInt(blocks.size());
+        for (IndexBlock block : blocks) {
+            block.writeTo(buffer);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        Path indexPath = indexPath();
+        Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean loadIndex(long fileSize) {
+        Path indexPath = indexPath();
+        if (!Files.exists(indexPath)) return false;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+            if (buffer.remaining() < 16 + 8 || buffer.getInt() != INDEX_MAGIC || buffer.getLong() != fileSize) {
+                return false;
+            }
+            int count = buffer.getInt();
+            if (buffer.remaining() != count * IndexBlock.BYTES + 8) return false;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.capacity() - 8);
+            if (buffer.getLong(buffer.capacity() - 8) != crc.getValue()) return false;
+            List<IndexBlock> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                loaded.add(IndexBlock.readFrom(buffer));
+            }
+            synchronized (this) {
+                blocks.clear();
+                blocks.addAll(loaded);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Índice {} ignorado ({}); o segmento será relido.", indexPath.getFileName(), e.toString());
+            return false;
+        }
+    }
+
+    private Path indexPath() {
+        String name = path.getFileName().toString();
+        return path.resolveSibling(name.substring(0, name.length() - SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ---- Codificação dos registros ----
+
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Codifica a interação com o id dado. Com {@code deflater} (compressão ativa), corpos de pelo
+     * menos {@code compressMinBytes} são comprimidos quando isso reduz o tamanho.
+     */
+    static EncodedRecord encode(long id, InteractionLog log, Deflater deflater, int compressMinBytes) {
+        byte[] question = log.getQuestion().getBytes(StandardCharsets.UTF_8);
+        byte[] answer = log.getAnswer() == null ? new byte[0] : log.getAnswer().getBytes(StandardCharsets.UTF_8);
+        byte[] body = ByteBuffer.allocate(4 + question.length + answer.length)
+                .putInt(question.length).put(question).put(answer).array();
+        byte flags = 0;
+        if (deflater != null && body.length >= compressMinBytes) {
+            byte[] compressed = deflate(deflater, body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                flags = FLAG_COMPRESSED;
+            }
+        }
+        long createdAtMillis = toEpochMillis(log.getCreatedAt());
+        int length = FIXED_PAYLOAD_BYTES + body.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        buffer.position(HEADER_BYTES);
+        buffer.put(flags).putLong(id).putLong(createdAtMillis).put(body);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return new EncodedRecord(id, createdAtMillis, buffer);
+    }
+
+    private static InteractionLog decode(long id, long createdAtMillis, ByteBuffer payload) throws IOException {
+        byte[] body = new byte[payload.remaining() - FIXED_PAYLOAD_BYTES];
+        payload.get(FIXED_PAYLOAD_BYTES, body);
+        if ((payload.get(0) & FLAG_COMPRESSED) != 0) {
+            body = inflate(body);
+        }
+        ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
+        int questionLength = bodyBuffer.getInt();
+        String question = new String(body, 4, questionLength, StandardCharsets.UTF_8);
+        String answer = new String(body, 4 + questionLength, body.length - 4 - questionLength, StandardCharsets.UTF_8);
+        InteractionLog log = new InteractionLog(question, answer);
+        log.setId(id);
+        log.setCreatedAt(fromEpochMillis(createdAtMillis));
+        return log;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Registro comprimido truncado");
+                }
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Registro comprimido inválido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int crc32(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    record EncodedRecord(long id, long createdAtMillis, ByteBuffer buffer) {
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(InteractionLog log) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        // false interrompe a leitura
+        boolean visit(long position, long id, long createdAtMillis, ByteBuffer payload) throws IOException;
+    }
+
+    private static final class IndexBlock {
+
+        private static final int BYTES = 8 * 6;
+
+        private final long firstId;
+        private final long position;
+        private long lastId;
+        private long records;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+
+        private IndexBlock(long firstId, long position) {
+            this.firstId = firstId;
+            this.position = position;
+        }
+
+        private boolean overlaps(long fromMillis, long toMillis) {
+            return maxTime >= fromMillis && minTime < toMillis;
+        }
+
+        private void writeTo(ByteBuffer buffer) {
+            buffer.putLong(firstId).putLong(position).putLong(lastId).putLong(records)
+                    .putLong(minTime).putLong(maxTime);
+        }
+
+        private static IndexBlock readFrom(ByteBuffer buffer) {
+            IndexBlock block = new IndexBlock(buffer.getLong(), buffer.getLong());
+            block.lastId = buffer.getLong();
+            block.records = buffer.getLong();
+            block.minTime = buffer.getLong();
+            block.maxTime = buffer.getLong();
+            return block;
+        }
+    }
+}
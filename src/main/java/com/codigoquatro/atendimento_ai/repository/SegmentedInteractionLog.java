@@ -0,0 +1,375 @@
+package com.codigoquatro.atendimento_ai.repository;
+
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Armazenamento das interações em um log append-only de arquivos de segmento, alternativa ao
+ * JPA/H2 ({@code interaction-log.backend=segmented}). As interações só são acrescentadas e lidas
+ * por id ou por período, então não há necessidade de banco relacional.
+ *
+ * <ul>
+ *   <li>Escrita agrupada (group commit): quem grava entra em uma fila e espera; uma única thread
+ *       de escrita junta tudo o que chegou, grava com uma escrita só e faz um único fsync por lote.</li>
+ *   <li>Segmentos de até {@code segment-bytes}; ao encher, um novo segmento é aberto e o índice
+ *       esparso do anterior é gravado em disco.</li>
+ *   <li>Compressão Deflate opcional dos registros grandes.</li>
+ *   <li>Recuperação na subida: o segmento sem índice válido é relido e a cauda incompleta (queda no
+ *       meio de uma escrita) é descartada. Os ids continuam do último registro válido.</li>
+ * </ul>
+ *
+ * <p>Formato dos registros e do índice em {@link LogSegment}.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "interaction-log.backend", havingValue = "segmented")
+public class SegmentedInteractionLog implements InteractionLogStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedInteractionLog.class);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int indexIntervalBytes;
+    private final boolean fsync;
+    private final boolean compression;
+    private final int compressMinBytes;
+    private final int maxBatch;
+    private final long writeTimeoutMillis;
+
+    private final CopyOnWriteArrayList<LogSegment> segments = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    // Motivo da parada da thread de escrita fora do close(); depois disso toda gravação falha na hora
+    private volatile Throwable writerFailure;
+
+    // Estado da thread de escrita
+    private LogSegment active;
+    private long nextId;
+    private final Deflater deflater;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    public SegmentedInteractionLog(
+            @Value("${interaction-log.segmented.dir:data/interaction-log}") String directory,
+            @Value("${interaction-log.segmented.segment-bytes:67108864}") long segmentBytes,
+            @Value("${interaction-log.segmented.index-interval-bytes:4096}") int indexIntervalBytes,
+            @Value("${interaction-log.segmented.fsync:true}") boolean fsync,
+            @Value("${interaction-log.segmented.compression:false}") boolean compression,
+            @Value("${interaction-log.segmented.compression-min-bytes:512}") int compressMinBytes,
+            @Value("${interaction-log.segmented.max-pending:10000}") int maxPending,
+            @Value("${interaction-log.segmented.max-batch:1024}") int maxBatch,
+            @Value("${interaction-log.segmented.write-timeout-ms:10000}") long writeTimeoutMillis) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.fsync = fsync;
+        this.compression = compression;
+        this.compressMinBytes = compressMinBytes;
+        this.maxBatch = maxBatch;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.queue = new LinkedBlockingQueue<>(maxPending);
+        this.deflater = compression ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        recover();
+        this.writer = new Thread(this::writeLoop, "interaction-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(LogSegment.SUFFIX)).sorted().toList();
+        }
+        long lastId = 0;
+        for (Path file : files) {
+            LogSegment segment = LogSegment.open(file, indexIntervalBytes);
+            segments.add(segment);
+            lastId = Math.max(lastId, segment.lastId());
+        }
+        nextId = lastId + 1;
+        if (segments.isEmpty()) {
+            segments.add(LogSegment.create(directory, nextId, indexIntervalBytes));
+        }
+        active = segments.get(segments.size() - 1);
+        long records = segments.stream().mapToLong(LogSegment::records).sum();
+        logger.info("Log de interações em {}: {} segmentos, {} registros, próximo id {}.",
+                directory.toAbsolutePath(), segments.size(), records, nextId);
+    }
+
+    @Override
+    public <S extends InteractionLog> S save(S log) {
+        return saveAll(List.of(log)).get(0);
+    }
+
+    /**
+     * Acrescenta as interações e espera o lote em que elas entraram ser gravado (e sincronizado em
+     * disco, com {@code fsync=true}). Os ids são atribuídos na gravação, na ordem do log. A espera
+     * (por vaga na fila e pela gravação) é limitada a {@code write-timeout-ms}; com a thread de
+     * escrita parada, falha na hora.
+     */
+    @Override
+    public <S extends InteractionLog> List<S> saveAll(Iterable<S> logs) {
+        List<S> list = new ArrayList<>();
+        for (S log : logs) {
+            if (log.getCreatedAt() == null) log.setCreatedAt(LocalDateTime.now());
+            list.add(log);
+        }
+        if (list.isEmpty()) return list;
+        ensureWritable();
+        PendingWrite pending = new PendingWrite(List.copyOf(list), new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Fila de gravação do log de interações cheia");
+            }
+            // A thread pode ter parado entre a verificação e a entrada na fila
+            if (!writer.isAlive() && queue.remove(pending)) {
+                ensureWritable();
+                throw new IllegalStateException("Log de interações encerrado");
+            }
+            pending.done().get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gravação da interação interrompida", e);
+        } catch (TimeoutException e) {
+            // Se ainda estiver na fila, não é gravada; se já foi para o disco, o id é atribuído mesmo assim
+            queue.remove(pending);
+            throw new IllegalStateException("Gravação da interação não concluída em " + writeTimeoutMillis + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Falha ao gravar o log de interações", e.getCause());
+        }
+        return list;
+    }
+
+    private void ensureWritable() {
+        Throwable failure = writerFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Thread de escrita do log de interações parada", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Log de interações encerrado");
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingWrite first;
+                try {
+                    first = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // O encerramento é pelo flag running; uma interrupção avulsa não para a escrita
+                    continue;
+                }
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                try {
+                    writeBatch(batch);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Falha ao gravar {} lotes no log de interações", batch.size(), e);
+                    UncheckedIOException failure = new UncheckedIOException("Falha ao gravar o log de interações",
+                            e instanceof IOException io ? io : new IOException(e));
+                    // Gravações já confirmadas (antes de uma troca de segmento) não são afetadas; nada
+                    // das demais ficou visível e a próxima escrita reaproveita os mesmos ids e posição
+                    batch.forEach(pending -> pending.done().completeExceptionally(failure));
+                    nextId = active.lastId() + 1;
+                }
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            writerFailure = e;
+            logger.error("Thread de escrita do log de interações parada", e);
+            throw e;
+        } finally {
+            // Ninguém fica esperando por uma gravação que não vai acontecer
+            IllegalStateException stopped = new IllegalStateException("Log de interações encerrado", writerFailure);
+            queue.drainTo(batch);
+            batch.forEach(pending -> pending.done().completeExceptionally(stopped));
+        }
+    }
+
+    /**
+     * Só na thread de escrita. Cada gravação (um {@code saveAll}) fica inteira em um segmento: a troca
+     * de segmento só acontece entre gravações, e as que já foram para o disco são confirmadas antes
+     * dela. Assim, uma falha na troca ou no segmento novo nunca recusa registros já gravados (o que
+     * levaria quem chamou a gravar de novo e duplicar).
+     */
+    private void writeBatch(List<PendingWrite> batch) throws IOException {
+        List<LogSegment.EncodedRecord> records = new ArrayList<>();
+        List<PendingWrite> unconfirmed = new ArrayList<>();
+        long pendingBytes = 0;
+        for (PendingWrite pending : batch) {
+            List<LogSegment.EncodedRecord> encoded = new ArrayList<>(pending.logs().size());
+            long id = nextId;
+            long bytes = 0;
+            for (InteractionLog log : pending.logs()) {
+                LogSegment.EncodedRecord record = LogSegment.encode(id++, log, deflater, compressMinBytes);
+                encoded.add(record);
+                bytes += record.buffer().remaining();
+            }
+            if (active.size() + pendingBytes + bytes > segmentBytes && active.size() + pendingBytes > 0) {
+                appendAndConfirm(records, unconfirmed);
+                pendingBytes = 0;
+                roll();
+            }
+            records.addAll(encoded);
+            unconfirmed.add(pending);
+            pendingBytes += bytes;
+            nextId = id;
+        }
+        appendAndConfirm(records, unconfirmed);
+        batches.increment();
+    }
+
+    // Grava (e sincroniza) os registros acumulados; só então os ids ficam visíveis e quem gravou é liberado
+    private void appendAndConfirm(List<LogSegment.EncodedRecord> records, List<PendingWrite> writes)
+            throws IOException {
+        if (records.isEmpty()) return;
+        active.append(records, fsync);
+        if (fsync) syncs.increment();
+        long id = nextId - records.size();
+        for (PendingWrite pending : writes) {
+            for (InteractionLog log : pending.logs()) {
+                log.setId(id++);
+            }
+            pending.done().complete(null);
+        }
+        appended.add(records.size());
+        records.clear();
+        writes.clear();
+    }
+
+    // O segmento ativo já foi sincronizado em appendAndConfirm
+    private void roll() throws IOException {
+        active.writeIndex();
+        LogSegment next = LogSegment.create(directory, nextId, indexIntervalBytes);
+        segments.add(next);
+        active = next;
+        logger.debug("Novo segmento do log de interações: {}", next.path().getFileName());
+    }
+
+    @Override
+    public Optional<InteractionLog> findById(Long id) {
+        if (id == null) return Optional.empty();
+        LogSegment segment = null;
+        for (LogSegment candidate : segments) {
+            if (candidate.baseId() > id) break;
+            segment = candidate;
+        }
+        if (segment == null) return Optional.empty();
+        try {
+            return Optional.ofNullable(segment.find(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler o log de interações", e);
+        }
+    }
+
+    /**
+     * Interações com {@code createdAt} em [from, to), em ordem de gravação. Segmentos e blocos fora
+     * do período são pulados pelo índice esparso.
+     */
+    public List<InteractionLog> findBetween(LocalDateTime from, LocalDateTime to) {
+        return findBetween(LogSegment.toEpochMillis(from), LogSegment.toEpochMillis(to));
+    }
+
+    private List<InteractionLog> findBetween(long fromMillis, long toMillis) {
+        List<InteractionLog> result = new ArrayList<>();
+        try {
+            for (LogSegment segment : segments) {
+                if (segment.overlaps(fromMillis, toMillis)) {
+                    segment.readRange(fromMillis, toMillis, result::add);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler o log de interações", e);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> findQuestionsSince(LocalDateTime since) {
+        return findBetween(LogSegment.toEpochMillis(since), Long.MAX_VALUE).stream()
+                .map(InteractionLog::getQuestion)
+                .toList();
+    }
+
+    public LogStats stats() {
+        long bytes = 0;
+        long records = 0;
+        for (LogSegment segment : segments) {
+            bytes += segment.size();
+            records += segment.records();
+        }
+        long batchCount = batches.sum();
+        return new LogStats(segments.size(), records, bytes, appended.sum(), batchCount,
+                batchCount == 0 ? 0 : (double) appended.sum() / batchCount, syncs.sum(), queue.size(),
+                fsync, compression);
+    }
+
+    /**
+     * Termina as gravações pendentes, grava o índice do segmento ativo (a próxima subida não
+     * precisa relê-lo) e fecha os arquivos.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (fsync) active.force();
+            active.writeIndex();
+        } catch (IOException e) {
+            logger.warn("Índice do segmento ativo não gravado: {}", e.toString());
+        }
+        for (LogSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Falha ao fechar o segmento {}: {}", segment.path().getFileName(), e.toString());
+            }
+        }
+        if (deflater != null) deflater.end();
+    }
+
+    private record PendingWrite(List<? extends InteractionLog> logs, CompletableFuture<Void> done) {
+    }
+
+    public record LogStats(int segments, long records, long bytes, long appended, long batches,
+                           double averageBatchSize, long syncs, int queued, boolean fsync, boolean compression) {
+    }
+}
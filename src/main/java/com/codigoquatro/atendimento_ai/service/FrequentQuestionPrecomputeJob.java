@@ -0,0 +1,165 @@
+package com.codigoquatro.atendimento_ai.service;
+
+import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.PrecomputedAnswerStore;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.repository.InteractionLogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Job em lote que minera as perguntas mais frequentes sem resposta na base de conhecimento
+ * e pré-gera suas respostas, tirando a latência da OpenRouter do caminho do usuário.
+ */
+// Beans preguiçosos não têm seus @Scheduled registrados; o job precisa existir desde a subida
+@Lazy(false)
+@Service
+public class FrequentQuestionPrecomputeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrequentQuestionPrecomputeJob.class);
+
+    private final InteractionLogStore interactionLogStore;
+    private final AiService aiService;
+    private final PrecomputedAnswerStore precomputedAnswers;
+    private final QueryCanonicalizer queryCanonicalizer;
+    private final AsyncTaskExecutor precomputeTaskExecutor;
+
+    private final boolean enabled;
+    private final int lookbackDays;
+    private final int topN;
+    private final int minOccurrences;
+    private final long minIntervalNanos;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong nextCallAt = new AtomicLong(Long.MIN_VALUE);
+
+    public FrequentQuestionPrecomputeJob(
+            InteractionLogStore interactionLogStore,
+            AiService aiService,
+            PrecomputedAnswerStore precomputedAnswers,
+            QueryCanonicalizer queryCanonicalizer,
+            @Qualifier("precomputeTaskExecutor") AsyncTaskExecutor precomputeTaskExecutor,
+            @Value("${precompute.enabled:true}") boolean enabled,
+            @Value("${precompute.lookback-days:7}") int lookbackDays,
+            @Value("${precompute.top-n:50}") int topN,
+            @Value("${precompute.min-occurrences:3}") int minOccurrences,
+            @Value("${precompute.max-calls-per-minute:30}") int maxCallsPerMinute) {
+        this.interactionLogStore = interactionLogStore;
+        this.aiService = aiService;
+        this.precomputedAnswers = precomputedAnswers;
+        this.queryCanonicalizer = queryCanonicalizer;
+        this.precomputeTaskExecutor = precomputeTaskExecutor;
+        this.enabled = enabled;
+        this.lookbackDays = lookbackDays;
+        this.topN = topN;
+        this.minOccurrences = minOccurrences;
+        this.minIntervalNanos = maxCallsPerMinute > 0 ? 60_000_000_000L / maxCallsPerMinute : 0;
+    }
+
+    @Scheduled(cron = "${precompute.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        run();
+    }
+
+    /**
+     * Executa a pré-computação sob demanda. Execuções concorrentes são ignoradas.
+     */
+    public PrecomputeReport run() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Pré-computação já em andamento; execução ignorada.");
+            return PrecomputeReport.notRun();
+        }
+        try {
+            List<String> candidates = mineCandidates();
+            logger.info("Pré-computação iniciada para {} perguntas frequentes.", candidates.size());
+            return generateAnswers(candidates);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Perguntas mais frequentes (pela chave canônica, a mesma do atendimento online, que junta as
+    // variações de digitação) que ainda não têm resposta na base de conhecimento
+    List<String> mineCandidates() {
+        LocalDateTime since = LocalDateTime.now().minusDays(lookbackDays);
+        Map<String, Long> frequencies = interactionLogStore.findQuestionsSince(since).stream()
+                .map(queryCanonicalizer::canonicalKey)
+                .filter(q -> !q.isEmpty())
+                .collect(Collectors.groupingBy(q -> q, Collectors.counting()));
+
+        return frequencies.entrySet().stream()
+                .filter(e -> e.getValue() >= minOccurrences)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .filter(q -> !precomputedAnswers.contains(q))
+                .filter(q -> !aiService.hasKnowledgeBaseMatch(q))
+                .limit(topN)
+                .collect(Collectors.toList());
+    }
+
+    private PrecomputeReport generateAnswers(List<String> questions) {
+        if (questions.isEmpty()) return new PrecomputeReport(0, 0, 0, false);
+
+        // A concorrência é limitada pelo próprio executor (precompute.parallelism)
+        List<Future<Boolean>> results = new ArrayList<>(questions.size());
+        for (String question : questions) {
+            results.add(precomputeTaskExecutor.submit(() -> precompute(question)));
+        }
+
+        int generated = 0;
+        int failed = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) generated++; else failed++;
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        logger.info("Pré-computação concluída: {} geradas, {} falhas.", generated, failed);
+        return new PrecomputeReport(questions.size(), generated, failed, false);
+    }
+
+    private boolean precompute(String question) {
+        awaitRateLimit();
+        try {
+            String answer = aiService.generateAnswer(question);
+            if (answer == null || answer.isBlank()) return false;
+            return precomputedAnswers.put(question, answer);
+        } catch (Exception e) {
+            logger.warn("Falha ao pré-computar resposta para '{}': {}", question, e.getMessage());
+            return false;
+        }
+    }
+
+    // Espaça o início das chamadas para respeitar o limite de chamadas por minuto
+    private void awaitRateLimit() {
+        if (minIntervalNanos == 0) return;
+        long now = System.nanoTime();
+        long slot = nextCallAt.getAndAccumulate(now,
+                (next, current) -> Math.max(next, current) + minIntervalNanos);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) LockSupport.parkNanos(wait);
+    }
+
+    public record PrecomputeReport(int candidates, int generated, int failed, boolean skipped) {
+        static PrecomputeReport notRun() {
+            return new PrecomputeReport(0, 0, 0, true);
+        }
+    }
+}
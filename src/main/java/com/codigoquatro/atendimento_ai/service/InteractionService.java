@@ -1,35 +1,163 @@
 package com.codigoquatro.atendimento_ai.service;
 
 import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.ai.RequestDeadline;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Stage;
 import com.codigoquatro.atendimento_ai.model.InteractionLog;
-import com.codigoquatro.atendimento_ai.repository.InteractionLogRepository;
+import com.codigoquatro.atendimento_ai.repository.InteractionLogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 public class InteractionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(InteractionService.class);
+
+    // Resposta usada para perguntas do lote que não terminaram dentro do prazo
+    private static final EncodedAnswer BATCH_TIMEOUT_ANSWER = EncodedAnswer.of(
+            "Não consegui responder a esta pergunta a tempo. Por favor, envie-a novamente.");
+
+    // Resposta usada para perguntas do lote cujo processamento falhou
+    private static final EncodedAnswer BATCH_ERROR_ANSWER = EncodedAnswer.of(
+            "Ocorreu um erro ao processar esta pergunta. Por favor, tente novamente.");
+
+    // JPA (padrão) ou log de segmentos, conforme interaction-log.backend
     @Autowired
-    private InteractionLogRepository interactionLogRepository;
+    private InteractionLogStore interactionLogStore;
 
     @Autowired
     private AiService aiService;
 
+    @Autowired
+    private ChatMetrics metrics;
+
+    @Autowired
+    private QueryCanonicalizer queryCanonicalizer;
+
+    @Autowired
+    @Qualifier("batchTaskExecutor")
+    private AsyncTaskExecutor batchTaskExecutor;
+
+    @Value("${chat.batch.deadline-ms:20000}")
+    private long batchDeadlineMs;
+
     // Método para salvar uma interação inicial (sem resposta) - Mantido, mas talvez não mais usado
     public InteractionLog saveInitialInteraction(String question) {
         InteractionLog log = new InteractionLog(question, null);
-        return interactionLogRepository.save(log); // Chamada 1 a save()
+        return interactionLogStore.save(log); // Chamada 1 a save()
     }
 
     // Novo método: Processa a pergunta e salva a interação completa com a resposta
     public InteractionLog processQuestion(String question) {
-        String answer = aiService.getAnswerForQuestion(question);
-        InteractionLog log = new InteractionLog(question, answer); // Cria com resposta já definida
-        return interactionLogRepository.save(log); // Chamada 2 a save() - Agora é a ÚNICA chamada em processQuestion
+        return processQuestion(question, null);
+    }
+
+    // Processa a pergunta dentro de uma sessão de conversa (permite perguntas de continuação)
+    public InteractionLog processQuestion(String question, String sessionId) {
+        EncodedAnswer answer = aiService.getEncodedAnswer(question, sessionId);
+        InteractionLog log = new InteractionLog(question, answer.text()); // Cria com resposta já definida
+        long start = System.nanoTime();
+        InteractionLog saved = interactionLogStore.save(log); // ÚNICA chamada a save() em processQuestion
+        metrics.recordStage(Stage.PERSISTENCE, start);
+        saved.setAnswerJson(answer.json()); // Evita recodificar a resposta no controller
+        return saved;
+    }
+
+    /**
+     * Processa um lote de perguntas: deduplica pela chave canônica (a mesma do cache), responde na hora o que
+     * estiver em cache ou na base de conhecimento e distribui as demais em paralelo, respeitando
+     * o prazo do lote. As interações são persistidas de uma só vez, na ordem de entrada.
+     */
+    public List<InteractionLog> processQuestions(List<String> questions) {
+        // O prazo do lote nunca ultrapassa o da requisição; as tarefas submetidas herdam este prazo
+        RequestDeadline deadline = RequestDeadline.currentOr(Duration.ofMillis(batchDeadlineMs));
+
+        String[] keys = new String[questions.size()];
+        Map<String, EncodedAnswer> answers = new HashMap<>();
+        Map<String, Future<EncodedAnswer>> pending = new LinkedHashMap<>();
+        try (RequestDeadline.Scope ignored = deadline.bind()) {
+            for (int i = 0; i < keys.length; i++) {
+                String question = questions.get(i);
+                String key = queryCanonicalizer.canonicalKey(question);
+                keys[i] = key;
+                if (answers.containsKey(key) || pending.containsKey(key)) continue;
+
+                EncodedAnswer local = aiService.findLocalAnswer(question);
+                if (local != null) {
+                    answers.put(key, local);
+                } else {
+                    pending.put(key, submitToBatch(question));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Future<EncodedAnswer>> entry : pending.entrySet()) {
+            answers.put(entry.getKey(), awaitAnswer(entry.getValue(), deadline));
+        }
+
+        List<InteractionLog> logs = new ArrayList<>(questions.size());
+        List<byte[]> encoded = new ArrayList<>(questions.size());
+        for (int i = 0; i < keys.length; i++) {
+            EncodedAnswer answer = answers.get(keys[i]);
+            logs.add(new InteractionLog(questions.get(i), answer.text()));
+            encoded.add(answer.json());
+        }
+
+        long start = System.nanoTime();
+        List<InteractionLog> saved = interactionLogStore.saveAll(logs);
+        metrics.recordStage(Stage.PERSISTENCE, start);
+        for (int i = 0; i < saved.size(); i++) {
+            saved.get(i).setAnswerJson(encoded.get(i));
+        }
+        return saved;
+    }
+
+    private Future<EncodedAnswer> submitToBatch(String question) {
+        try {
+            return batchTaskExecutor.submit(() -> aiService.getEncodedAnswer(question, null));
+        } catch (TaskRejectedException e) {
+            // Fila do executor cheia: a pergunta recebe a resposta de indisponibilidade em vez de esperar
+            logger.warn("Fila do processamento em lote cheia; pergunta não enviada à IA.");
+            return CompletableFuture.completedFuture(BATCH_TIMEOUT_ANSWER);
+        }
+    }
+
+    private EncodedAnswer awaitAnswer(Future<EncodedAnswer> future, RequestDeadline deadline) {
+        try {
+            return future.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Pergunta do lote cancelada por exceder o prazo do lote.");
+            return BATCH_TIMEOUT_ANSWER;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return BATCH_TIMEOUT_ANSWER;
+        } catch (ExecutionException e) {
+            logger.error("Erro ao processar pergunta do lote", e.getCause());
+            return BATCH_ERROR_ANSWER;
+        }
     }
 
     // Método para buscar uma interação pelo ID
     public InteractionLog findById(Long id) {
-        return interactionLogRepository.findById(id).orElse(null);
+        return interactionLogStore.findById(id).orElse(null);
     }
 }
@@ -0,0 +1,281 @@
+package com.codigoquatro.atendimento_ai.service;
+
+import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.ai.PrecomputedAnswerStore;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.ai.QuestionNormalizer;
+import com.codigoquatro.atendimento_ai.ai.SuggestionTrie;
+import com.codigoquatro.atendimento_ai.ai.SuggestionTrie.Suggestion;
+import com.codigoquatro.atendimento_ai.repository.InteractionLogStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Autocompletar de perguntas do chat ({@code /api/chat/suggest}). As sugestões levam o cliente a
+ * perguntas que já têm resposta local (base de conhecimento, cache e respostas pré-computadas) em
+ * vez de uma pergunta nova que iria para a IA.
+ *
+ * <p>Fontes, juntadas pela chave canônica ({@link QueryCanonicalizer}) e ordenadas por frequência:
+ * <ul>
+ *   <li>perguntas da base de conhecimento: peso {@code suggest.kb-weight} mais as vezes em que foram
+ *       feitas no período;</li>
+ *   <li>perguntas frequentes do histórico ({@code suggest.lookback-days}), com a grafia mais usada. As
+ *       perguntas vêm de clientes anônimos e são mostradas a todos, então só entram as que já têm
+ *       resposta pré-computada (mineradas e respondidas pelo {@link FrequentQuestionPrecomputeJob}),
+ *       feitas pelo menos {@code suggest.min-occurrences} vezes e sem dígitos, e-mails ou links
+ *       (números de pedido, telefones, spam);</li>
+ *   <li>nomes de produtos do catálogo ({@code vocabulario.txt}) e das listas raspadas em cache.</li>
+ * </ul>
+ *
+ * <p>A {@link SuggestionTrie} é reconstruída na subida e a cada {@code suggest.refresh-ms}, fora do
+ * caminho da requisição; a consulta só percorre o prefixo na trie atual.
+ */
+// Beans preguiçosos não têm seus @Scheduled registrados; a trie precisa existir desde a subida
+@Lazy(false)
+@Service
+public class QuestionSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSuggestService.class);
+
+    static final String CATALOG_RESOURCE = "vocabulario.txt";
+    private static final String CATALOG_SECTION = "# --- Catálogo";
+    private static final String SECTION_PREFIX = "# ---";
+    // Prefixos maiores que isso não correspondem a nenhuma pergunta útil; evita normalizar textos enormes
+    private static final int MAX_PREFIX_CHARS = 200;
+    // Dígitos (pedidos, telefones, CEPs), e-mails e links nunca vão do histórico para a sugestão pública
+    private static final Pattern UNSAFE_TEXT = Pattern.compile(
+            "\\d|@|https?:|www\\.|\\.(com|br|net|org|io)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final AiService aiService;
+    private final SmComponentesScraperService scraperService;
+    private final InteractionLogStore interactionLogStore;
+    private final QueryCanonicalizer queryCanonicalizer;
+    private final PrecomputedAnswerStore precomputedAnswers;
+
+    private final boolean enabled;
+    private final int minPrefixChars;
+    private final int defaultLimit;
+    private final int maxSuggestions;
+    private final int lookbackDays;
+    private final int minOccurrences;
+    private final int maxPopular;
+    private final long knowledgeBaseWeight;
+    private final long productWeight;
+    private final List<String> catalog;
+
+    private volatile SuggestionTrie trie = SuggestionTrie.empty();
+    private volatile LocalDateTime builtAt;
+    private volatile long buildMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder emptyResults = new LongAdder();
+
+    public QuestionSuggestService(
+            AiService aiService,
+            SmComponentesScraperService scraperService,
+            InteractionLogStore interactionLogStore,
+            QueryCanonicalizer queryCanonicalizer,
+            PrecomputedAnswerStore precomputedAnswers,
+            @Value("${suggest.enabled:true}") boolean enabled,
+            @Value("${suggest.min-prefix-chars:2}") int minPrefixChars,
+            @Value("${suggest.default-limit:5}") int defaultLimit,
+            @Value("${suggest.max-suggestions:10}") int maxSuggestions,
+            @Value("${suggest.lookback-days:30}") int lookbackDays,
+            @Value("${suggest.min-occurrences:20}") int minOccurrences,
+            @Value("${suggest.max-popular:500}") int maxPopular,
+            @Value("${suggest.kb-weight:10}") long knowledgeBaseWeight,
+            @Value("${suggest.product-weight:1}") long productWeight) {
+        this.aiService = aiService;
+        this.scraperService = scraperService;
+        this.interactionLogStore = interactionLogStore;
+        this.queryCanonicalizer = queryCanonicalizer;
+        this.precomputedAnswers = precomputedAnswers;
+        this.enabled = enabled;
+        this.minPrefixChars = minPrefixChars;
+        this.maxSuggestions = Math.max(1, maxSuggestions);
+        this.defaultLimit = Math.min(Math.max(1, defaultLimit), this.maxSuggestions);
+        this.lookbackDays = lookbackDays;
+        this.minOccurrences = minOccurrences;
+        this.maxPopular = maxPopular;
+        this.knowledgeBaseWeight = knowledgeBaseWeight;
+        this.productWeight = productWeight;
+        this.catalog = loadCatalog();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Sem trie o chat continua funcionando; a próxima atualização agendada tenta de novo
+            logger.warn("Sugestões de perguntas não carregadas na subida: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suggest.refresh-ms:600000}", initialDelayString = "${suggest.refresh-ms:600000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao atualizar as sugestões de perguntas; mantida a versão anterior: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstrói a trie a partir das fontes e troca a atual. Atualizações concorrentes são ignoradas.
+     */
+    public SuggestStats refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return stats();
+        }
+        try {
+            long start = System.nanoTime();
+            SuggestionTrie built = SuggestionTrie.build(collectSuggestions(), maxSuggestions);
+            trie = built;
+            builtAt = LocalDateTime.now();
+            buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            logger.info("Sugestões de perguntas atualizadas: {} frases, {} nós, {} ms.",
+                    built.size(), built.nodes(), buildMillis);
+            return stats();
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    List<Suggestion> collectSuggestions() {
+        // Frequência e grafias de cada pergunta do histórico, pela chave canônica
+        Map<String, Map<String, Integer>> spellings = new HashMap<>();
+        LocalDateTime since = LocalDateTime.now().minusDays(lookbackDays);
+        for (String question : interactionLogStore.findQuestionsSince(since)) {
+            if (question == null) continue;
+            String key = queryCanonicalizer.canonicalKey(question);
+            if (!key.isEmpty()) {
+                spellings.computeIfAbsent(key, k -> new HashMap<>()).merge(question.trim(), 1, Integer::sum);
+            }
+        }
+
+        Map<String, Suggestion> byKey = new LinkedHashMap<>();
+        for (String question : aiService.knowledgeBaseQuestions()) {
+            String key = queryCanonicalizer.canonicalKey(question);
+            long asked = occurrences(spellings.remove(key));
+            byKey.putIfAbsent(key, new Suggestion(question, knowledgeBaseWeight + asked));
+        }
+
+        spellings.entrySet().stream()
+                .filter(e -> occurrences(e.getValue()) >= minOccurrences)
+                .filter(e -> precomputedAnswers.contains(e.getKey()))
+                .sorted(Comparator.comparingLong((Map.Entry<String, Map<String, Integer>> e) -> occurrences(e.getValue()))
+                        .reversed())
+                .map(e -> new Suggestion(mostUsedSpelling(e.getValue()), occurrences(e.getValue())))
+                .filter(suggestion -> isSafe(suggestion.text()))
+                .limit(maxPopular)
+                .forEach(suggestion -> byKey.putIfAbsent(queryCanonicalizer.canonicalKey(suggestion.text()), suggestion));
+
+        Set<String> products = new LinkedHashSet<>(catalog);
+        products.addAll(scraperService.cachedProductNames());
+        for (String product : products) {
+            byKey.putIfAbsent(queryCanonicalizer.canonicalKey(product), new Suggestion(product, productWeight));
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    static boolean isSafe(String text) {
+        return !UNSAFE_TEXT.matcher(text).find();
+    }
+
+    private static long occurrences(Map<String, Integer> spellings) {
+        if (spellings == null) return 0;
+        long total = 0;
+        for (int count : spellings.values()) total += count;
+        return total;
+    }
+
+    // Grafia mais usada; no empate, a menor (ordem alfabética) para o resultado ser estável
+    private static String mostUsedSpelling(Map<String, Integer> spellings) {
+        return spellings.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse("");
+    }
+
+    /**
+     * Sugestões para o texto digitado até agora, da mais frequente para a menos frequente.
+     * {@code limit} nulo usa {@code suggest.default-limit}; o máximo é {@code suggest.max-suggestions}.
+     */
+    public List<EncodedAnswer> suggest(String prefix, Integer limit) {
+        if (!enabled || prefix == null || prefix.length() > MAX_PREFIX_CHARS) {
+            return List.of();
+        }
+        String key = QuestionNormalizer.normalize(prefix);
+        if (key.length() < minPrefixChars) {
+            return List.of();
+        }
+        // "cabo " sugere "cabo hdmi", mas não "cabos"
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + ' ';
+        }
+        lookups.increment();
+        int count = limit == null ? defaultLimit : Math.min(Math.max(1, limit), maxSuggestions);
+        List<EncodedAnswer> suggestions = trie.complete(key, count);
+        if (suggestions.isEmpty()) {
+            emptyResults.increment();
+        }
+        return suggestions;
+    }
+
+    public SuggestStats stats() {
+        SuggestionTrie current = trie;
+        return new SuggestStats(enabled, current.size(), current.nodes(), current.sizeInBytes(), builtAt,
+                buildMillis, lookups.sum(), emptyResults.sum());
+    }
+
+    // Nomes de produtos da seção de catálogo do vocabulário, um por linha
+    private static List<String> loadCatalog() {
+        List<String> products = new ArrayList<>();
+        ClassPathResource resource = new ClassPathResource(CATALOG_RESOURCE);
+        if (!resource.exists()) {
+            return products;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            boolean inCatalog = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith(SECTION_PREFIX)) {
+                    inCatalog = line.startsWith(CATALOG_SECTION);
+                } else if (inCatalog && !line.isEmpty() && !line.startsWith("#")) {
+                    products.add(line);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Catálogo de {} não carregado para as sugestões: {}", CATALOG_RESOURCE, e.getMessage());
+        }
+        return products;
+    }
+
+    public record SuggestStats(boolean enabled, int phrases, int nodes, long bytes, LocalDateTime builtAt,
+                               long buildMillis, long lookups, long emptyResults) {
+    }
+}
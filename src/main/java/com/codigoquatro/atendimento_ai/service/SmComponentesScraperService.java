@@ -1,5 +1,10 @@
 package com.codigoquatro.atendimento_ai.service;
 
+import com.codigoquatro.atendimento_ai.ai.BackgroundRefresher;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.ai.RequestDeadline;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Cache;
 import com.codigoquatro.atendimento_ai.model.Product;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -7,70 +12,187 @@ import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Busca de produtos por raspagem das páginas de categoria da loja, com cache por consulta.
+ *
+ * <p>Cada consulta fica fresca por {@code scraper.cache.ttl-minutes}; depois disso, durante
+ * {@code scraper.cache.grace-minutes}, a lista vencida ainda é devolvida na hora e a raspagem é
+ * refeita em segundo plano ({@link BackgroundRefresher}). Se a nova raspagem falhar, a lista
+ * vencida continua valendo.
+ */
 @Service
 public class SmComponentesScraperService {
 
     private static final Logger logger = LoggerFactory.getLogger(SmComponentesScraperService.class);
-    private static final String BASE_URL = "https://smcomponentes.com.br/loja/";
 
-    // Mapeamento de palavras-chave para URLs reais das categorias
+    // Mapeamento de palavras-chave (sem acentos, como na consulta canônica) para URLs reais das categorias
     private static final Map<String, String> CATEGORY_KEYWORDS = Map.ofEntries(
         Map.entry("conector", "categoria-conectores-variados"),
-        Map.entry("acessório", "categoria-acessorios"),
+        Map.entry("acessorio", "categoria-acessorios"),
         Map.entry("adaptador", "categoria-adaptadores"),
         Map.entry("cabo", "categoria-cabos-de-energia"),
-        Map.entry("áudio", "categoria-audio-e-video"),
-        Map.entry("vídeo", "categoria-audio-e-video"),
+        Map.entry("audio", "categoria-audio-e-video"),
+        Map.entry("video", "categoria-audio-e-video"),
         Map.entry("hdmi", "categoria-audio-e-video"),
         Map.entry("vga", "categoria-audio-e-video"),
         Map.entry("plug", "categoria-outros-plugs"),
-        Map.entry("potenciômetro", "categoria-potenciometros"),
+        Map.entry("potenciometro", "categoria-potenciometros"),
         Map.entry("trimpot", "categoria-potenciometros"),
         Map.entry("borne", "categoria-bornes")
     );
 
-    private final ConcurrentHashMap<String, List<Product>> cache = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, LocalDateTime> cacheExpiry = new ConcurrentHashMap<>();
-    private static final long CACHE_TTL_MINUTES = 60;
+    private final ConcurrentHashMap<String, CachedProducts> cache = new ConcurrentHashMap<>();
+    private static final int MAX_CATEGORIES_PER_QUERY = 3;
+
+    private final String baseUrl;
+    private final long cacheTtlMillis;
+    private final long cacheGraceMillis;
+    private final long refreshRetryMillis;
+    private final AsyncTaskExecutor scraperTaskExecutor;
+    private final BackgroundRefresher backgroundRefresher;
+    private final QueryCanonicalizer queryCanonicalizer;
+    private final ChatMetrics metrics;
+
+    public SmComponentesScraperService(
+            @Value("${scraper.base-url:https://smcomponentes.com.br/loja/}") String baseUrl,
+            @Value("${scraper.cache.ttl-minutes:60}") long cacheTtlMinutes,
+            @Value("${scraper.cache.grace-minutes:360}") long cacheGraceMinutes,
+            @Value("${cache.refresh.retry-seconds:60}") long refreshRetrySeconds,
+            @Qualifier("scraperTaskExecutor") AsyncTaskExecutor scraperTaskExecutor,
+            BackgroundRefresher backgroundRefresher,
+            QueryCanonicalizer queryCanonicalizer,
+            ChatMetrics metrics) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.cacheTtlMillis = TimeUnit.MINUTES.toMillis(cacheTtlMinutes);
+        this.cacheGraceMillis = TimeUnit.MINUTES.toMillis(cacheGraceMinutes);
+        this.refreshRetryMillis = TimeUnit.SECONDS.toMillis(refreshRetrySeconds);
+        this.scraperTaskExecutor = scraperTaskExecutor;
+        this.backgroundRefresher = backgroundRefresher;
+        this.queryCanonicalizer = queryCanonicalizer;
+        this.metrics = metrics;
+        queryCanonicalizer.register("categorias", CATEGORY_KEYWORDS.keySet());
+    }
 
     public List<Product> searchProducts(String query) {
-        String normalizedQuery = query.toLowerCase().trim();
+        // Chave canônica: "potenciometro", "potenciômetro" e "potenciomtro" caem na mesma categoria e entrada
+        String normalizedQuery = queryCanonicalizer.canonicalKey(query);
+
+        // Verifica cache (vencida dentro da tolerância: devolve e atualiza em segundo plano)
+        CachedProducts cached = cache.get(normalizedQuery);
+        long now = System.currentTimeMillis();
+        if (cached != null && now <= cached.expiresAt()) {
+            metrics.recordCacheLookup(Cache.SCRAPER, true);
+            if (now > cached.freshUntil()) {
+                backgroundRefresher.refresh("scraper:" + normalizedQuery,
+                        () -> refresh(normalizedQuery),
+                        () -> extend(normalizedQuery));
+            }
+            return new ArrayList<>(cached.products());
+        }
+        metrics.recordCacheLookup(Cache.SCRAPER, false);
+
+        ScrapeResult result = scrape(normalizedQuery);
+        // Resultados parciais não são guardados
+        if (result.complete()) {
+            store(normalizedQuery, result.products());
+        }
+        return result.products();
+    }
 
-        // Verifica cache
-        if (cache.containsKey(normalizedQuery)) {
-            LocalDateTime expiry = cacheExpiry.get(normalizedQuery);
-            if (expiry != null && LocalDateTime.now().isBefore(expiry)) {
-                return new ArrayList<>(cache.get(normalizedQuery));
+    // Nomes dos produtos das listas em cache (sugestões do autocompletar; não dispara raspagem)
+    public Set<String> cachedProductNames() {
+        Set<String> names = new TreeSet<>();
+        for (CachedProducts cached : cache.values()) {
+            for (Product product : cached.products()) {
+                names.add(product.getName());
             }
         }
+        return names;
+    }
 
-        List<Product> results = new ArrayList<>();
+    // Raspagem em segundo plano de uma consulta vencida; falha (inclusive parcial) mantém a lista vencida
+    private void refresh(String normalizedQuery) {
+        ScrapeResult result = scrape(normalizedQuery);
+        if (!result.complete()) {
+            throw new IllegalStateException("raspagem incompleta");
+        }
+        store(normalizedQuery, result.products());
+    }
+
+    private void store(String normalizedQuery, List<Product> products) {
+        long now = System.currentTimeMillis();
+        cache.put(normalizedQuery, new CachedProducts(List.copyOf(products),
+                now + cacheTtlMillis, now + cacheTtlMillis + cacheGraceMillis));
+    }
+
+    // Mais uma janela de tolerância, e nova tentativa só depois de refreshRetryMillis
+    private void extend(String normalizedQuery) {
+        long now = System.currentTimeMillis();
+        cache.computeIfPresent(normalizedQuery, (key, cached) -> now > cached.expiresAt()
+                ? cached
+                : new CachedProducts(cached.products(), now + refreshRetryMillis,
+                        Math.max(cached.expiresAt(), now + cacheGraceMillis)));
+    }
 
-        // Busca na categoria correspondente
-        for (Map.Entry<String, String> entry : CATEGORY_KEYWORDS.entrySet()) {
-            if (normalizedQuery.contains(entry.getKey())) {
-                String fullCategoryUrl = BASE_URL + entry.getValue();
-                results.addAll(scrapeCategoryPage(fullCategoryUrl));
+    private ScrapeResult scrape(String normalizedQuery) {
+        // Categorias correspondentes à busca, raspadas em paralelo
+        List<String> categoryUrls = CATEGORY_KEYWORDS.entrySet().stream()
+                .filter(entry -> normalizedQuery.contains(entry.getKey()))
+                .map(entry -> baseUrl + entry.getValue())
+                .distinct()
+                .limit(MAX_CATEGORIES_PER_QUERY)
+                .toList();
+
+        List<Future<List<Product>>> pages = new ArrayList<>(categoryUrls.size());
+        for (String categoryUrl : categoryUrls) {
+            pages.add(scraperTaskExecutor.submit(() -> scrapeCategoryPage(categoryUrl)));
+        }
+
+        // Não espera as páginas além do prazo da requisição (quando houver)
+        RequestDeadline deadline = RequestDeadline.current();
+        List<Product> results = new ArrayList<>();
+        boolean complete = true;
+        for (Future<List<Product>> page : pages) {
+            try {
+                results.addAll(deadline == null
+                        ? page.get()
+                        : page.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                logger.warn("Raspagem de categorias interrompida pelo prazo da requisição: {}", normalizedQuery);
+                pages.forEach(p -> p.cancel(true));
+                complete = false;
                 break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pages.forEach(p -> p.cancel(true));
+                complete = false;
+                break;
+            } catch (ExecutionException e) {
+                logger.error("Erro ao raspar categoria", e.getCause());
+                complete = false;
             }
         }
 
-        // Atualiza cache
-        cache.put(normalizedQuery, new ArrayList<>(results));
-        cacheExpiry.put(normalizedQuery, LocalDateTime.now().plusMinutes(CACHE_TTL_MINUTES));
-
-        return results;
+        return new ScrapeResult(results, complete);
     }
 
     private List<Product> scrapeCategoryPage(String categoryUrl) {
         List<Product> products = new ArrayList<>();
+        long start = System.nanoTime();
         try {
             logger.debug("Raspando categoria: {}", categoryUrl);
             Document doc = Jsoup.connect(categoryUrl)
@@ -89,7 +211,7 @@ public class SmComponentesScraperService {
                     // Corrige URL relativa para absoluta
                     String fullUrl = relativeUrl.startsWith("http") 
                         ? relativeUrl 
-                        : BASE_URL + relativeUrl;
+                        : baseUrl + relativeUrl;
 
                     String categoryName = getCategoryNameFromUrl(categoryUrl);
                     products.add(new Product(name, categoryName, fullUrl));
@@ -99,7 +221,10 @@ public class SmComponentesScraperService {
             logger.info("Encontrados {} produtos na categoria: {}", products.size(), categoryUrl);
 
         } catch (IOException e) {
-            logger.error("Erro ao raspar categoria: {}", categoryUrl, e);
+            // Propagada para que a consulta não seja guardada (nem substitua a lista em cache) sem esta página
+            throw new UncheckedIOException("Erro ao raspar categoria: " + categoryUrl, e);
+        } finally {
+            metrics.recordScrape(categoryUrl.substring(baseUrl.length()), start);
         }
         return products;
     }
@@ -115,4 +240,10 @@ public class SmComponentesScraperService {
         if (url.contains("bornes")) return "Bornes";
         return "Outros";
     }
+
+    private record CachedProducts(List<Product> products, long freshUntil, long expiresAt) {
+    }
+
+    private record ScrapeResult(List<Product> products, boolean complete) {
+    }
 }
\ No newline at end of file
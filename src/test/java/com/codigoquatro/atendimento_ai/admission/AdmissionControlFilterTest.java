@@ -0,0 +1,115 @@
+package com.codigoquatro.atendimento_ai.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    // Taxa quase nula: o balde não recarrega durante o teste
+    private static AdmissionControlFilter filter(List<String> trustedProxies, int maxConcurrent) {
+        return new AdmissionControlFilter(true, "ip", trustedProxies, 0.001, 2, 1000, 300, maxConcurrent, 500);
+    }
+
+    private static MockHttpServletResponse send(AdmissionControlFilter filter, String remoteAddr, String forwardedFor)
+            throws Exception {
+        return send(filter, "/api/chat/question", remoteAddr, forwardedFor);
+    }
+
+    private static MockHttpServletResponse send(AdmissionControlFilter filter, String path, String remoteAddr,
+                                                String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void shouldRejectWithRetryAfterWhenBurstIsExhausted() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(List.of(), 64);
+
+        // Act
+        MockHttpServletResponse first = send(filter, "203.0.113.7", null);
+        MockHttpServletResponse second = send(filter, "203.0.113.7", null);
+        MockHttpServletResponse third = send(filter, "203.0.113.7", null);
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+        assertTrue(Long.parseLong(third.getHeader("Retry-After")) >= 1);
+        assertTrue(Long.parseLong(third.getHeader("X-Retry-After-Micros")) > 0);
+        assertTrue(third.getContentAsString().contains("Muitas requisições"));
+        assertEquals(1, filter.stats().rejectedRateLimited());
+    }
+
+    @Test
+    void shouldIgnoreSpoofedForwardedForFromUntrustedClient() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(List.of(), 64);
+
+        // Act: um X-Forwarded-For diferente a cada requisição não gera um balde novo
+        int rejected = 0;
+        for (int i = 0; i < 10; i++) {
+            if (send(filter, "203.0.113.7", "198.51.100." + i).getStatus() == 429) rejected++;
+        }
+
+        // Assert
+        assertEquals(8, rejected);
+        assertEquals(1, filter.stats().trackedClients());
+    }
+
+    @Test
+    void shouldUseLastUntrustedHopWhenRequestComesFromTrustedProxy() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(List.of("10.0.0.1"), 64);
+
+        // Act: o cliente forja o primeiro endereço da cadeia; o proxy acrescenta o endereço real
+        int rejected = 0;
+        for (int i = 0; i < 5; i++) {
+            if (send(filter, "10.0.0.1", "198.51.100." + i + ", 203.0.113.7").getStatus() == 429) rejected++;
+        }
+        MockHttpServletResponse otherClient = send(filter, "10.0.0.1", "203.0.113.8");
+
+        // Assert
+        assertEquals(3, rejected);
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(2, filter.stats().trackedClients());
+    }
+
+    @Test
+    void shouldRejectImmediatelyWhenOverloaded() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(List.of(), 0);
+
+        // Act
+        MockHttpServletResponse response = send(filter, "203.0.113.7", null);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, filter.stats().rejectedOverloaded());
+    }
+
+    @Test
+    void shouldNotLimitSuggestEndpoint() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = filter(List.of(), 64);
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send(filter, "/api/chat/suggest", "203.0.113.7", null).getStatus());
+        }
+        assertEquals(0, filter.stats().trackedClients());
+    }
+}
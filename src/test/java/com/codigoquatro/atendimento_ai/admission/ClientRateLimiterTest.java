@@ -0,0 +1,54 @@
+package com.codigoquatro.atendimento_ai.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    @Test
+    void shouldAdmitBurstAndThenRejectWithRetryDelay() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 3, 1000, 8);
+
+        // Act & Assert
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0 && wait <= 1_000_000_000L, "espera deve ser de até 1s, foi " + wait);
+
+        // Outro cliente não é afetado
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void shouldEvictIdleClients() throws InterruptedException {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 3, 1000, 8);
+        limiter.tryAcquire("10.0.0.1");
+        limiter.tryAcquire("10.0.0.2");
+        Thread.sleep(5);
+
+        // Act
+        int removed = limiter.evictIdle(1_000_000L);
+
+        // Assert
+        assertEquals(2, removed);
+        assertEquals(0, limiter.trackedClients());
+    }
+
+    @Test
+    void shouldBoundTrackedClients() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 3, 16, 4);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("cliente-" + i);
+        }
+
+        // Assert
+        assertTrue(limiter.trackedClients() <= 16);
+    }
+}
@@ -0,0 +1,273 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.codigoquatro.atendimento_ai.model.Product;
+import com.codigoquatro.atendimento_ai.service.SmComponentesScraperService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AiServiceSimulatorTest {
+
+    private SmComponentesScraperService scraperService;
+    private AiServiceSimulator aiService;
+    private final BackgroundRefresher refresher = new BackgroundRefresher(new SimpleAsyncTaskExecutor("refresh-teste-"), 30_000);
+
+    @BeforeEach
+    void setUp() {
+        scraperService = mock(SmComponentesScraperService.class);
+        aiService = newService("levenshtein");
+    }
+
+    private AiServiceSimulator newService(String scoring) {
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "modelo-teste");
+        return newService(scoring, SharedResponseCache.standalone(100, metrics), refresher, metrics);
+    }
+
+    private AiServiceSimulator newService(String scoring, SharedResponseCache responseCache,
+                                          BackgroundRefresher backgroundRefresher, ChatMetrics metrics) {
+        return newService(scoring, "http://127.0.0.1:1/api/v1", responseCache, backgroundRefresher,
+                new TokenBudgetGovernor(true, 60_000, 8_000, 800, 250, 4_000, 1_600, 30, 60, System::nanoTime), metrics);
+    }
+
+    private AiServiceSimulator newService(String scoring, String openRouterBaseUrl, SharedResponseCache responseCache,
+                                          BackgroundRefresher backgroundRefresher, TokenBudgetGovernor tokenGovernor,
+                                          ChatMetrics metrics) {
+        return newService(scoring, openRouterBaseUrl, responseCache, backgroundRefresher, tokenGovernor,
+                new SimpleAsyncTaskExecutor("retrieval-teste-"), metrics);
+    }
+
+    private AiServiceSimulator newService(String scoring, String openRouterBaseUrl, SharedResponseCache responseCache,
+                                          BackgroundRefresher backgroundRefresher, TokenBudgetGovernor tokenGovernor,
+                                          AsyncTaskExecutor retrievalExecutor, ChatMetrics metrics) {
+        AiServiceSimulator service = new AiServiceSimulator("chave-teste", "modelo-teste", openRouterBaseUrl, "", scraperService,
+                responseCache,
+                backgroundRefresher,
+                new PrecomputedAnswerStore(24, 100),
+                new ConversationStore(100, 30, 4, 300, 400),
+                new LlmCallScheduler(4, 10, 30_000),
+                tokenGovernor,
+                retrievalExecutor,
+                new TemplateResponder(5, 0.90, 0.85, 0.6, 3, 4),
+                new QueryCanonicalizer(true, 2),
+                new EmbeddingScorer(scoring, 256, 0.60),
+                metrics);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void shouldCancelProductLookupWhenKnowledgeBaseHasExactMatch() throws Exception {
+        // Arrange: a raspagem ficaria bloqueada por 10 s se não fosse cancelada
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(scraperService.searchProducts(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of();
+        });
+        // A busca na base só começa depois que a raspagem já está rodando, para que o cancelamento
+        // tenha o que interromper
+        SimpleAsyncTaskExecutor retrievalExecutor = new SimpleAsyncTaskExecutor("retrieval-teste-") {
+            @Override
+            protected void doExecute(Runnable task) {
+                super.doExecute(task);
+                try {
+                    started.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "modelo-teste");
+        AiServiceSimulator service = newService("levenshtein", "http://127.0.0.1:1/api/v1",
+                SharedResponseCache.standalone(100, metrics), refresher,
+                new TokenBudgetGovernor(true, 60_000, 8_000, 800, 250, 4_000, 1_600, 30, 60, System::nanoTime),
+                retrievalExecutor, metrics);
+
+        // Act
+        long start = System.nanoTime();
+        String answer = service.generateAnswer("quero trocar um produto");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertFalse(answer.isBlank());
+        assertTrue(started.await(2, TimeUnit.SECONDS), "a raspagem deveria ter começado");
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "a raspagem deveria ter sido cancelada");
+        assertTrue(elapsedMs < 2_000, "tempo de resposta: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void shouldNotScrapeProductsForGeneralQuestions() {
+        // Act
+        String answer = aiService.generateAnswer("obrigado");
+
+        // Assert
+        assertFalse(answer.isBlank());
+        verify(scraperService, never()).searchProducts(anyString());
+    }
+
+    @Test
+    void shouldAnswerSimpleProductLookupFromTemplateWithoutCallingLlm() {
+        // Arrange: a chave de API é inválida, então qualquer chamada à IA falharia
+        when(scraperService.searchProducts(anyString())).thenReturn(List.of(
+                new Product("Cabo HDMI 2.0 1,5 Metros", "Áudio e Vídeo", "https://smcomponentes.com.br/loja/cabo-hdmi"),
+                new Product("Conector RCA Macho", "Áudio e Vídeo", "https://smcomponentes.com.br/loja/rca")));
+
+        // Act
+        String answer = aiService.generateAnswer("onde compro cabo hdmi?");
+
+        // Assert
+        assertTrue(answer.contains("<a href=\"https://smcomponentes.com.br/loja/cabo-hdmi\" target=\"_blank\">"));
+        assertFalse(answer.contains("Conector RCA"));
+    }
+
+    @Test
+    void shouldFindReorderedQuestionOnlyWithEmbeddingScoring() {
+        // Arrange
+        AiServiceSimulator embeddingService = newService("embedding");
+        String question = QuestionNormalizer.normalize("o prazo de entrega qual é");
+
+        // Act
+        List<AiServiceSimulator.KnowledgeMatch> levenshteinEntries = aiService.findRelevantEntries(question);
+        List<AiServiceSimulator.KnowledgeMatch> embeddingEntries = embeddingService.findRelevantEntries(question);
+
+        // Assert
+        assertTrue(levenshteinEntries.isEmpty());
+        assertEquals("qual é o prazo de entrega?", embeddingEntries.get(0).entry().getQuestion());
+        assertTrue(embeddingService.hasExactMatch(embeddingEntries, question));
+    }
+
+    @Test
+    void shouldUseCacheForStandaloneQuestionsInsideSession() {
+        // Arrange: a IA (127.0.0.1:1) está inacessível; só o cache evita a resposta de erro
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "modelo-teste");
+        SharedResponseCache responseCache = SharedResponseCache.standalone(100, metrics);
+        AiServiceSimulator service = newService("levenshtein", responseCache, refresher, metrics);
+        String sessionId = "sessao-teste-1";
+        service.getEncodedAnswer("qual é o prazo de entrega?", sessionId);
+        responseCache.put(QuestionNormalizer.normalize("vocês vendem para todo o Brasil?"),
+                EncodedAnswer.of("Sim, enviamos para todo o Brasil."));
+        responseCache.put(QuestionNormalizer.normalize("e aos domingos?"), EncodedAnswer.of("Resposta sem contexto"));
+
+        // Act
+        EncodedAnswer standalone = service.getEncodedAnswer("vocês vendem para todo o Brasil?", sessionId);
+        EncodedAnswer followUp = service.getEncodedAnswer("e aos domingos?", sessionId);
+
+        // Assert
+        assertEquals("Sim, enviamos para todo o Brasil.", standalone.text());
+        assertNotEquals("Resposta sem contexto", followUp.text());
+    }
+
+    @Test
+    void shouldSearchProductsWithPreviousQuestionForProductFollowUp() {
+        // Arrange
+        String sessionId = "sessao-teste-2";
+        aiService.getEncodedAnswer("quero um cabo hdmi", sessionId);
+
+        // Act
+        aiService.getEncodedAnswer("quanto custa esse cabo?", sessionId);
+
+        // Assert: a busca recebe a pergunta anterior como complemento (retrievalQuery)
+        verify(scraperService).searchProducts("quero um cabo hdmi quanto custa esse cabo?");
+    }
+
+    @Test
+    void shouldTreatOnlyContextDependentQuestionsAsFollowUps() {
+        // Act & Assert
+        assertTrue(AiServiceSimulator.dependsOnContext("e o de 3 metros"));
+        assertTrue(AiServiceSimulator.dependsOnContext("quanto custa"));
+        assertTrue(AiServiceSimulator.dependsOnContext("voces tem esse em estoque"));
+        assertFalse(AiServiceSimulator.dependsOnContext("voces vendem para todo o brasil"));
+    }
+
+    @Test
+    void shouldServeStaleAnswerAndKeepItWhenBackgroundRefreshFails() throws Exception {
+        // Arrange: TTL zero com tolerância; a IA (127.0.0.1:1) está inacessível, então a atualização falha
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "modelo-teste");
+        SharedResponseCache responseCache = new SharedResponseCache(100, 0, 120, 60, false, "", List.of(),
+                1, 1, 1, 1, 1, 1, "", metrics);
+        AiServiceSimulator service = newService("levenshtein", responseCache, refresher, metrics);
+        String question = "qual a diferença entre potenciômetro linear e logarítmico?";
+        String normalizedQuestion = QuestionNormalizer.normalize(question);
+        responseCache.put(normalizedQuestion, EncodedAnswer.of("Resposta antiga"));
+        Thread.sleep(5);
+
+        // Act
+        EncodedAnswer answer = service.getEncodedAnswer(question, null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (refresher.stats().failed() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertEquals("Resposta antiga", answer.text());
+        assertEquals(1, refresher.stats().failed());
+        CachedAnswer afterFailure = responseCache.lookup(normalizedQuestion);
+        assertEquals("Resposta antiga", afterFailure.answer().text());
+        assertFalse(afterFailure.stale());
+    }
+
+    @Test
+    void shouldSendGovernedMaxTokensAndRecordUsage() throws Exception {
+        // Arrange: IA local que responde sempre com 1.800 tokens; o orçamento é de 1.000 por minuto
+        List<JsonNode> requests = new CopyOnWriteArrayList<>();
+        HttpServer openRouter = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        openRouter.createContext("/api/v1/chat/completions", exchange -> {
+            requests.add(new ObjectMapper().readTree(exchange.getRequestBody()));
+            byte[] body = """
+                    {"model":"stub/modelo","choices":[{"finish_reason":"length","message":{"content":"Resposta"}}],
+                    "usage":{"prompt_tokens":1500,"completion_tokens":300,"total_tokens":1800}}"""
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        openRouter.start();
+        ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry(), "modelo-teste");
+        TokenBudgetGovernor governor = new TokenBudgetGovernor(true, 1_000, 8_000, 800, 250, 4_000, 1_600, 30, 60,
+                System::nanoTime);
+        AiServiceSimulator service = newService("levenshtein",
+                "http://127.0.0.1:" + openRouter.getAddress().getPort() + "/api/v1",
+                SharedResponseCache.standalone(100, metrics), refresher, governor, metrics);
+
+        try {
+            // Act
+            service.generateAnswer("vocês fazem instalação de som automotivo?");
+            service.generateAnswer("vocês atendem aos sábados pela manhã?");
+        } finally {
+            openRouter.stop(0);
+        }
+
+        // Assert
+        assertEquals(800, requests.get(0).path("max_tokens").asInt());
+        assertTrue(requests.get(1).path("max_tokens").asInt() < 800);
+        TokenBudgetGovernor.GovernorStats stats = governor.stats();
+        assertEquals(2, stats.window().calls());
+        assertEquals(3_000, stats.window().promptTokens());
+        assertEquals(2, stats.intents().get(QuestionIntent.GENERAL_INQUIRY).truncated());
+        assertTrue(stats.models().containsKey("stub/modelo"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundRefresherTest {
+
+    private final BackgroundRefresher refresher = new BackgroundRefresher(new SimpleAsyncTaskExecutor("refresh-teste-"), 5_000);
+
+    @Test
+    void shouldRunOneRefreshPerKeyAtATime() throws Exception {
+        // Arrange: a primeira atualização fica presa até a liberação
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Runnable refresh = () -> {
+            runs.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        };
+
+        // Act
+        boolean first = refresher.refresh("response:prazo", refresh, () -> { });
+        boolean second = refresher.refresh("response:prazo", refresh, () -> { });
+        boolean otherKey = refresher.refresh("scraper:prazo", () -> runs.incrementAndGet(), () -> { });
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(otherKey);
+        assertEquals(1, refresher.stats().deduplicated());
+        awaitIdle();
+        assertEquals(2, runs.get());
+        assertTrue(refresher.refresh("response:prazo", () -> { }, () -> { }), "chave liberada após a atualização");
+    }
+
+    @Test
+    void shouldNotifyFailureAndBindOwnDeadline() throws Exception {
+        // Arrange
+        CountDownLatch failureNotified = new CountDownLatch(1);
+        AtomicInteger remainingMs = new AtomicInteger();
+
+        // Act
+        refresher.refresh("response:frete", () -> {
+            remainingMs.set((int) TimeUnit.NANOSECONDS.toMillis(RequestDeadline.current().remainingNanos()));
+            throw new IllegalStateException("IA indisponível");
+        }, failureNotified::countDown);
+
+        // Assert
+        assertTrue(failureNotified.await(5, TimeUnit.SECONDS));
+        assertTrue(remainingMs.get() > 4_000 && remainingMs.get() <= 5_000, "prazo restante: " + remainingMs.get());
+        awaitIdle();
+        assertEquals(1, refresher.stats().failed());
+    }
+
+    private void awaitIdle() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refresher.stats().inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
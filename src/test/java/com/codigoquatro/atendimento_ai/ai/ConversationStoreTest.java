@@ -0,0 +1,69 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationStoreTest {
+
+    private static final String SESSION = "sessao-teste-1";
+
+    @Test
+    void shouldKeepRenderedHistoryBoundedRegardlessOfConversationLength() {
+        // Arrange
+        ConversationStore store = new ConversationStore(100, 30, 2, 50, 80);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            store.recordTurn(SESSION, "pergunta número " + i + " sobre cabos", "<p>resposta " + i + "</p>");
+        }
+        String history = store.find(SESSION).render();
+
+        // Assert
+        assertTrue(history.contains("pergunta número 49"));
+        assertTrue(history.contains("pergunta número 48"));
+        assertFalse(history.contains("<p>"));
+        assertFalse(history.contains("pergunta número 0 "));
+        assertTrue(history.length() < 2 * (50 + 50) + 80 + 100);
+    }
+
+    @Test
+    void shouldReturnLastQuestionOfSession() {
+        // Arrange
+        ConversationStore store = new ConversationStore(100, 30, 4, 300, 400);
+        store.recordTurn(SESSION, "quanto custa o cabo hdmi?", "R$ 25,00");
+
+        // Act & Assert
+        assertEquals("quanto custa o cabo hdmi?", store.find(SESSION).lastQuestion());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSessionsWhenFull() {
+        // Arrange
+        ConversationStore store = new ConversationStore(10, 30, 4, 300, 400);
+
+        // Act
+        for (int i = 0; i < 25; i++) {
+            store.recordTurn("sessao-numero-" + i, "oi", "olá");
+        }
+
+        // Assert
+        ConversationStore.SessionStats stats = store.stats();
+        assertTrue(stats.activeSessions() <= 10);
+        assertTrue(stats.evictions() >= 15);
+        assertNotNull(store.find("sessao-numero-24"));
+    }
+
+    @Test
+    void shouldIgnoreInvalidSessionIds() {
+        // Arrange
+        ConversationStore store = new ConversationStore(10, 30, 4, 300, 400);
+
+        // Act
+        store.recordTurn(null, "oi", "olá");
+        store.recordTurn("id inválido!", "oi", "olá");
+
+        // Assert
+        assertEquals(0, store.stats().activeSessions());
+    }
+}
@@ -0,0 +1,80 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingScorerTest {
+
+    private final EmbeddingScorer scorer = new EmbeddingScorer("embedding", 256, 0.60);
+
+    @Test
+    void shouldIgnoreWordOrderAndTolerateTypos() {
+        // Act
+        double reordered = scorer.similarity("preço do cabo", "cabo preço do");
+        double typo = scorer.similarity("qual o prazo de entrga", "qual é o prazo de entrega");
+        double unrelated = scorer.similarity("qual o valor do frete", "como redefinir minha senha");
+
+        // Assert
+        assertEquals(1.0, reordered, 1e-5);
+        assertTrue(typo >= 0.60, "similaridade com erro de digitação: " + typo);
+        assertTrue(unrelated < 0.30, "similaridade sem relação: " + unrelated);
+    }
+
+    @Test
+    void shouldComputeSameScoresWithScalarAndVectorKernels() {
+        // Arrange: 37 linhas e 24 dimensões exercitam a sobra que não preenche um vetor SIMD
+        int rows = 37;
+        int dimensions = 24;
+        Random random = new Random(7);
+        float[] matrix = new float[rows * dimensions];
+        float[] query = new float[dimensions];
+        for (int i = 0; i < matrix.length; i++) matrix[i] = random.nextFloat() - 0.5f;
+        for (int i = 0; i < query.length; i++) query[i] = random.nextFloat() - 0.5f;
+        float[] scalar = new float[rows];
+        float[] vector = new float[rows];
+
+        // Act
+        new ScalarSimilarityKernel().scores(matrix, rows, dimensions, query, scalar);
+        new VectorSimilarityKernel().scores(matrix, rows, dimensions, query, vector);
+
+        // Assert
+        for (int i = 0; i < rows; i++) {
+            assertEquals(scalar[i], vector[i], 1e-4, "linha " + i);
+        }
+    }
+
+    @Test
+    void shouldReturnBestMatchesAboveThresholdBreakingTiesBySourceOrder() {
+        // Arrange: "aceitam pix" e "pix aceitam" têm o mesmo vetor; a primeira no JSON vence
+        KnowledgeBase knowledgeBase = InMemoryKnowledgeBase.of(List.of(
+                entry("Aceitam PIX?"),
+                entry("Qual é o prazo de entrega?"),
+                entry("Pix aceitam?"),
+                entry("Como redefinir minha senha?")));
+        EmbeddingScorer.Matrix matrix = scorer.index(knowledgeBase);
+
+        // Act
+        int[] matches = scorer.topMatches(matrix, "aceitam pix", 3);
+
+        // Assert
+        assertEquals(2, matches.length);
+        assertEquals("Aceitam PIX?", knowledgeBase.entry(matches[0]).getQuestion());
+        assertEquals("Pix aceitam?", knowledgeBase.entry(matches[1]).getQuestion());
+    }
+
+    @Test
+    void shouldRejectUnknownScoringMode() {
+        assertThrows(IllegalArgumentException.class, () -> new EmbeddingScorer("bm25", 256, 0.60));
+    }
+
+    private static AiServiceSimulator.KnowledgeEntry entry(String question) {
+        AiServiceSimulator.KnowledgeEntry entry = new AiServiceSimulator.KnowledgeEntry();
+        entry.setQuestion(question);
+        entry.setAnswer("resposta");
+        return entry;
+    }
+}
@@ -0,0 +1,49 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncodedAnswerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldProduceValidJsonLiteralForHtmlAndControlCharacters() throws Exception {
+        // Arrange
+        String answer = "Confira <a href=\"https://smcomponentes.com.br/loja\" target=\"_blank\">o catálogo</a> 😊\n"
+                + "\tCaminho: C:\\loja\u0001\u001f";
+
+        // Act
+        EncodedAnswer encoded = EncodedAnswer.of(answer);
+        String json = new String(encoded.json(), StandardCharsets.UTF_8);
+
+        // Assert
+        assertEquals(answer, objectMapper.readValue(json, String.class));
+        assertFalse(json.contains("\u0001"));
+        assertEquals(answer, encoded.text());
+    }
+
+    @Test
+    void shouldDecodeLiteralFromAnotherReplicaAndKeepOnlyBytes() {
+        // Arrange: escapes que o codificador local não gera (unicode e barra) chegam de outra réplica
+        byte[] json = "\"Caf\\u00e9 \\/ \\\"loja\\\"\"".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        EncodedAnswer answer = EncodedAnswer.parse(json);
+
+        // Assert
+        assertEquals("Café / \"loja\"", answer.text());
+        assertEquals(answer.json().length, answer.sizeInBytes());
+    }
+
+    @Test
+    void shouldEncodeNullAsJsonNull() {
+        // Act & Assert
+        assertEquals("null", new String(EncodedAnswer.of(null).json(), StandardCharsets.US_ASCII));
+        assertNull(EncodedAnswer.of(null).text());
+    }
+}
@@ -0,0 +1,133 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.ai.LlmCallScheduler.SchedulerStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmCallSchedulerTest {
+
+    @Test
+    void shouldDropCallWhenRequestDeadlineAlreadyExpired() {
+        // Arrange
+        LlmCallScheduler scheduler = new LlmCallScheduler(4, 10, 30_000);
+        AtomicBoolean called = new AtomicBoolean();
+
+        // Act
+        try (RequestDeadline.Scope ignored = RequestDeadline.after(Duration.ZERO).bind()) {
+            assertThrows(DeadlineExceededException.class,
+                    () -> scheduler.execute(QuestionIntent.GENERAL_INQUIRY, deadline -> called.getAndSet(true)));
+        }
+
+        // Assert
+        assertFalse(called.get());
+        assertEquals(1, scheduler.stats().classes().get(QuestionIntent.GENERAL_INQUIRY).dropped());
+    }
+
+    @Test
+    void shouldPassRequestDeadlineToCall() {
+        // Arrange
+        LlmCallScheduler scheduler = new LlmCallScheduler(4, 10, 30_000);
+
+        // Act
+        long remaining;
+        try (RequestDeadline.Scope ignored = RequestDeadline.after(Duration.ofSeconds(2)).bind()) {
+            remaining = scheduler.execute(QuestionIntent.PRODUCT_INQUIRY, RequestDeadline::remainingNanos);
+        }
+
+        // Assert: o prazo da requisição (2 s) prevalece sobre o timeout padrão (30 s)
+        assertTrue(remaining > 0 && remaining <= TimeUnit.SECONDS.toNanos(2), "restante: " + remaining);
+        assertEquals(1, scheduler.stats().classes().get(QuestionIntent.PRODUCT_INQUIRY).executed());
+    }
+
+    @Test
+    void shouldServeProductInquiriesBeforeGeneralOnesWhenSaturated() throws Exception {
+        // Arrange: uma única vaga, ocupada até liberarmos
+        LlmCallScheduler scheduler = new LlmCallScheduler(1, 10, 30_000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        List<QuestionIntent> order = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> scheduler.execute(QuestionIntent.SUPPORT_REQUEST, d -> {
+            holding.countDown();
+            awaitQuietly(releaseHolder);
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> general = enqueue(scheduler, QuestionIntent.GENERAL_INQUIRY, order);
+        awaitQueued(scheduler, 1);
+        CompletableFuture<Void> product = enqueue(scheduler, QuestionIntent.PRODUCT_INQUIRY, order);
+        awaitQueued(scheduler, 2);
+
+        // Act
+        releaseHolder.countDown();
+        CompletableFuture.allOf(holder, general, product).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(List.of(QuestionIntent.PRODUCT_INQUIRY, QuestionIntent.GENERAL_INQUIRY), order);
+        SchedulerStats stats = scheduler.stats();
+        assertEquals(0, stats.inFlight());
+        assertTrue(stats.classes().get(QuestionIntent.GENERAL_INQUIRY).maxWaitMs() > 0);
+    }
+
+    @Test
+    void shouldDropQueuedCallWhenDeadlineExpiresWhileWaiting() throws Exception {
+        // Arrange
+        LlmCallScheduler scheduler = new LlmCallScheduler(1, 10, 30_000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch releaseHolder = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> scheduler.execute(QuestionIntent.PRODUCT_INQUIRY, d -> {
+            holding.countDown();
+            awaitQuietly(releaseHolder);
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> {
+            try (RequestDeadline.Scope ignored = RequestDeadline.after(Duration.ofMillis(100)).bind()) {
+                return scheduler.execute(QuestionIntent.GENERAL_INQUIRY, d -> "não deveria executar");
+            }
+        });
+
+        // Assert
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, thrown.getCause());
+        assertEquals(1, scheduler.stats().classes().get(QuestionIntent.GENERAL_INQUIRY).dropped());
+        assertEquals(0, scheduler.stats().queued());
+
+        releaseHolder.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    private static CompletableFuture<Void> enqueue(LlmCallScheduler scheduler, QuestionIntent intent,
+                                                   List<QuestionIntent> order) {
+        return CompletableFuture.runAsync(() -> scheduler.execute(intent, d -> order.add(intent)));
+    }
+
+    private static void awaitQueued(LlmCallScheduler scheduler, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.stats().queued() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, scheduler.stats().queued());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedKnowledgeBaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<AiServiceSimulator.KnowledgeEntry> entries = List.of(
+            entry("Qual é o prazo de entrega?", "De 3 a 7 dias úteis 😊"),
+            entry("oi", "Olá! Como posso ajudar?"),
+            entry("Aceitam PIX?", "Sim! Aceitamos Pix, cartão e boleto."),
+            entry("olá", "Olá! Como posso ajudar?"));
+
+    @Test
+    void shouldOrderEntriesByNormalizedLengthAndDecodeOnDemand() throws IOException {
+        // Arrange
+        Path file = compile(entries, 42);
+
+        // Act
+        MappedKnowledgeBase kb = MappedKnowledgeBase.open(file, 42L);
+
+        // Assert
+        assertEquals(4, kb.size());
+        assertEquals("oi", kb.normalizedQuestion(0).toString());
+        assertEquals("ola", kb.normalizedQuestion(1).toString());
+        assertEquals("aceitam pix", kb.normalizedQuestion(2).toString());
+        assertEquals("qual e o prazo de entrega", kb.normalizedQuestion(3).toString());
+        assertEquals(0, kb.sourceOrder(3));
+        assertEquals("Qual é o prazo de entrega?", kb.entry(3).getQuestion());
+        assertEquals("Aceitam PIX?", kb.question(2));
+        assertEquals("De 3 a 7 dias úteis 😊", kb.entry(3).getAnswer());
+        assertEquals(kb.entry(0).getAnswer(), kb.entry(1).getAnswer());
+    }
+
+    @Test
+    void shouldFindFirstIndexForLengthWindow() throws IOException {
+        // Arrange
+        MappedKnowledgeBase kb = MappedKnowledgeBase.open(compile(entries, 42));
+
+        // Act & Assert
+        assertEquals(0, kb.firstIndexWithLengthAtLeast(0));
+        assertEquals(1, kb.firstIndexWithLengthAtLeast(3));
+        assertEquals(2, kb.firstIndexWithLengthAtLeast(4));
+        assertEquals(4, kb.firstIndexWithLengthAtLeast(100));
+    }
+
+    @Test
+    void shouldMatchInMemoryOrdering() throws IOException {
+        // Arrange
+        MappedKnowledgeBase mapped = MappedKnowledgeBase.open(compile(entries, 42));
+        InMemoryKnowledgeBase inMemory = InMemoryKnowledgeBase.of(entries);
+
+        // Act & Assert
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(inMemory.normalizedQuestion(i).toString(), mapped.normalizedQuestion(i).toString());
+            assertEquals(inMemory.sourceOrder(i), mapped.sourceOrder(i));
+        }
+    }
+
+    @Test
+    void shouldRejectFileCompiledFromAnotherJson() throws IOException {
+        // Arrange
+        Path file = compile(entries, 42);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> MappedKnowledgeBase.open(file, 43L));
+    }
+
+    @Test
+    void shouldRejectUnknownOrTruncatedFile() throws IOException {
+        // Arrange
+        Path json = tempDir.resolve("knowledge_base.json");
+        Files.writeString(json, "[{\"question\":\"oi\",\"answer\":\"Olá\"}]");
+        Path compiled = compile(entries, 42);
+        Path truncated = tempDir.resolve("truncated.kbm");
+        byte[] bytes = Files.readAllBytes(compiled);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> MappedKnowledgeBase.open(json));
+        assertThrows(IOException.class, () -> MappedKnowledgeBase.open(truncated));
+    }
+
+    private Path compile(List<AiServiceSimulator.KnowledgeEntry> source, long checksum) throws IOException {
+        Path file = Files.createTempFile(tempDir, "kb", ".kbm");
+        KnowledgeBaseCompiler.compile(source, checksum, file);
+        return file;
+    }
+
+    private static AiServiceSimulator.KnowledgeEntry entry(String question, String answer) {
+        AiServiceSimulator.KnowledgeEntry entry = new AiServiceSimulator.KnowledgeEntry();
+        entry.setQuestion(question);
+        entry.setAnswer(answer);
+        return entry;
+    }
+}
@@ -0,0 +1,55 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCanonicalizerTest {
+
+    private final QueryCanonicalizer canonicalizer = new QueryCanonicalizer(true, 2);
+
+    @Test
+    void shouldFoldAccentsAndCorrectMisspelledCatalogTerms() {
+        // Act
+        String accents = canonicalizer.canonicalKey("Vocês têm garantía no POTENCIÔMETRO?");
+        String typos = canonicalizer.canonicalKey("quero um cabo hdmy e um potenciomtro");
+
+        // Assert
+        assertEquals("voces tem garantia no potenciometro", accents);
+        assertEquals("quero um cabo hdmi e um potenciometro", typos);
+    }
+
+    @Test
+    void shouldKeepShortWordsWordsWithDigitsAndKnownWords() {
+        // Act: "caro" está no vocabulário e não vira "cabo"; "p1o" e "pix" são curtos ou têm dígitos
+        String canonical = canonicalizer.canonicalKey("é caro o p1o aceitam pix");
+
+        // Assert
+        assertEquals("e caro o p1o aceitam pix", canonical);
+    }
+
+    @Test
+    void shouldLearnVocabularyFromRegisteredSources() {
+        // Arrange
+        canonicalizer.register("teste", List.of("Borneira Wago 222"));
+
+        // Act
+        String canonical = canonicalizer.canonicalKey("borneira wagoo");
+
+        // Assert
+        assertEquals("borneira wago", canonical);
+        assertEquals("borneira", canonicalizer.canonicalKey("bornieira"));
+        assertTrue(canonicalizer.stats().corrections() > 0);
+    }
+
+    @Test
+    void shouldReturnSameInstanceWhenNothingChanges() {
+        // Arrange
+        String normalized = "qual o prazo de entrega";
+
+        // Act / Assert
+        assertSame(normalized, canonicalizer.canonicalize(normalized));
+    }
+}
@@ -0,0 +1,186 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.cluster.ConsistentHashRing;
+import com.codigoquatro.atendimento_ai.cluster.PeerCacheClient;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Três réplicas no localhost, cada uma com um servidor HTTP que atende o protocolo interno
+ * delegando ao próprio cache (o mesmo que o InternalCacheController faz na aplicação).
+ */
+class SharedResponseCacheTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+    private final List<SharedResponseCache> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+            servers.add(server);
+            urls.add("http://127.0.0.1:" + server.getAddress().getPort());
+        }
+        for (int i = 0; i < 3; i++) {
+            SharedResponseCache node = new SharedResponseCache(100, 30, 120, 60, true, urls.get(i), urls, 160, 50, 60,
+                    500, 60_000, 2, "segredo", new ChatMetrics(new SimpleMeterRegistry(), "teste"));
+            nodes.add(node);
+            servers.get(i).createContext(PeerCacheClient.PATH, exchange -> serve(node, exchange));
+            servers.get(i).start();
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void shouldStoreAnswerOnOwnerAndServeItToOtherReplicas() {
+        // Arrange
+        String key = "qual o prazo de entrega";
+        int owner = ownerOf(key);
+        int writer = (owner + 1) % 3;
+        int reader = (owner + 2) % 3;
+
+        // Act
+        nodes.get(writer).put(key, EncodedAnswer.of("De 3 a 7 dias úteis"));
+        EncodedAnswer onOwner = awaitOwned(owner, key);
+        EncodedAnswer onReader = nodes.get(reader).get(key);
+
+        // Assert
+        assertNotNull(onOwner);
+        assertNotNull(onReader);
+        assertEquals("De 3 a 7 dias úteis", onReader.text());
+        assertEquals(1, nodes.get(reader).stats().remoteHits());
+        assertEquals(1, nodes.get(reader).stats().nearCacheEntries());
+    }
+
+    @Test
+    void shouldKeepOwnedKeysLocal() {
+        // Arrange
+        String key = "aceitam pix";
+        int owner = ownerOf(key);
+
+        // Act
+        nodes.get(owner).put(key, EncodedAnswer.of("Sim!"));
+
+        // Assert
+        assertEquals("Sim!", nodes.get(owner).get(key).text());
+        assertEquals(0, nodes.get(owner).stats().remoteStores());
+    }
+
+    @Test
+    void shouldDropUnreachableOwnerFromRing() {
+        // Arrange
+        String key = "vocês vendem trimpot";
+        int owner = ownerOf(key);
+        int reader = (owner + 1) % 3;
+        servers.get(owner).stop(0);
+
+        // Act
+        EncodedAnswer first = nodes.get(reader).get(key);
+        int ringAfterFirstFailure = nodes.get(reader).stats().ring().size();
+        EncodedAnswer second = nodes.get(reader).get(key);
+
+        // Assert: falha vira ausência no cache e, na segunda seguida, a réplica sai do anel
+        assertNull(first);
+        assertNull(second);
+        assertEquals(3, ringAfterFirstFailure);
+        assertEquals(2, nodes.get(reader).stats().remoteErrors());
+        assertEquals(2, nodes.get(reader).stats().ring().size());
+        assertFalse(nodes.get(reader).stats().ring().contains(urls.get(owner)));
+    }
+
+    @Test
+    void shouldServeStaleAnswerWithinGraceAndExtendItAfterFailedRefresh() throws Exception {
+        // Arrange: TTL zero, 120 minutos de tolerância, nova tentativa após 60 s
+        SharedResponseCache cache = new SharedResponseCache(100, 0, 120, 60, false, "", List.of(), 1, 1, 1, 1, 1, 1, "",
+                new ChatMetrics(new SimpleMeterRegistry(), "teste"));
+        cache.put("aceitam pix", EncodedAnswer.of("Sim!"));
+        Thread.sleep(5);
+
+        // Act
+        CachedAnswer stale = cache.lookup("aceitam pix");
+        cache.extend("aceitam pix");
+        CachedAnswer extended = cache.lookup("aceitam pix");
+
+        // Assert
+        assertEquals("Sim!", stale.answer().text());
+        assertTrue(stale.stale());
+        assertEquals("Sim!", extended.answer().text());
+        assertFalse(extended.stale());
+    }
+
+    @Test
+    void shouldRefuseEveryTokenWithoutConfiguredClusterToken() {
+        // Arrange: cluster pedido, mas sem cluster.token
+        SharedResponseCache withoutToken = new SharedResponseCache(100, 30, 120, 60, true, urls.get(0), urls, 160, 50,
+                60, 500, 60_000, 2, "", new ChatMetrics(new SimpleMeterRegistry(), "teste"));
+
+        // Act & Assert
+        assertFalse(withoutToken.stats().enabled());
+        assertFalse(withoutToken.acceptsToken(""));
+        assertFalse(withoutToken.acceptsToken(null));
+        assertFalse(nodes.get(0).acceptsToken(null));
+        assertFalse(nodes.get(0).acceptsToken("segredo-errado"));
+        assertTrue(nodes.get(0).acceptsToken("segredo"));
+    }
+
+    private int ownerOf(String key) {
+        return urls.indexOf(new ConsistentHashRing(urls, 160).owner(key));
+    }
+
+    // A gravação no dono é assíncrona
+    private EncodedAnswer awaitOwned(int owner, String key) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        EncodedAnswer answer;
+        while ((answer = nodes.get(owner).getOwned(key)) == null && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return answer;
+    }
+
+    private static void serve(SharedResponseCache node, HttpExchange exchange) throws IOException {
+        if (!"segredo".equals(exchange.getRequestHeaders().getFirst(PeerCacheClient.TOKEN_HEADER))) {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+            return;
+        }
+        String key = URLDecoder.decode(exchange.getRequestURI().getRawQuery().substring("key=".length()),
+                StandardCharsets.UTF_8);
+        if ("PUT".equals(exchange.getRequestMethod())) {
+            node.putOwned(key, EncodedAnswer.parse(exchange.getRequestBody().readAllBytes()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        EncodedAnswer answer = node.getOwned(key);
+        if (answer == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, answer.json().length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(answer.json());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.ai.SuggestionTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTest {
+
+    private static List<String> texts(List<EncodedAnswer> suggestions) {
+        return suggestions.stream().map(EncodedAnswer::text).toList();
+    }
+
+    @Test
+    void shouldCompletePrefixOrderedByFrequency() {
+        // Arrange
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                new Suggestion("Qual o prazo de entrega?", 12),
+                new Suggestion("Qual o preço do cabo HDMI?", 30),
+                new Suggestion("Quais formas de pagamento vocês aceitam?", 5),
+                new Suggestion("Cabo HDMI", 1)), 5);
+
+        // Act
+        List<String> qual = texts(trie.complete("qual o p", 5));
+        List<String> qua = texts(trie.complete("qua", 5));
+
+        // Assert
+        assertEquals(List.of("Qual o preço do cabo HDMI?", "Qual o prazo de entrega?"), qual);
+        assertEquals(List.of("Qual o preço do cabo HDMI?", "Qual o prazo de entrega?",
+                "Quais formas de pagamento vocês aceitam?"), qua);
+        assertEquals(List.of("Cabo HDMI"), texts(trie.complete("cabo", 5)));
+    }
+
+    @Test
+    void shouldMatchNormalizedPrefixAndReturnOriginalText() {
+        // Arrange
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                new Suggestion("Potenciômetro Linear", 2),
+                new Suggestion("Potenciômetro Log", 1)), 5);
+
+        // Act
+        List<String> result = texts(trie.complete(QuestionNormalizer.normalize("POTENCIÔM"), 5));
+
+        // Assert
+        assertEquals(List.of("Potenciômetro Linear", "Potenciômetro Log"), result);
+    }
+
+    @Test
+    void shouldReturnEmptyWhenNoPhraseStartsWithPrefix() {
+        // Arrange
+        SuggestionTrie trie = SuggestionTrie.build(List.of(new Suggestion("cabo hdmi", 3)), 5);
+
+        // Act & Assert
+        assertTrue(trie.complete("cabos", 5).isEmpty());
+        assertTrue(trie.complete("xlr", 5).isEmpty());
+        assertTrue(trie.complete("cabo", 0).isEmpty());
+        assertTrue(SuggestionTrie.empty().complete("cabo", 5).isEmpty());
+    }
+
+    @Test
+    void shouldKeepHeaviestPhraseForDuplicateKeysAndBreakTiesByLength() {
+        // Arrange
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                new Suggestion("cabo hdmi", 2),
+                new Suggestion("Cabo HDMI!", 7),
+                new Suggestion("cabo vga macho", 4),
+                new Suggestion("cabo vga", 4)), 5);
+
+        // Act
+        List<String> result = texts(trie.complete("cabo", 5));
+
+        // Assert
+        assertEquals(3, trie.size());
+        assertEquals(List.of("Cabo HDMI!", "cabo vga", "cabo vga macho"), result);
+    }
+
+    @Test
+    void shouldLimitSuggestionsPerNodeAndKeepTopWeights() {
+        // Arrange
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            suggestions.add(new Suggestion("conector modelo " + i, i));
+        }
+        SuggestionTrie trie = SuggestionTrie.build(suggestions, 3);
+
+        // Act
+        List<String> all = texts(trie.complete("conector", 10));
+        List<String> two = texts(trie.complete("conector modelo 4", 2));
+
+        // Assert
+        assertEquals(List.of("conector modelo 49", "conector modelo 48", "conector modelo 47"), all);
+        assertEquals(List.of("conector modelo 49", "conector modelo 48"), two);
+        assertEquals(49, trie.maxWeight());
+        assertTrue(trie.sizeInBytes() > 0);
+    }
+}
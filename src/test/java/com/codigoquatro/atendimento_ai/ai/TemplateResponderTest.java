@@ -0,0 +1,66 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import com.codigoquatro.atendimento_ai.ai.TemplateResponder.ResponderStats;
+import com.codigoquatro.atendimento_ai.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateResponderTest {
+
+    private final TemplateResponder responder = new TemplateResponder(5, 0.90, 0.85, 0.6, 3, 4);
+
+    private final List<Product> products = List.of(
+            new Product("Potenciômetro Linear 10K", "Potenciômetros", "https://smcomponentes.com.br/loja/pot-10k"),
+            new Product("Potenciômetro Log 50K", "Potenciômetros", "https://smcomponentes.com.br/loja/pot-50k"),
+            new Product("Trimpot <Multivoltas>", "Potenciômetros", "https://smcomponentes.com.br/loja/trimpot"));
+
+    @Test
+    void shouldRenderRankedProductsForSimpleLookupIgnoringAccents() {
+        // Act
+        String answer = responder.renderProducts("Onde compro potenciometro 10k?", products);
+
+        // Assert: o produto com todos os termos aparece primeiro
+        assertNotNull(answer);
+        assertTrue(answer.indexOf("pot-10k") < answer.indexOf("pot-50k") || !answer.contains("pot-50k"));
+        assertTrue(answer.contains("target=\"_blank\""));
+    }
+
+    @Test
+    void shouldEscapeScrapedProductNames() {
+        // Act
+        String answer = responder.renderProducts("vocês tem trimpot multivoltas?", products);
+
+        // Assert
+        assertNotNull(answer);
+        assertTrue(answer.contains("Trimpot &lt;Multivoltas&gt;"));
+    }
+
+    @Test
+    void shouldLeaveLowConfidenceQuestionsToLlm() {
+        // Act & Assert: nenhum produto corresponde, e perguntas técnicas longas não usam o template
+        assertNull(responder.renderProducts("onde compro capacitor eletrolítico?", products));
+        assertNull(responder.renderProducts(
+                "qual potenciometro usar para controlar volume de amplificador valvulado antigo?", products));
+    }
+
+    @Test
+    void shouldReportBypassRate() {
+        // Arrange
+        responder.recordKnowledgeBaseAnswer();
+        responder.recordProductTemplateAnswer();
+        responder.recordProductTemplateAnswer();
+        responder.recordLlmAnswer();
+
+        // Act
+        ResponderStats stats = responder.stats();
+
+        // Assert
+        assertEquals(0.75, stats.bypassRate(), 1e-9);
+        assertTrue(responder.isConfidentKnowledgeMatch(3, 0.5));
+        assertTrue(responder.isConfidentKnowledgeMatch(8, 0.92));
+        assertFalse(responder.isConfidentKnowledgeMatch(8, 0.80));
+    }
+}
@@ -0,0 +1,108 @@
+package com.codigoquatro.atendimento_ai.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBudgetGovernorTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private TokenBudgetGovernor governor(long tokensPerMinute, long latencySloMs) {
+        return new TokenBudgetGovernor(true, tokensPerMinute, latencySloMs, 800, 200, 4_000, 1_600, 30, 60, now::get);
+    }
+
+    private static TokenBudgetGovernor.TokenUsage usage(int prompt, int completion) {
+        return new TokenBudgetGovernor.TokenUsage(prompt, completion, false);
+    }
+
+    @Test
+    void shouldUseFullLimitsWhileUnderBudgetAndSlo() {
+        // Arrange
+        TokenBudgetGovernor governor = governor(10_000, 5_000);
+        governor.record(QuestionIntent.GENERAL_INQUIRY, "modelo", usage(600, 100), TimeUnit.SECONDS.toNanos(1), false);
+
+        // Act
+        TokenBudgetGovernor.TokenPlan plan = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+
+        // Assert
+        assertEquals(800, plan.maxTokens());
+        assertEquals(4_000, plan.maxContextChars());
+        assertEquals(1.0, plan.factor());
+    }
+
+    @Test
+    void shouldTightenOverBudgetAndRelaxWhenWindowEmpties() {
+        // Arrange: 4.000 tokens na janela para um orçamento de 2.000 por minuto
+        TokenBudgetGovernor governor = governor(2_000, 60_000);
+        governor.record(QuestionIntent.GENERAL_INQUIRY, "modelo", usage(3_000, 1_000), TimeUnit.SECONDS.toNanos(1), false);
+
+        // Act
+        TokenBudgetGovernor.TokenPlan general = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+        TokenBudgetGovernor.TokenPlan product = governor.plan(QuestionIntent.PRODUCT_INQUIRY);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        TokenBudgetGovernor.TokenPlan stillInWindow = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        TokenBudgetGovernor.TokenPlan idle = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+
+        // Assert: produto (maior prioridade) perde menos; sem chamadas na janela o limite volta ao máximo
+        assertEquals(400, general.maxTokens());
+        assertEquals(2_000, general.maxContextChars());
+        assertTrue(product.maxTokens() > general.maxTokens() && product.maxTokens() < 800);
+        assertEquals(400, stillInWindow.maxTokens());
+        assertEquals(800, idle.maxTokens());
+    }
+
+    @Test
+    void shouldRelaxGraduallyAfterLoadDrops() {
+        // Arrange: consumo acima do orçamento, consultado até o balde sair da janela
+        TokenBudgetGovernor governor = governor(2_000, 60_000);
+        governor.record(QuestionIntent.GENERAL_INQUIRY, "modelo", usage(3_000, 1_000), TimeUnit.SECONDS.toNanos(1), false);
+        governor.plan(QuestionIntent.GENERAL_INQUIRY);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        governor.plan(QuestionIntent.GENERAL_INQUIRY);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        governor.plan(QuestionIntent.GENERAL_INQUIRY);
+
+        // Act: 9 s depois de a janela esvaziar (relax-seconds = 30), parte do caminho de volta
+        now.addAndGet(TimeUnit.SECONDS.toNanos(7));
+        TokenBudgetGovernor.TokenPlan plan = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+
+        // Assert
+        assertTrue(plan.maxTokens() > 400 && plan.maxTokens() < 800, "max_tokens: " + plan.maxTokens());
+    }
+
+    @Test
+    void shouldTightenWhenLatencyExceedsSloAndKeepMinimumTokens() {
+        // Arrange: latência média de 20 s para um SLO de 2 s
+        TokenBudgetGovernor governor = governor(1_000_000, 2_000);
+        governor.record(QuestionIntent.SUPPORT_REQUEST, "modelo", usage(500, 200), TimeUnit.SECONDS.toNanos(20), true);
+
+        // Act
+        TokenBudgetGovernor.TokenPlan plan = governor.plan(QuestionIntent.GENERAL_INQUIRY);
+        TokenBudgetGovernor.GovernorStats stats = governor.stats();
+
+        // Assert
+        assertEquals(200, plan.maxTokens());
+        assertEquals(400, plan.maxContextChars());
+        assertEquals(1, stats.intents().get(QuestionIntent.SUPPORT_REQUEST).truncated());
+        assertEquals(700, stats.models().get("modelo").promptTokens() + stats.models().get("modelo").completionTokens());
+    }
+
+    @Test
+    void shouldKeepMostRecentHistoryAndFirstContextLines() {
+        // Arrange
+        TokenBudgetGovernor.TokenPlan plan = new TokenBudgetGovernor.TokenPlan(800, 12, 12, 0.5);
+
+        // Act
+        String context = plan.limitContext("linha um\nlinha dois\n");
+        String history = plan.limitHistory("Cliente: a\nAtendente: b\nCliente: c\n");
+
+        // Assert
+        assertEquals("linha um", context);
+        assertEquals("Cliente: c\n", history);
+    }
+}
@@ -0,0 +1,77 @@
+package com.codigoquatro.atendimento_ai.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 20_000;
+    private static final List<String> THREE = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    void shouldSpreadKeysEvenlyAcrossMembers() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(THREE, 160);
+        Map<String, Integer> counts = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner("pergunta " + i), 1, Integer::sum);
+        }
+
+        // Assert: cada membro fica com ~1/3 das chaves
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(Math.abs(count - KEYS / 3.0) < KEYS * 0.08, counts.toString()));
+    }
+
+    @Test
+    void shouldRemapOnlyAboutOneNthOfKeysWhenMemberJoins() {
+        // Arrange
+        ConsistentHashRing before = new ConsistentHashRing(THREE, 160);
+        ConsistentHashRing after = new ConsistentHashRing(
+                List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 160);
+
+        // Act
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "pergunta " + i;
+            String oldOwner = before.owner(key);
+            String newOwner = after.owner(key);
+            if (!oldOwner.equals(newOwner)) {
+                moved++;
+                // Assert: só o novo membro recebe chaves
+                assertEquals("http://d:8080", newOwner);
+            }
+        }
+
+        // Assert: ~1/4 das chaves mudam de dono
+        double fraction = (double) moved / KEYS;
+        assertTrue(fraction > 0.17 && fraction < 0.33, "fração remapeada: " + fraction);
+    }
+
+    @Test
+    void shouldMoveOnlyKeysOfTheMemberThatLeaves() {
+        // Arrange
+        ConsistentHashRing before = new ConsistentHashRing(THREE, 160);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("http://a:8080", "http://c:8080"), 160);
+
+        // Act & Assert
+        for (int i = 0; i < KEYS; i++) {
+            String key = "pergunta " + i;
+            if (!before.owner(key).equals("http://b:8080")) {
+                assertEquals(before.owner(key), after.owner(key));
+            }
+        }
+    }
+
+    @Test
+    void shouldReturnNullOwnerForEmptyRing() {
+        // Act & Assert
+        assertNull(new ConsistentHashRing(List.of(), 160).owner("oi"));
+    }
+}
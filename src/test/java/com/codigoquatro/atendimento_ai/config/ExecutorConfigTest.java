@@ -0,0 +1,110 @@
+package com.codigoquatro.atendimento_ai.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorConfigTest {
+
+    @Test
+    void shouldBoundConcurrencyOfPlatformThreadExecutor() throws Exception {
+        // Arrange
+        ExecutorConfig config = new ExecutorConfig(new MockEnvironment());
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) config.batchTaskExecutor(4, 100);
+        executor.initialize();
+
+        // Act
+        int maxObserved = runBlockingTasks(executor, 20, 20);
+        executor.shutdown();
+
+        // Assert
+        assertTrue(maxObserved <= 4, "concorrência máxima observada: " + maxObserved);
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void shouldScaleBlockingTasksWithVirtualThreads() throws Exception {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+        AsyncTaskExecutor executor = new ExecutorConfig(environment).batchTaskExecutor(1000, 0);
+
+        // Act: 1000 tarefas bloqueando 100 ms terminam em poucas "ondas", sem pool fixo
+        long start = System.nanoTime();
+        int maxObserved = runBlockingTasks(executor, 1000, 100);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(maxObserved > 200, "concorrência máxima observada: " + maxObserved);
+        assertTrue(elapsedMs < 3000, "tempo total: " + elapsedMs + " ms");
+    }
+
+    @Test
+    void shouldRejectTasksBeyondConcurrencyPlusQueueCapacity() throws Exception {
+        // Arrange
+        BoundedAsyncTaskExecutor executor = new BoundedAsyncTaskExecutor("teste-", 2, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        Runnable blocking = () -> {
+            maxObserved.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+        List<Future<?>> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accepted.add(executor.submit(blocking));
+        }
+
+        // Act
+        assertThrows(TaskRejectedException.class, () -> executor.submit(blocking));
+        release.countDown();
+        for (Future<?> future : accepted) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Future<?> afterDrain = executor.submit(() -> { });
+
+        // Assert
+        afterDrain.get(10, TimeUnit.SECONDS);
+        assertTrue(maxObserved.get() <= 2, "concorrência máxima observada: " + maxObserved.get());
+    }
+
+    private static int runBlockingTasks(AsyncTaskExecutor executor, int tasks, long sleepMs) throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(() -> {
+                maxObserved.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        return maxObserved.get();
+    }
+}
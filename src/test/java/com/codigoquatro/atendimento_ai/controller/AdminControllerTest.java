@@ -0,0 +1,82 @@
+package com.codigoquatro.atendimento_ai.controller;
+
+import com.codigoquatro.atendimento_ai.ai.BackgroundRefresher;
+import com.codigoquatro.atendimento_ai.ai.ConversationStore;
+import com.codigoquatro.atendimento_ai.ai.LlmCallScheduler;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.ai.SharedResponseCache;
+import com.codigoquatro.atendimento_ai.ai.TemplateResponder;
+import com.codigoquatro.atendimento_ai.ai.TokenBudgetGovernor;
+import com.codigoquatro.atendimento_ai.service.FrequentQuestionPrecomputeJob;
+import com.codigoquatro.atendimento_ai.service.QuestionSuggestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+@TestPropertySource(properties = "admin.token=segredo-admin")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FrequentQuestionPrecomputeJob precomputeJob;
+
+    @MockitoBean
+    private QuestionSuggestService questionSuggestService;
+
+    @MockitoBean
+    private ConversationStore conversationStore;
+
+    @MockitoBean
+    private LlmCallScheduler llmCallScheduler;
+
+    @MockitoBean
+    private TemplateResponder templateResponder;
+
+    @MockitoBean
+    private SharedResponseCache responseCache;
+
+    @MockitoBean
+    private BackgroundRefresher backgroundRefresher;
+
+    @MockitoBean
+    private QueryCanonicalizer queryCanonicalizer;
+
+    @MockitoBean
+    private TokenBudgetGovernor tokenGovernor;
+
+    @Test
+    void shouldRefusePrecomputeAndSuggestRefreshWithoutAdminToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/precompute"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/precompute").header(AdminController.ADMIN_TOKEN_HEADER, "chute"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/suggest/refresh"))
+                .andExpect(status().isForbidden());
+
+        verify(precomputeJob, never()).run();
+        verify(questionSuggestService, never()).refresh();
+    }
+
+    @Test
+    void shouldRunPrecomputeAndSuggestRefreshWithAdminToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/precompute").header(AdminController.ADMIN_TOKEN_HEADER, "segredo-admin"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/admin/suggest/refresh").header(AdminController.ADMIN_TOKEN_HEADER, "segredo-admin"))
+                .andExpect(status().isOk());
+
+        verify(precomputeJob).run();
+        verify(questionSuggestService).refresh();
+    }
+}
@@ -1,16 +1,25 @@
 package com.codigoquatro.atendimento_ai.controller;
 
 import com.codigoquatro.atendimento_ai.model.InteractionLog;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
 import com.codigoquatro.atendimento_ai.service.InteractionService;
+import com.codigoquatro.atendimento_ai.service.QuestionSuggestService;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,6 +32,9 @@ class ChatControllerTest {
     @MockitoBean
     private InteractionService interactionService;
 
+    @MockitoBean
+    private QuestionSuggestService questionSuggestService;
+
     @Test
     void shouldReturnAnswerWhenQuestionIsProvided() throws Exception {
         // Arrange
@@ -80,4 +92,117 @@ class ChatControllerTest {
         // Verifica que o serviço NÃO foi chamado
         verify(interactionService, never()).processQuestion(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnBatchResultsInInputOrder() throws Exception {
+        // Arrange
+        InteractionLog first = new InteractionLog("oi", "Olá!");
+        first.setId(1L);
+        InteractionLog second = new InteractionLog("prazo de entrega?", "Até 3 dias úteis.");
+        second.setId(2L);
+        when(interactionService.processQuestions(List.of("oi", "prazo de entrega?"))).thenReturn(List.of(first, second));
+
+        String jsonRequest = "{ \"questions\": [\"oi\", \"prazo de entrega?\"] }";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/chat/questions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.results[0].question").value("oi"))
+                .andExpect(jsonPath("$.results[0].answer").value("Olá!"))
+                .andExpect(jsonPath("$.results[1].answer").value("Até 3 dias úteis."))
+                .andExpect(jsonPath("$.results[1].interactionId").value("2"));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenBatchIsEmpty() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/chat/questions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"questions\": [] }"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Informe ao menos uma pergunta."));
+
+        verify(interactionService, never()).processQuestions(anyList());
+    }
+
+    @Test
+    void shouldIgnoreDebugHeaderByDefault() throws Exception {
+        // Arrange
+        InteractionLog processedLog = new InteractionLog("oi", "Olá!");
+        processedLog.setId(3L);
+        when(interactionService.processQuestion("oi")).thenReturn(processedLog);
+
+        // Act & Assert: a linha do tempo interna não é exposta sem trace.debug-header.enabled=true
+        mockMvc.perform(post("/api/chat/question")
+                        .header("X-Debug-Trace", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"question\": \"oi\" }"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Debug-Trace"));
+    }
+
+    @Nested
+    @TestPropertySource(properties = "trace.debug-header.enabled=true")
+    class WithDebugHeaderEnabled {
+
+        // Contexto próprio (com a propriedade ligada): os campos da classe externa vêm do outro contexto
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private InteractionService interactionService;
+
+        @Test
+        void shouldReturnTraceTimelineOnlyWhenDebugHeaderIsSent() throws Exception {
+            // Arrange
+            InteractionLog processedLog = new InteractionLog("oi", "Olá!");
+            processedLog.setId(3L);
+            when(interactionService.processQuestion("oi")).thenReturn(processedLog);
+
+            // Act & Assert
+            mockMvc.perform(post("/api/chat/question")
+                            .header("X-Debug-Trace", "1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{ \"question\": \"oi\" }"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Debug-Trace", startsWith("id=")));
+
+            mockMvc.perform(post("/api/chat/question")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{ \"question\": \"oi\" }"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("X-Debug-Trace"));
+        }
+    }
+
+    @Test
+    void shouldReturnSuggestionsForPrefix() throws Exception {
+        // Arrange
+        when(questionSuggestService.suggest("qual o pr", 3)).thenReturn(List.of(
+                EncodedAnswer.of("Qual o prazo de entrega?"), EncodedAnswer.of("Qual o preço do \"cabo\" HDMI?")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/chat/suggest").param("q", "qual o pr").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Cache-Control", startsWith("max-age=60")))
+                .andExpect(jsonPath("$.suggestions[0]").value("Qual o prazo de entrega?"))
+                .andExpect(jsonPath("$.suggestions[1]").value("Qual o preço do \"cabo\" HDMI?"));
+
+        verify(interactionService, never()).processQuestion(anyString());
+    }
+
+    @Test
+    void shouldReturnEmptySuggestionsWithoutPrefix() throws Exception {
+        // Arrange
+        when(questionSuggestService.suggest("", null)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/chat/suggest"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"suggestions\":[]}"));
+    }
+}
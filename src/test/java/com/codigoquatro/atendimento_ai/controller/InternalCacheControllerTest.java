@@ -0,0 +1,84 @@
+package com.codigoquatro.atendimento_ai.controller;
+
+import com.codigoquatro.atendimento_ai.ai.SharedResponseCache;
+import com.codigoquatro.atendimento_ai.cluster.PeerCacheClient;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(InternalCacheController.class)
+@Import(SharedResponseCache.class)
+@TestPropertySource(properties = {
+        "cluster.enabled=true",
+        "cluster.token=segredo",
+        "cluster.self=http://127.0.0.1:1",
+        "cluster.peers=http://127.0.0.1:1"
+})
+class InternalCacheControllerTest {
+
+    private static final byte[] POISONED = "\"<img src=x onerror=alert(1)>\"".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SharedResponseCache responseCache;
+
+    @MockitoBean
+    private ChatMetrics metrics;
+
+    @Test
+    void shouldRefusePutWithoutToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put(PeerCacheClient.PATH).param("key", "aceitam pix")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(POISONED))
+                .andExpect(status().isForbidden());
+
+        assertNull(responseCache.lookupOwned("aceitam pix"));
+    }
+
+    @Test
+    void shouldRefusePutAndGetWithWrongToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put(PeerCacheClient.PATH).param("key", "aceitam pix")
+                        .header(PeerCacheClient.TOKEN_HEADER, "chute")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(POISONED))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get(PeerCacheClient.PATH).param("key", "aceitam pix")
+                        .header(PeerCacheClient.TOKEN_HEADER, "chute"))
+                .andExpect(status().isForbidden());
+
+        assertNull(responseCache.lookupOwned("aceitam pix"));
+    }
+
+    @Test
+    void shouldStoreAndServeWithClusterToken() throws Exception {
+        // Act
+        mockMvc.perform(put(PeerCacheClient.PATH).param("key", "qual o prazo de entrega")
+                        .header(PeerCacheClient.TOKEN_HEADER, "segredo")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("\"De 3 a 7 dias úteis\"".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isNoContent());
+
+        // Assert
+        mockMvc.perform(get(PeerCacheClient.PATH).param("key", "qual o prazo de entrega")
+                        .header(PeerCacheClient.TOKEN_HEADER, "segredo"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("\"De 3 a 7 dias úteis\"".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.codigoquatro.atendimento_ai.load;
+
+import com.codigoquatro.atendimento_ai.ai.TokenBudgetGovernor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Harness de carga reproduzível: sobe a aplicação apontando para stubs locais da OpenRouter e
+ * da loja e dispara perguntas em taxa constante (modelo aberto: novas requisições saem no horário
+ * mesmo que as anteriores ainda não tenham voltado, evitando a omissão coordenada).
+ *
+ * <p>Fica fora do {@code mvn test} padrão. Uso:
+ * <pre>
+ * mvn -Pload test
+ * mvn -Pload test -Dload.rate=200 -Dload.duration-seconds=60 -Dload.llm.median-ms=800 -Dload.llm.p99-ms=4000
+ * mvn -Pload test -Dload.llm.tokens-per-minute=20000   (orçamento apertado: o governador reduz max_tokens)
+ * </pre>
+ * O relatório é impresso no log e gravado em {@code target/load-report.txt}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChatLoadHarnessTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatLoadHarnessTest.class);
+
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "50"));
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final double LLM_ERROR_RATE = Double.parseDouble(System.getProperty("load.llm.error-rate", "0.01"));
+
+    // Mistura de perguntas com peso: saudações e perguntas frequentes (acertos de cache),
+    // perguntas de produto (raspagem) e perguntas únicas que sempre chegam à IA
+    private static final List<WeightedQuestion> MIX = List.of(
+            new WeightedQuestion(15, "Olá, bom dia!"),
+            new WeightedQuestion(15, "qual é o prazo de entrega?"),
+            new WeightedQuestion(10, "aceitam pix?"),
+            new WeightedQuestion(10, "como faço para solicitar troca?"),
+            new WeightedQuestion(10, "onde compro cabo hdmi?"),
+            new WeightedQuestion(10, "qual o preço do potenciômetro linear?"),
+            new WeightedQuestion(5, "preciso de um adaptador p2 para p10"),
+            new WeightedQuestion(5, "vocês vendem plug banana?"),
+            new WeightedQuestion(10, "meu pedido %d ainda não chegou, o que faço?"),
+            new WeightedQuestion(10, "vocês fazem instalação de som no carro modelo %d?")
+    );
+
+    private static final OpenRouterStub openRouter;
+    private static final StorefrontStub storefront;
+
+    static {
+        try {
+            openRouter = new OpenRouterStub(LatencyDistribution.fromSystemProperties("load.llm", 600, 3000),
+                    LLM_ERROR_RATE, 7);
+            storefront = new StorefrontStub(LatencyDistribution.fromSystemProperties("load.storefront", 80, 400), 11);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("openrouter.base-url", openRouter::baseUrl);
+        registry.add("openrouter.api.key", () -> "load-test");
+        registry.add("scraper.base-url", storefront::baseUrl);
+        // Todo o tráfego vem do mesmo IP: o limite por cliente mediria o harness, não a aplicação
+        registry.add("admission.client.rate-per-second", () -> "100000");
+        registry.add("admission.client.burst", () -> "100000");
+        registry.add("precompute.enabled", () -> "false");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.org.springframework.web", () -> "INFO");
+        registry.add("trace.sample-rate", () -> "0");
+        registry.add("llm.governor.tokens-per-minute", () -> System.getProperty("load.llm.tokens-per-minute", "60000"));
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        openRouter.close();
+        storefront.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TokenBudgetGovernor tokenGovernor;
+
+    @Test
+    void constantArrivalRate() throws Exception {
+        // Arrange
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/api/chat/question");
+        drive(client, uri, WARMUP_SECONDS, new Random(1), null, null);
+        Map<String, long[]> cacheBaseline = cacheCounts();
+        long llmBaseline = openRouter.requests();
+        long storefrontBaseline = storefront.requests();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicLong maxHeapUsed = new AtomicLong();
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(() -> maxHeapUsed.accumulateAndGet(
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max),
+                0, 200, TimeUnit.MILLISECONDS);
+
+        // Act
+        long started = System.nanoTime();
+        try {
+            drive(client, uri, DURATION_SECONDS, new Random(2), latencies, statuses);
+        } finally {
+            heapSampler.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        Map<Integer, Long> statusCounts = new HashMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        LoadReport report = new LoadReport(RATE, elapsedSeconds,
+                latencies.stream().mapToLong(Long::longValue).toArray(), statusCounts,
+                cacheHitRatios(cacheBaseline, cacheCounts()), maxHeapUsed.get(),
+                openRouter.requests() - llmBaseline, storefront.requests() - storefrontBaseline);
+        String formatted = report.format();
+        logger.info("Resultado da carga:{}{}", System.lineSeparator(), formatted);
+        Files.writeString(Path.of("target", "load-report.txt"), formatted, StandardCharsets.UTF_8);
+        logger.info("Orçamento de tokens: {} tokens no stub, último max_tokens={}, {}",
+                openRouter.tokens(), openRouter.lastMaxTokens(), tokenGovernor.stats());
+
+        // Assert
+        assertThat(report.completed()).isPositive();
+        assertThat(report.serverErrors()).isZero();
+    }
+
+    /**
+     * Agenda as requisições em intervalos fixos de 1/RATE e aguarda todas terminarem. A latência
+     * conta a partir do horário agendado, então atrasos do próprio gerador também aparecem.
+     */
+    private void drive(HttpClient client, URI uri, int seconds, Random random,
+                       ConcurrentLinkedQueue<Long> latencies, ConcurrentHashMap<Integer, LongAdder> statuses) {
+        long intervalNanos = (long) (1_000_000_000L / RATE);
+        long total = (long) (RATE * seconds);
+        long origin = System.nanoTime();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>((int) Math.min(total, Integer.MAX_VALUE));
+
+        for (long i = 0; i < total; i++) {
+            long intended = origin + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody(random)))
+                    .build();
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (latencies != null) {
+                            latencies.add(System.nanoTime() - intended);
+                            int status = error != null ? 0 : response.statusCode();
+                            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static String requestBody(Random random) {
+        int totalWeight = MIX.stream().mapToInt(WeightedQuestion::weight).sum();
+        int pick = random.nextInt(totalWeight);
+        for (WeightedQuestion candidate : MIX) {
+            pick -= candidate.weight();
+            if (pick < 0) {
+                String question = candidate.text().formatted(random.nextInt(1_000_000));
+                return "{\"question\":\"" + question + "\"}";
+            }
+        }
+        throw new IllegalStateException("Pesos inválidos");
+    }
+
+    // {acertos, falhas} acumulados por cache
+    private Map<String, long[]> cacheCounts() {
+        Map<String, long[]> counts = new HashMap<>();
+        for (Counter counter : meterRegistry.find("chat.cache.lookups").counters()) {
+            long[] pair = counts.computeIfAbsent(counter.getId().getTag("cache"), c -> new long[2]);
+            pair["hit".equals(counter.getId().getTag("result")) ? 0 : 1] += (long) counter.count();
+        }
+        return counts;
+    }
+
+    private static Map<String, Double> cacheHitRatios(Map<String, long[]> before, Map<String, long[]> after) {
+        Map<String, Double> ratios = new HashMap<>();
+        after.forEach((cache, pair) -> {
+            long[] base = before.getOrDefault(cache, new long[2]);
+            long hits = pair[0] - base[0];
+            long lookups = hits + pair[1] - base[1];
+            if (lookups > 0) {
+                ratios.put(cache, (double) hits / lookups);
+            }
+        });
+        return ratios;
+    }
+
+    private record WeightedQuestion(int weight, String text) {
+    }
+}
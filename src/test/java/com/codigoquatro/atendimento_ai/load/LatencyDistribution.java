@@ -0,0 +1,27 @@
+package com.codigoquatro.atendimento_ai.load;
+
+import java.util.Random;
+
+/**
+ * Latência log-normal definida pela mediana e pelo p99, que é como os provedores costumam
+ * descrever seus tempos de resposta. Com p99 igual à mediana a latência é fixa.
+ */
+record LatencyDistribution(long medianMs, long p99Ms) {
+
+    // Quantil 0,99 da normal padrão
+    private static final double Z_99 = 2.326;
+
+    long sampleMs(Random random) {
+        if (medianMs <= 0) {
+            return 0;
+        }
+        double sigma = p99Ms > medianMs ? Math.log((double) p99Ms / medianMs) / Z_99 : 0;
+        return Math.round(medianMs * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    static LatencyDistribution fromSystemProperties(String prefix, long defaultMedianMs, long defaultP99Ms) {
+        return new LatencyDistribution(
+                Long.getLong(prefix + ".median-ms", defaultMedianMs),
+                Long.getLong(prefix + ".p99-ms", defaultP99Ms));
+    }
+}
@@ -0,0 +1,76 @@
+package com.codigoquatro.atendimento_ai.load;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de uma rodada de carga: latências (medidas a partir do instante em que a requisição
+ * deveria ter saído), contagem por status, taxas de acerto dos caches e uso de heap.
+ */
+final class LoadReport {
+
+    private final double targetRate;
+    private final double elapsedSeconds;
+    private final long[] latenciesNanos;
+    private final Map<Integer, Long> statusCounts;
+    private final Map<String, Double> cacheHitRatios;
+    private final long maxHeapUsedBytes;
+    private final long llmCalls;
+    private final long storefrontCalls;
+
+    LoadReport(double targetRate, double elapsedSeconds, long[] latenciesNanos, Map<Integer, Long> statusCounts,
+               Map<String, Double> cacheHitRatios, long maxHeapUsedBytes, long llmCalls, long storefrontCalls) {
+        this.targetRate = targetRate;
+        this.elapsedSeconds = elapsedSeconds;
+        this.latenciesNanos = latenciesNanos.clone();
+        Arrays.sort(this.latenciesNanos);
+        this.statusCounts = new TreeMap<>(statusCounts);
+        this.cacheHitRatios = new TreeMap<>(cacheHitRatios);
+        this.maxHeapUsedBytes = maxHeapUsedBytes;
+        this.llmCalls = llmCalls;
+        this.storefrontCalls = storefrontCalls;
+    }
+
+    long completed() {
+        return latenciesNanos.length;
+    }
+
+    long count(int status) {
+        return statusCounts.getOrDefault(status, 0L);
+    }
+
+    long serverErrors() {
+        return statusCounts.entrySet().stream()
+                .filter(e -> e.getKey() >= 500 || e.getKey() == 0)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    // Percentil pelo método do posto mais próximo
+    double percentileMs(double percentile) {
+        if (latenciesNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length);
+        return latenciesNanos[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    String format() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append(String.format(Locale.ROOT, "Taxa alvo:      %.1f req/s%n", targetRate));
+        sb.append(String.format(Locale.ROOT, "Vazão obtida:   %.1f req/s (%d concluídas em %.1fs)%n",
+                completed() / elapsedSeconds, completed(), elapsedSeconds));
+        sb.append(String.format(Locale.ROOT, "Latência:       p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+                percentileMs(50), percentileMs(99), percentileMs(99.9), percentileMs(100)));
+        sb.append("Status:         ").append(statusCounts).append(System.lineSeparator());
+        sb.append("Acerto cache:   ");
+        cacheHitRatios.forEach((cache, ratio) -> sb.append(String.format(Locale.ROOT, "%s=%.1f%% ", cache, ratio * 100)));
+        sb.append(System.lineSeparator());
+        sb.append(String.format(Locale.ROOT, "Heap máx. usado: %.1f MB%n", maxHeapUsedBytes / (1024.0 * 1024.0)));
+        sb.append("Chamadas stub:  openrouter=").append(llmCalls).append(" loja=").append(storefrontCalls)
+                .append(System.lineSeparator());
+        return sb.toString();
+    }
+}
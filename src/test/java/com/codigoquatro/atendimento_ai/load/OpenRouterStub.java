@@ -0,0 +1,129 @@
+package com.codigoquatro.atendimento_ai.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor local compatível com a API de chat completions da OpenRouter/OpenAI, com latência
+ * e taxa de erro configuráveis. Responde em HTML com links, como o modelo real.
+ *
+ * <p>O bloco {@code usage} acompanha o pedido: tokens do prompt estimados pelo tamanho do corpo
+ * (~4 bytes por token) e tokens da resposta limitados ao {@code max_tokens} recebido (com
+ * {@code finish_reason = "length"} quando o limite corta a resposta).
+ */
+final class OpenRouterStub implements AutoCloseable {
+
+    private static final String ANSWER = """
+            {"id":"gen-stub","model":"stub","choices":[{"index":0,"finish_reason":"%s","message":{"role":"assistant",\
+            "content":"Olá! 😊 Temos várias opções na SM Componentes. Confira em <a href=\\"https://smcomponentes.com.br/loja\\" \
+            target=\\"_blank\\">nosso catálogo</a> ou fale conosco pelo <a href=\\"https://wa.me/5585999055729\\" \
+            target=\\"_blank\\">WhatsApp (85)99905-5729</a>."}}],\
+            "usage":{"prompt_tokens":%d,"completion_tokens":%d,"total_tokens":%d}}""";
+    private static final int ANSWER_TOKENS = 85;
+    private static final Pattern MAX_TOKENS = Pattern.compile("\"max_tokens\"\\s*:\\s*(\\d+)");
+    private static final byte[] ERROR = "{\"error\":{\"code\":503,\"message\":\"stub overloaded\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicInteger lastMaxTokens = new AtomicInteger();
+
+    OpenRouterStub(LatencyDistribution latency, double errorRate, long seed) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        this.server.createContext("/api/v1/chat/completions", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1";
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    // Tokens (prompt + resposta) informados nas respostas de sucesso
+    long tokens() {
+        return tokens.get();
+    }
+
+    int lastMaxTokens() {
+        return lastMaxTokens.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        byte[] request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = body.readAllBytes();
+        }
+        Matcher maxTokens = MAX_TOKENS.matcher(new String(request, StandardCharsets.UTF_8));
+        int limit = maxTokens.find() ? Integer.parseInt(maxTokens.group(1)) : Integer.MAX_VALUE;
+        lastMaxTokens.set(limit);
+        long delayMs;
+        boolean fail;
+        synchronized (random) {
+            delayMs = latency.sampleMs(random);
+            fail = random.nextDouble() < errorRate;
+        }
+        sleep(delayMs);
+
+        byte[] response;
+        if (fail) {
+            response = ERROR;
+            errors.incrementAndGet();
+        } else {
+            int promptTokens = request.length / 4;
+            int completionTokens = Math.min(ANSWER_TOKENS, limit);
+            tokens.addAndGet(promptTokens + completionTokens);
+            response = ANSWER.formatted(completionTokens < ANSWER_TOKENS ? "length" : "stop",
+                    promptTokens, completionTokens, promptTokens + completionTokens).getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? 503 : 200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
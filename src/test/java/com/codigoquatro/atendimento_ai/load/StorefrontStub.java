@@ -0,0 +1,76 @@
+package com.codigoquatro.atendimento_ai.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor local com as páginas de categoria da loja gravadas em {@code src/test/resources/storefront},
+ * no mesmo formato de marcação raspado pelo {@code SmComponentesScraperService}.
+ */
+final class StorefrontStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final LatencyDistribution latency;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+
+    StorefrontStub(LatencyDistribution latency, long seed) throws IOException {
+        this.latency = latency;
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        this.server.createContext("/loja/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/loja/";
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String category = exchange.getRequestURI().getPath().substring("/loja/".length());
+        long delayMs;
+        synchronized (random) {
+            delayMs = latency.sampleMs(random);
+        }
+        OpenRouterStub.sleep(delayMs);
+
+        byte[] page = null;
+        if (category.matches("[a-z0-9-]+")) {
+            try (InputStream in = StorefrontStub.class.getResourceAsStream("/storefront/" + category + ".html")) {
+                if (in != null) page = in.readAllBytes();
+            }
+        }
+        if (page == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, page.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(page);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
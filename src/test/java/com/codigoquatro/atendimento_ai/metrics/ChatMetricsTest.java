@@ -0,0 +1,58 @@
+package com.codigoquatro.atendimento_ai.metrics;
+
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Cache;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ChatMetrics metrics = new ChatMetrics(registry, "openai/gpt-3.5-turbo");
+
+    @Test
+    void shouldRecordStageDurations() {
+        // Arrange
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+
+        // Act
+        metrics.recordStage(Stage.KB_RETRIEVAL, start);
+
+        // Assert
+        var timer = registry.get("chat.stage.duration").tag("stage", "kb_retrieval").timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 5);
+        assertEquals(0, registry.get("chat.stage.duration").tag("stage", "persistence").timer().count());
+    }
+
+    @Test
+    void shouldTagOpenRouterCallsByModelAndStatus() {
+        // Act
+        metrics.recordOpenRouter(200, System.nanoTime());
+        metrics.recordOpenRouter(429, System.nanoTime());
+        metrics.recordOpenRouter(0, System.nanoTime());
+
+        // Assert
+        assertEquals(1, registry.get("chat.openrouter.duration")
+                .tags("model", "openai/gpt-3.5-turbo", "status", "429").timer().count());
+        assertEquals(1, registry.get("chat.openrouter.duration").tag("status", "error").timer().count());
+    }
+
+    @Test
+    void shouldCountCacheHitsAndMissesAndScrapesPerCategory() {
+        // Act
+        metrics.recordCacheLookup(Cache.RESPONSE, true);
+        metrics.recordCacheLookup(Cache.RESPONSE, false);
+        metrics.recordCacheLookup(Cache.RESPONSE, true);
+        metrics.recordScrape("categoria-bornes", System.nanoTime());
+
+        // Assert
+        assertEquals(2, registry.get("chat.cache.lookups").tags("cache", "response", "result", "hit").counter().count());
+        assertEquals(1, registry.get("chat.cache.lookups").tags("cache", "response", "result", "miss").counter().count());
+        assertEquals(1, registry.get("chat.scraper.category.duration").tag("category", "categoria-bornes").timer().count());
+    }
+}
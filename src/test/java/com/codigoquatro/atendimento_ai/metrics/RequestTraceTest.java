@@ -0,0 +1,64 @@
+package com.codigoquatro.atendimento_ai.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTraceTest {
+
+    @Test
+    void shouldBeInactiveWhenNotRequestedNorSampled() {
+        // Act
+        RequestTrace trace = RequestTrace.start(false, 0.0);
+        try (RequestTrace.Scope ignored = trace.bind()) {
+            RequestTrace.current().span("kb_retrieval", System.nanoTime(), System.nanoTime());
+            RequestTrace.current().tag("intent", "GENERAL_INQUIRY");
+        }
+
+        // Assert
+        assertFalse(trace.isActive());
+        assertSame(trace, RequestTrace.current());
+        assertEquals("", trace.timeline());
+    }
+
+    @Test
+    void shouldRecordSpansAndTagsInTimeline() {
+        // Arrange
+        RequestTrace trace = RequestTrace.start(true, 0.0);
+        long start = System.nanoTime();
+
+        // Act
+        try (RequestTrace.Scope ignored = trace.bind()) {
+            RequestTrace.current().tag("intent", "PRODUCT_INQUIRY");
+            RequestTrace.current().span("openrouter[200]", start, start + TimeUnit.MILLISECONDS.toNanos(250));
+        }
+        String timeline = trace.timeline();
+
+        // Assert
+        assertTrue(trace.isDebug());
+        assertTrue(timeline.startsWith("id=" + trace.id()));
+        assertTrue(timeline.contains("intent=PRODUCT_INQUIRY"));
+        assertTrue(timeline.contains("openrouter[200]@"));
+        assertTrue(timeline.contains("+250.0ms"));
+        assertFalse(RequestTrace.current().isActive());
+    }
+
+    @Test
+    void shouldPropagateTraceToTasksOnOtherThreads() throws Exception {
+        // Arrange
+        RequestTrace trace = RequestTrace.start(true, 0.0);
+        Runnable task;
+        try (RequestTrace.Scope ignored = trace.bind()) {
+            task = RequestTrace.propagate(() -> RequestTrace.current().tag("cache.scraper", "miss"));
+        }
+
+        // Act
+        CompletableFuture.runAsync(task).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(trace.timeline().contains("cache.scraper=miss"));
+    }
+}
@@ -0,0 +1,235 @@
+package com.codigoquatro.atendimento_ai.repository;
+
+import com.codigoquatro.atendimento_ai.model.InteractionLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedInteractionLogTest {
+
+    @TempDir
+    Path dir;
+
+    private SegmentedInteractionLog open(long segmentBytes, boolean compression) throws IOException {
+        return new SegmentedInteractionLog(dir.toString(), segmentBytes, 256, true, compression, 64, 1000, 256, 5_000);
+    }
+
+    private static InteractionLog interaction(String question, String answer, LocalDateTime createdAt) {
+        InteractionLog log = new InteractionLog(question, answer);
+        log.setCreatedAt(createdAt);
+        return log;
+    }
+
+    @Test
+    void shouldAssignSequentialIdsAndFindByIdAcrossRolledSegments() throws Exception {
+        // Arrange: segmentos de 1 KB forçam várias trocas de arquivo
+        SegmentedInteractionLog log = open(1024, false);
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 12, 0);
+        List<InteractionLog> saved = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            saved.add(log.save(interaction("pergunta " + i, "resposta " + i, base.plusMinutes(i))));
+        }
+
+        // Assert
+        assertEquals(1L, saved.get(0).getId());
+        assertEquals(100L, saved.get(99).getId());
+        assertTrue(log.stats().segments() > 1);
+        InteractionLog found = log.findById(57L).orElseThrow();
+        assertEquals("pergunta 56", found.getQuestion());
+        assertEquals("resposta 56", found.getAnswer());
+        assertEquals(base.plusMinutes(56), found.getCreatedAt());
+        assertTrue(log.findById(101L).isEmpty());
+        log.close();
+    }
+
+    @Test
+    void shouldReadTimeRangesAndQuestionsSince() throws Exception {
+        // Arrange
+        SegmentedInteractionLog log = open(2048, false);
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 0, 0);
+        for (int i = 0; i < 48; i++) {
+            log.save(interaction("pergunta da hora " + i, "resposta", base.plusHours(i)));
+        }
+
+        // Act
+        List<InteractionLog> range = log.findBetween(base.plusHours(10), base.plusHours(13));
+        List<String> since = log.findQuestionsSince(base.plusHours(45));
+
+        // Assert
+        assertEquals(List.of("pergunta da hora 10", "pergunta da hora 11", "pergunta da hora 12"),
+                range.stream().map(InteractionLog::getQuestion).toList());
+        assertEquals(List.of("pergunta da hora 45", "pergunta da hora 46", "pergunta da hora 47"), since);
+        log.close();
+    }
+
+    @Test
+    void shouldGroupConcurrentWritesIntoBatches() throws Exception {
+        // Arrange
+        SegmentedInteractionLog log = open(64 * 1024 * 1024, false);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<InteractionLog>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 2_000; i++) {
+            String question = "pergunta concorrente " + i;
+            futures.add(executor.submit(() -> log.save(new InteractionLog(question, "resposta"))));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<InteractionLog> future : futures) {
+            ids.add(future.get().getId());
+        }
+        executor.shutdown();
+
+        // Assert: ids únicos e menos fsyncs que gravações
+        assertEquals(2_000, ids.size());
+        SegmentedInteractionLog.LogStats stats = log.stats();
+        assertEquals(2_000, stats.records());
+        assertTrue(stats.syncs() < 2_000, "fsyncs: " + stats.syncs());
+        log.close();
+    }
+
+    @Test
+    void shouldRecoverAfterCrashByDiscardingTornTail() throws Exception {
+        // Arrange: gravações sem fechamento limpo (sem .idx) e um registro pela metade no fim
+        SegmentedInteractionLog log = open(64 * 1024 * 1024, false);
+        for (int i = 0; i < 10; i++) {
+            log.save(new InteractionLog("pergunta " + i, "resposta " + i));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 90, 1, 2, 3, 4, 5}));
+        }
+        long sizeWithGarbage = Files.size(segment);
+
+        // Act
+        SegmentedInteractionLog recovered = open(64 * 1024 * 1024, false);
+        InteractionLog next = recovered.save(new InteractionLog("depois da queda", "resposta"));
+
+        // Assert
+        assertEquals(10, recovered.stats().records() - 1);
+        assertEquals(11L, next.getId());
+        assertEquals("pergunta 9", recovered.findById(10L).orElseThrow().getQuestion());
+        assertEquals("depois da queda", recovered.findById(11L).orElseThrow().getQuestion());
+        assertTrue(Files.size(segment) < sizeWithGarbage + 100);
+        recovered.close();
+        log.close();
+    }
+
+    @Test
+    void shouldRoundTripCompressedRecordsAndReuseIndexAfterCleanClose() throws Exception {
+        // Arrange
+        String longAnswer = "Confira nosso catálogo de conectores e cabos. ".repeat(40);
+        SegmentedInteractionLog log = open(4096, true);
+        for (int i = 0; i < 20; i++) {
+            log.save(new InteractionLog("pergunta " + i, longAnswer + i));
+        }
+        long bytes = log.stats().bytes();
+        log.close();
+
+        // Act
+        SegmentedInteractionLog reopened = open(4096, true);
+
+        // Assert: a resposta de ~1,9 KB ocupa bem menos no disco
+        assertTrue(bytes < 20 * longAnswer.length() / 4, "bytes: " + bytes);
+        assertEquals(longAnswer + 13, reopened.findById(14L).orElseThrow().getAnswer());
+        assertEquals(20, reopened.stats().records());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.anyMatch(p -> p.toString().endsWith(".idx")));
+        }
+        reopened.close();
+    }
+
+    @Test
+    void shouldFailBatchButKeepWritingAfterEncodingError() throws Exception {
+        // Arrange
+        SegmentedInteractionLog log = open(64 * 1024 * 1024, false);
+        log.save(new InteractionLog("antes", "resposta"));
+        InteractionLog broken = new InteractionLog(null, "sem pergunta");
+
+        // Act
+        assertThrows(RuntimeException.class, () -> log.save(broken));
+        InteractionLog after = log.save(new InteractionLog("depois", "resposta"));
+
+        // Assert: o lote que falhou não consumiu id nem ficou visível
+        assertEquals(2L, after.getId());
+        assertEquals(2, log.stats().records());
+        assertEquals("depois", log.findById(2L).orElseThrow().getQuestion());
+        log.close();
+    }
+
+    @Test
+    void shouldNotWriteAnyRecordOfBatchWhenSegmentRollFails() throws Exception {
+        // Arrange: um diretório no lugar do próximo segmento faz a troca de arquivo falhar
+        SegmentedInteractionLog log = open(1024, false);
+        log.save(new InteractionLog("antes", "resposta"));
+        Files.createDirectory(LogSegment.fileName(dir, 2));
+        List<InteractionLog> large = List.of(new InteractionLog("grande 1", "x".repeat(600)),
+                new InteractionLog("grande 2", "x".repeat(600)));
+
+        // Act
+        assertThrows(RuntimeException.class, () -> log.saveAll(large));
+
+        // Assert: a gravação recusada não deixou nenhum registro no segmento antigo
+        assertNull(large.get(0).getId());
+        assertTrue(log.findById(2L).isEmpty());
+        assertEquals(1, log.stats().records());
+        log.close();
+    }
+
+    @Test
+    void shouldFailPendingAndNewWritesWhenWriterThreadDies() throws Exception {
+        // Arrange
+        SegmentedInteractionLog log = open(64 * 1024 * 1024, false);
+        InteractionLog fatal = new InteractionLog("fatal", "resposta") {
+            @Override
+            public String getQuestion() {
+                throw new StackOverflowError("simulado");
+            }
+        };
+
+        // Act
+        IllegalStateException pending = assertThrows(IllegalStateException.class, () -> log.save(fatal));
+        long start = System.nanoTime();
+        IllegalStateException next = assertThrows(IllegalStateException.class,
+                () -> log.save(new InteractionLog("depois", "resposta")));
+
+        // Assert: nem quem estava na fila nem quem chega depois fica esperando
+        assertInstanceOf(StackOverflowError.class, pending.getCause());
+        assertInstanceOf(StackOverflowError.class, next.getCause());
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        log.close();
+    }
+
+    @Test
+    void shouldRejectWritesAfterClose() throws Exception {
+        // Arrange
+        SegmentedInteractionLog log = open(64 * 1024 * 1024, false);
+        log.save(new InteractionLog("antes", "resposta"));
+        log.close();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> log.save(new InteractionLog("depois", "resposta")));
+    }
+}
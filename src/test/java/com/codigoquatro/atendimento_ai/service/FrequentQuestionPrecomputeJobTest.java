@@ -0,0 +1,78 @@
+package com.codigoquatro.atendimento_ai.service;
+
+import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.PrecomputedAnswerStore;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.repository.InteractionLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FrequentQuestionPrecomputeJobTest {
+
+    @Mock
+    private InteractionLogRepository repository;
+
+    @Mock
+    private AiService aiService;
+
+    private PrecomputedAnswerStore store;
+    private FrequentQuestionPrecomputeJob job;
+
+    @BeforeEach
+    void setUp() {
+        store = new PrecomputedAnswerStore(24, 100);
+        job = new FrequentQuestionPrecomputeJob(repository, aiService, store, new QueryCanonicalizer(true, 2),
+                new SimpleAsyncTaskExecutor(), true, 7, 2, 2, 0);
+    }
+
+    @Test
+    void shouldPrecomputeMostFrequentQuestionsWithoutKnowledgeBaseHit() {
+        // Arrange
+        when(repository.findQuestionsSince(any())).thenReturn(List.of(
+                "Qual o preço do cabo HDMI?", "qual o preço do cabo hdmi", "QUAL O PREÇO DO CABO HDMI!",
+                "oi", "oi",
+                "vocês vendem trimpot?", "Voces vendem trimpto",
+                "pergunta única"));
+        when(aiService.hasKnowledgeBaseMatch(anyString())).thenAnswer(inv -> "oi".equals(inv.getArgument(0)));
+        when(aiService.generateAnswer(anyString())).thenAnswer(inv -> "Resposta para " + inv.getArgument(0));
+
+        // Act
+        FrequentQuestionPrecomputeJob.PrecomputeReport report = job.run();
+
+        // Assert
+        assertEquals(2, report.candidates());
+        assertEquals(2, report.generated());
+        // Chaves canônicas: sem acentos e com os erros de digitação corrigidos
+        assertEquals("Resposta para qual o preco do cabo hdmi", store.get("qual o preco do cabo hdmi").text());
+        assertEquals("Resposta para voces vendem trimpot", store.get("voces vendem trimpot").text());
+        assertNull(store.get("oi"));
+        verify(aiService, never()).generateAnswer("pergunta única");
+    }
+
+    @Test
+    void shouldCountFailuresWithoutStoringAnswers() {
+        // Arrange
+        when(repository.findQuestionsSince(any())).thenReturn(List.of("cabo hdmi", "cabo hdmi"));
+        when(aiService.hasKnowledgeBaseMatch(anyString())).thenReturn(false);
+        when(aiService.generateAnswer(anyString())).thenThrow(new RuntimeException("Erro na API de IA: 500"));
+
+        // Act
+        FrequentQuestionPrecomputeJob.PrecomputeReport report = job.run();
+
+        // Assert
+        assertEquals(1, report.failed());
+        assertEquals(0, store.size());
+    }
+}
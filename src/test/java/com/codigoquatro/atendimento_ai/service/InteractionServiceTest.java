@@ -1,16 +1,26 @@
 package com.codigoquatro.atendimento_ai.service;
 
 import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.metrics.ChatMetrics;
 import com.codigoquatro.atendimento_ai.model.InteractionLog;
 import com.codigoquatro.atendimento_ai.repository.InteractionLogRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
@@ -23,6 +33,12 @@ class InteractionServiceTest {
     @Mock
     private AiService aiService; // Mockamos o serviço de IA
 
+    @Mock
+    private ChatMetrics chatMetrics;
+
+    @Spy
+    private QueryCanonicalizer queryCanonicalizer = new QueryCanonicalizer(true, 2);
+
     @InjectMocks
     private InteractionService interactionService;
 
@@ -38,7 +54,7 @@ class InteractionServiceTest {
 
         // Simula o save retornando o objeto com ID
         when(repository.save(any(InteractionLog.class))).thenReturn(savedLog);
-        when(aiService.getAnswerForQuestion(question)).thenReturn(expectedAnswer);
+        when(aiService.getEncodedAnswer(question, null)).thenReturn(EncodedAnswer.of(expectedAnswer));
 
         // Act
         InteractionLog result = interactionService.processQuestion(question);
@@ -51,7 +67,7 @@ class InteractionServiceTest {
         verify(repository, times(1)).save(any(InteractionLog.class));
         // Verifica que o save foi chamado com um objeto que tem a resposta correta
         verify(repository).save(argThat(log -> expectedAnswer.equals(log.getAnswer())));
-        verify(aiService, times(1)).getAnswerForQuestion(question);
+        verify(aiService, times(1)).getEncodedAnswer(question, null);
     }
 
     @Test
@@ -71,4 +87,48 @@ class InteractionServiceTest {
         assertEquals(expectedLog, result);
         verify(repository, times(1)).findById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldDeduplicateBatchAndKeepInputOrder() {
+        // Arrange
+        ReflectionTestUtils.setField(interactionService, "batchTaskExecutor", new SimpleAsyncTaskExecutor());
+        ReflectionTestUtils.setField(interactionService, "batchDeadlineMs", 5000L);
+        when(aiService.findLocalAnswer("oi")).thenReturn(EncodedAnswer.of("Olá!"));
+        when(aiService.findLocalAnswer("Cabo HDMI?")).thenReturn(null);
+        when(aiService.getEncodedAnswer("Cabo HDMI?", null)).thenReturn(EncodedAnswer.of("Temos cabos HDMI."));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act: "cabo hdmy" tem a mesma chave canônica de "Cabo HDMI?" (correção de digitação)
+        List<InteractionLog> result = interactionService.processQuestions(List.of("Cabo HDMI?", "oi", "cabo hdmy"));
+
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals("Cabo HDMI?", result.get(0).getQuestion());
+        assertEquals("Temos cabos HDMI.", result.get(0).getAnswer());
+        assertEquals("Olá!", result.get(1).getAnswer());
+        assertEquals("Temos cabos HDMI.", result.get(2).getAnswer());
+        assertNotNull(result.get(2).getAnswerJson());
+        verify(aiService, times(1)).getEncodedAnswer("Cabo HDMI?", null);
+        verify(repository, times(1)).saveAll(anyList());
+        verify(repository, never()).save(any(InteractionLog.class));
+    }
+
+    @Test
+    void shouldAnswerFailedBatchQuestionWithErrorInsteadOfTimeout() {
+        // Arrange
+        ReflectionTestUtils.setField(interactionService, "batchTaskExecutor", new SimpleAsyncTaskExecutor());
+        ReflectionTestUtils.setField(interactionService, "batchDeadlineMs", 5000L);
+        when(aiService.findLocalAnswer(any())).thenReturn(null);
+        when(aiService.getEncodedAnswer("Cabo HDMI?", null)).thenThrow(new IllegalStateException("falha"));
+        when(aiService.getEncodedAnswer("Tem fonte 12V?", null)).thenReturn(EncodedAnswer.of("Temos fontes 12V."));
+        when(repository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        List<InteractionLog> result = interactionService.processQuestions(List.of("Cabo HDMI?", "Tem fonte 12V?"));
+
+        // Assert
+        assertEquals("Ocorreu um erro ao processar esta pergunta. Por favor, tente novamente.",
+                result.get(0).getAnswer());
+        assertEquals("Temos fontes 12V.", result.get(1).getAnswer());
+    }
+}
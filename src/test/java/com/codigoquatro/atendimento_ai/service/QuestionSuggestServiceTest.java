@@ -0,0 +1,159 @@
+package com.codigoquatro.atendimento_ai.service;
+
+import com.codigoquatro.atendimento_ai.ai.AiService;
+import com.codigoquatro.atendimento_ai.ai.EncodedAnswer;
+import com.codigoquatro.atendimento_ai.ai.PrecomputedAnswerStore;
+import com.codigoquatro.atendimento_ai.ai.QueryCanonicalizer;
+import com.codigoquatro.atendimento_ai.repository.InteractionLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionSuggestServiceTest {
+
+    @Mock
+    private InteractionLogRepository repository;
+
+    @Mock
+    private AiService aiService;
+
+    @Mock
+    private SmComponentesScraperService scraperService;
+
+    private PrecomputedAnswerStore precomputedAnswers;
+    private QuestionSuggestService service;
+
+    @BeforeEach
+    void setUp() {
+        precomputedAnswers = new PrecomputedAnswerStore(24, 100);
+        service = new QuestionSuggestService(aiService, scraperService, repository, new QueryCanonicalizer(true, 2),
+                precomputedAnswers, true, 2, 5, 10, 30, 3, 500, 10, 1);
+    }
+
+    private List<String> suggest(String prefix) {
+        return service.suggest(prefix, null).stream().map(EncodedAnswer::text).toList();
+    }
+
+    @Test
+    void shouldRankKnowledgeBaseAndFrequentQuestionsByFrequency() {
+        // Arrange
+        when(aiService.knowledgeBaseQuestions()).thenReturn(List.of("Qual o prazo de entrega?"));
+        when(repository.findQuestionsSince(any())).thenReturn(List.of(
+                "qual o preço do cabo hdmi?", "Qual o preço do cabo HDMI?", "Qual o preço do cabo HDMI?",
+                "qual o preço do cabo hdmi?", "Qual o preço do cabo HDMI?", "qual o preco do cabo hdmy",
+                "qual o prazo de entrga", "qual o prazo de entrega",
+                "qual a cor do cabo?"));
+        when(scraperService.cachedProductNames()).thenReturn(Set.of());
+        precomputedAnswers.put("qual o preco do cabo hdmi", "R$ 25,00");
+        service.refresh();
+
+        // Act
+        List<String> result = suggest("qual o");
+
+        // Assert
+        // Base: peso 10 + 2 perguntas (com erro de digitação, mesma chave canônica); histórico: 6 ocorrências
+        assertEquals(List.of("Qual o prazo de entrega?", "Qual o preço do cabo HDMI?"), result);
+        // Pergunta feita poucas vezes não é sugerida
+        assertTrue(suggest("qual a").isEmpty());
+    }
+
+    @Test
+    void shouldSuggestCatalogAndScrapedProductNames() {
+        // Arrange
+        when(aiService.knowledgeBaseQuestions()).thenReturn(List.of());
+        when(repository.findQuestionsSince(any())).thenReturn(List.of());
+        when(scraperService.cachedProductNames()).thenReturn(Set.of("Potenciômetro Rotativo 100K"));
+        service.refresh();
+
+        // Act
+        List<String> result = suggest("potenciometro");
+
+        // Assert
+        assertTrue(result.contains("Potenciômetro Linear"));
+        assertTrue(result.contains("Potenciômetro Rotativo 100K"));
+        assertFalse(suggest("conectores acessorios").contains(
+                "Conectores Acessórios Adaptadores Cabos Plugs Potenciômetros Bornes Componentes Eletrônicos"));
+    }
+
+    @Test
+    void shouldRespectWordBoundaryMinimumPrefixAndLimit() {
+        // Arrange
+        when(aiService.knowledgeBaseQuestions()).thenReturn(List.of());
+        when(repository.findQuestionsSince(any())).thenReturn(List.of());
+        when(scraperService.cachedProductNames()).thenReturn(Set.of());
+        service.refresh();
+
+        // Act & Assert
+        assertTrue(suggest("c").isEmpty());
+        assertTrue(suggest("cabo ").stream().allMatch(s -> s.toLowerCase().startsWith("cabo ")));
+        assertFalse(suggest("cabo ").isEmpty());
+        assertEquals(1, service.suggest("cabo", 1).size());
+        // Todos os 7 cabos do catálogo: o limite pedido é reduzido a suggest.max-suggestions
+        assertEquals(7, service.suggest("cabo", 100).size());
+        assertTrue(service.suggest("x".repeat(500), null).isEmpty());
+    }
+
+    @Test
+    void shouldKeepPreviousTrieWhenRefreshFails() {
+        // Arrange
+        when(aiService.knowledgeBaseQuestions()).thenReturn(List.of("Vocês oferecem suporte técnico?"));
+        when(repository.findQuestionsSince(any())).thenReturn(List.of());
+        when(scraperService.cachedProductNames()).thenReturn(Set.of());
+        service.refresh();
+        when(repository.findQuestionsSince(any())).thenThrow(new IllegalStateException("banco indisponível"));
+
+        // Act
+        service.scheduledRefresh();
+
+        // Assert
+        assertEquals(List.of("Vocês oferecem suporte técnico?"), suggest("voces of"));
+        QuestionSuggestService.SuggestStats stats = service.stats();
+        assertTrue(stats.phrases() > 1);
+        assertEquals(1, stats.lookups());
+    }
+
+    @Test
+    void shouldNotSuggestPastQuestionsWithoutPrecomputedAnswerOrWithPersonalData() {
+        // Arrange
+        List<String> asked = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            asked.add("meu pedido 44884 nao chegou");
+            asked.add("compre seguidores em www.spam.example");
+            asked.add("falar com joao@exemplo.com");
+            asked.add("vocês fazem entrega no sábado?");
+            asked.add("vocês fazem instalação de som automotivo?");
+        }
+        when(aiService.knowledgeBaseQuestions()).thenReturn(List.of());
+        when(repository.findQuestionsSince(any())).thenReturn(asked);
+        when(scraperService.cachedProductNames()).thenReturn(Set.of());
+        QueryCanonicalizer canonicalizer = new QueryCanonicalizer(true, 2);
+        // Só a pergunta do sábado tem resposta pré-computada
+        precomputedAnswers.put(canonicalizer.canonicalKey("vocês fazem entrega no sábado?"), "Sim, até as 12h.");
+        service.refresh();
+        // Numa segunda instância, todas têm resposta pré-computada
+        PrecomputedAnswerStore allPrecomputed = new PrecomputedAnswerStore(24, 100);
+        asked.forEach(question -> allPrecomputed.put(canonicalizer.canonicalKey(question), "resposta"));
+        QuestionSuggestService withAllPrecomputed = new QuestionSuggestService(aiService, scraperService, repository,
+                canonicalizer, allPrecomputed, true, 2, 5, 10, 30, 3, 500, 10, 1);
+        withAllPrecomputed.refresh();
+
+        // Act & Assert
+        assertEquals(List.of("vocês fazem entrega no sábado?"), suggest("voces fazem"));
+        // Dígitos, links e e-mails ficam de fora mesmo com resposta pré-computada
+        assertTrue(withAllPrecomputed.suggest("meu pedido", null).isEmpty());
+        assertTrue(withAllPrecomputed.suggest("compre", null).isEmpty());
+        assertTrue(withAllPrecomputed.suggest("falar com", null).isEmpty());
+        assertEquals(2, withAllPrecomputed.suggest("voces fazem", null).size());
+    }
+}